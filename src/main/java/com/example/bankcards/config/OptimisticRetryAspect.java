@@ -0,0 +1,92 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.OptimisticRetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повторяет операции, помеченные {@link OptimisticRetry}, при конфликте оптимистической блокировки.
+ * <p>
+ * Аспект выполняется снаружи транзакционного прокси, поэтому каждая попытка получает новую транзакцию
+ * и перечитывает карты. Число попыток ограничено {@code bank.optimistic-retry.max-attempts}; пауза перед
+ * повтором выбирается случайно от нуля до экспоненциально растущей границы («полный джиттер»), чтобы
+ * конфликтующие запросы не повторялись синхронно.
+ * <p>
+ * Если операция присоединилась к транзакции вызывающего, повтор невозможен: конфликт только учитывается
+ * в метриках и передаётся вызывающему.
+ * <p>
+ * Метрики с тегом {@code operation}: {@code bank.card.optimistic.conflicts} — конфликты,
+ * {@code bank.card.optimistic.retries} — повторы, {@code bank.card.optimistic.exhausted} — операции,
+ * исчерпавшие попытки.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class OptimisticRetryAspect {
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${bank.optimistic-retry.max-attempts:5}") int maxAttempts,
+                                 @Value("${bank.optimistic-retry.initial-backoff:PT0.005S}") Duration initialBackoff,
+                                 @Value("${bank.optimistic-retry.max-backoff:PT0.1S}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    @Around("@annotation(retry)")
+    public Object retry(ProceedingJoinPoint joinPoint, OptimisticRetry retry) throws Throwable {
+        String operation = retry.value();
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("bank.card.optimistic.conflicts", "operation", operation).increment();
+                if (joined) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("bank.card.optimistic.exhausted", "operation", operation).increment();
+                    log.warn("Конфликт оптимистической блокировки, попытки исчерпаны. operation={}, attempts={}",
+                            operation, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("bank.card.optimistic.retries", "operation", operation).increment();
+                log.debug("Конфликт оптимистической блокировки, повтор. operation={}, attempt={}", operation, attempt);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        long bound = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
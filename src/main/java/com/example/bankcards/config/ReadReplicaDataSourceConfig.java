@@ -0,0 +1,88 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Подключение реплик для чтения.
+ * <p>
+ * Включается свойством {@code bank.datasource.replicas.enabled}. Основная база настраивается как обычно
+ * через {@code spring.datasource}, реплики перечисляются в {@code bank.datasource.replicas.urls}
+ * и по умолчанию используют те же учётные данные.
+ * <p>
+ * Read-only транзакции не пополняют кэш второго уровня ({@link ReplicaReadJpaDialect}): иначе сущность,
+ * прочитанная с отстающей реплики, оставалась бы в кэше устаревшей.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bank.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    public ReadReplicaRoutingDataSource routingDataSource(
+            DataSourceProperties properties,
+            @Value("${bank.datasource.replicas.urls:}") List<String> urls,
+            @Value("${bank.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${bank.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${bank.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${bank.datasource.replicas.connection-timeout:PT1S}") Duration connectionTimeout,
+            MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setMaximumPoolSize(poolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadReplicaRoutingDataSource(primary, replicas, connectionTimeout, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Устанавливает {@link ReplicaReadJpaDialect} до инициализации фабрики сущностей: фабрика берёт диалект
+     * из адаптера Hibernate, только если он не задан, а менеджер транзакций получает его из фабрики.
+     */
+    @Bean
+    public static BeanPostProcessor replicaReadJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactory) {
+                    entityManagerFactory.setJpaDialect(new ReplicaReadJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений, направляющий read-only транзакции на реплики.
+ * <p>
+ * Реплика выбирается по кругу среди доступных. Реплика, не выдавшая соединение, исключается из чтения
+ * до следующей успешной проверки {@link #checkReplicas()}. Вне read-only транзакции, а также когда
+ * доступных реплик нет, соединение выдаёт основная база. Признак read-only выставляется уже после начала
+ * транзакции, поэтому источник используется через
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, который получает физическое
+ * соединение только при первом запросе.
+ * <p>
+ * Реплика может отставать, поэтому чтения, которые должны видеть только что записанные данные
+ * (поиск пользователя при аутентификации, загрузка списка отозванных токенов), выполняются
+ * в изменяющих транзакциях и идут в основную базу.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int validationTimeoutSeconds;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter replicasUnavailable;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration validationTimeout,
+                                        MeterRegistry meterRegistry) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
+        this.primaryConnections = meterRegistry.counter("bank.datasource.connections", "target", "primary");
+        this.replicaConnections = meterRegistry.counter("bank.datasource.connections", "target", "replica");
+        this.replicasUnavailable = meterRegistry.counter("bank.datasource.replica.unavailable");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Возвращает соединение со следующей доступной репликой или {@code null}, если доступных реплик нет.
+     */
+    private Connection replicaConnection() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.healthy = false;
+                log.warn("Реплика не выдала соединение и исключена из чтения. replica={}, error={}",
+                        replica.name, e.getMessage());
+            }
+        }
+        replicasUnavailable.increment();
+        return null;
+    }
+
+    /**
+     * Проверяет реплики и возвращает в чтение восстановившиеся.
+     */
+    @Scheduled(fixedDelayString = "${bank.datasource.replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy = isValid(replica);
+            if (healthy != replica.healthy) {
+                log.info("Изменилась доступность реплики. replica={}, healthy={}", replica.name, healthy);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private boolean isValid(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
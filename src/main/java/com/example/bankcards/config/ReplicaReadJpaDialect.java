@@ -0,0 +1,51 @@
+package com.example.bankcards.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * Диалект Hibernate, который запрещает read-only транзакциям класть сущности в кэш второго уровня.
+ * <p>
+ * Read-only транзакции читают реплику ({@link ReadReplicaRoutingDataSource}), которая может отставать
+ * от основной базы. Сущность, загруженная с такой реплики, попала бы в кэш второго уровня и отдавалась
+ * бы из него как актуальная до вытеснения. Поэтому на время read-only транзакции для менеджера сущностей
+ * задаётся {@link CacheStoreMode#BYPASS}: кэш читается, но пополняется только загрузками с основной базы.
+ * Режим задаётся свойством менеджера, а не режимом кэша сессии: {@code find} заменяет режим кэша сессии
+ * значением, вычисленным из этих свойств.
+ */
+public class ReplicaReadJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+        Object previousStoreMode = entityManager.getProperties()
+                .getOrDefault(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReadOnlyTransactionData(transactionData, entityManager, previousStoreMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData readOnly) {
+            readOnly.entityManager().setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE,
+                    readOnly.previousStoreMode());
+            super.cleanupTransaction(readOnly.delegate());
+            return;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private record ReadOnlyTransactionData(Object delegate, EntityManager entityManager, Object previousStoreMode) {
+    }
+}
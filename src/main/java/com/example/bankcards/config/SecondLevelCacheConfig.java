@@ -0,0 +1,111 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate для карт и пользователей.
+ * <p>
+ * Включается свойством {@code bank.cache.second-level.enabled}. Регионы хранятся в локальном Caffeine
+ * через JCache, для каждого задаются размер и время жизни записи. Все регионы создаются здесь заранее:
+ * регион, не описанный в конфигурации, считается ошибкой отображения, а не создаётся без ограничений.
+ * Поиск пользователя по имени обслуживается кэшем натурального идентификатора, поэтому общий кэш запросов
+ * не включается: его записи сбрасывались бы любым изменением таблиц {@code cards} и {@code users}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bank.cache.second-level", name = "enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+    public static final String CARDS_REGION = "cards";
+    public static final String USERS_REGION = "users";
+    public static final String USERS_BY_USERNAME_REGION = "users-by-username";
+
+    /**
+     * Менеджер регионов. Получает собственный URI, чтобы несколько контекстов в одной JVM
+     * не делили одни и те же кэши.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${bank.cache.second-level.cards.size:10000}") long cardsSize,
+            @Value("${bank.cache.second-level.cards.ttl:PT1M}") Duration cardsTtl,
+            @Value("${bank.cache.second-level.users.size:10000}") long usersSize,
+            @Value("${bank.cache.second-level.users.ttl:PT10M}") Duration usersTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("bank-second-level-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(CARDS_REGION, region(cardsSize, cardsTtl));
+        cacheManager.createCache(USERS_REGION, region(usersSize, usersTtl));
+        cacheManager.createCache(USERS_BY_USERNAME_REGION, region(usersSize, usersTtl));
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long size, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(size));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * Метрики регионов: {@code bank.cache.second-level.requests{region, result}} и доля попаданий
+     * {@code bank.cache.second-level.hit-ratio{region}}.
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                // Статистика региона запрашивается при каждом чтении: Statistics#clear заменяет её объекты.
+                FunctionCounter.builder("bank.cache.second-level.requests", statistics,
+                                s -> s.getDomainDataRegionStatistics(region).getHitCount())
+                        .tags("region", region, "result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("bank.cache.second-level.requests", statistics,
+                                s -> s.getDomainDataRegionStatistics(region).getMissCount())
+                        .tags("region", region, "result", "miss")
+                        .register(registry);
+                Gauge.builder("bank.cache.second-level.hit-ratio", statistics,
+                                s -> hitRatio(s.getDomainDataRegionStatistics(region)))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        long hits = statistics.getHitCount();
+        long requests = hits + statistics.getMissCount();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
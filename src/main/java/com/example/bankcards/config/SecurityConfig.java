@@ -1,7 +1,11 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.security.BCryptStrengthPasswordEncoder;
 import com.example.bankcards.security.JwtFilter;
+import com.example.bankcards.security.PooledPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -11,8 +15,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -44,6 +46,8 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(WHITELIST).permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/users/**").hasRole("USER")
@@ -58,9 +62,20 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * BCrypt со стоимостью {@code bank.security.password-hashing.strength}, выполняемый в отдельном ограниченном
+     * пуле потоков: {@code bank.security.password-hashing.threads} потоков (по умолчанию — по числу ядер)
+     * и очередь ёмкостью {@code bank.security.password-hashing.queue-capacity}.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PooledPasswordEncoder getPasswordEncoder(MeterRegistry meterRegistry,
+                                                    @Value("${bank.security.password-hashing.strength:10}") int strength,
+                                                    @Value("${bank.security.password-hashing.threads:0}") int threads,
+                                                    @Value("${bank.security.password-hashing.queue-capacity:64}")
+                                                    int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new PooledPasswordEncoder(new BCryptStrengthPasswordEncoder(strength), meterRegistry,
+                poolSize, queueCapacity);
     }
 
     @Bean
@@ -0,0 +1,21 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.CountMode;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Locale;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Параметр {@code count} принимается в любом регистре: {@code count=none} и {@code count=NONE}.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, CountMode.class,
+                source -> CountMode.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
+}
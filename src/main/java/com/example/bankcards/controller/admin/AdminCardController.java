@@ -2,11 +2,14 @@ package com.example.bankcards.controller.admin;
 
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardStripesDto;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.exception.ErrorResponse;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.CountMode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -89,6 +92,34 @@ public class AdminCardController {
         return cardService.updateCardStatus(cardId, dto);
     }
 
+    /**
+     * Изменяет количество частей баланса карты.
+     * <p>
+     * Разбиение баланса предназначено для карт, получающих очень частые зачисления: зачисления
+     * распределяются по частям баланса и не конкурируют за одну строку карты.
+     *
+     * @param cardId идентификатор карты
+     * @param dto    DTO с новым количеством частей баланса
+     * @return DTO карты
+     */
+    @Operation(summary = "Разбиение баланса карты",
+            description = "Задаёт количество частей баланса карты для частых зачислений; 0 отключает разбиение")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "(OK) Количество частей баланса изменено"),
+            @ApiResponse(responseCode = "400", description = "(BAD REQUEST) Неверный формат данных",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный JWT токен",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещен",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "(NOT FOUND) Карта не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PatchMapping("/{cardId}/stripes")
+    public CardDto updateCardStripes(@PathVariable("cardId") UUID cardId, @Valid @RequestBody CardStripesDto dto) {
+        return cardService.updateCardStripes(cardId, dto);
+    }
+
     /**
      * Удаляет карту по её идентификатору.
      * <p>
@@ -104,6 +135,8 @@ public class AdminCardController {
             @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещен",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "(NOT FOUND) Карта не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "(CONFLICT) У карты есть история операций",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @DeleteMapping("/{cardId}")
@@ -136,11 +169,16 @@ public class AdminCardController {
     /**
      * Возвращает все карты с поддержкой пагинации и фильтрации по статусу.
      * <p>
-     * Используется для просмотра всех карт.
+     * Используется для просмотра всех карт. Если передан параметр {@code cursor}, страницы читаются
+     * по курсору: без пропуска строк и без подсчёта общего количества, что позволяет обходить все карты
+     * с постоянной стоимостью запроса. Параметр {@code count} позволяет пропустить или заменить оценкой
+     * подсчёт общего количества карт при постраничном просмотре.
      *
      * @param page   номер страницы
      * @param size   размер страницы
      * @param status необязательный фильтр по статусу карты
+     * @param count  способ подсчёта общего количества карт
+     * @param cursor курсор навигации; пустая строка — первая страница
      * @return страницы DTO карт
      */
     @Operation(summary = "Получение всех карт",
@@ -157,7 +195,15 @@ public class AdminCardController {
     @GetMapping
     public PageResponse<CardDto> getAllCards(@PositiveOrZero @RequestParam(value = "page", defaultValue = "0") int page,
                                              @Positive @RequestParam(value = "size", defaultValue = "10") int size,
-                                             @RequestParam(value = "status", required = false) CardStatus status) {
-        return cardService.getAll(page, size, status);
+                                             @RequestParam(value = "status", required = false) CardStatus status,
+                                             @Parameter(description = "Способ подсчёта общего количества: EXACT — точный COUNT, APPROX — оценка, NONE — без подсчёта")
+                                             @RequestParam(value = "count", defaultValue = "EXACT") CountMode count,
+                                             @Parameter(description = "Курсор навигации: пустое значение — первая " +
+                                                     "страница, далее nextCursor предыдущего ответа")
+                                             @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return cardService.getAllByCursor(cursor, size, status);
+        }
+        return cardService.getAll(page, size, count, status);
     }
 }
\ No newline at end of file
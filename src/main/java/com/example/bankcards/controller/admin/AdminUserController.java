@@ -5,7 +5,9 @@ import com.example.bankcards.dto.user.UserCreateDto;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.exception.ErrorResponse;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.CountMode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -56,6 +58,8 @@ public class AdminUserController {
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "409", description = "(CONFLICT) Пользователь с таким username уже существует",
             content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "(SERVICE UNAVAILABLE) Очередь хеширования паролей переполнена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -66,10 +70,14 @@ public class AdminUserController {
     /**
      * Возвращает страницу пользователей.
      * <p>
-     * Используется администраторами для просмотра всех пользователей системы.
+     * Используется администраторами для просмотра всех пользователей системы. Если передан параметр
+     * {@code cursor}, страницы читаются по курсору в порядке username без подсчёта общего количества.
+     * Параметр {@code count} позволяет пропустить или заменить оценкой подсчёт при постраничном просмотре.
      *
-     * @param page номер страницы (начиная с 0)
-     * @param size количество элементов на странице
+     * @param page   номер страницы (начиная с 0)
+     * @param size   количество элементов на странице
+     * @param count  способ подсчёта общего количества пользователей
+     * @param cursor курсор навигации; пустая строка — первая страница
      * @return страницу с DTO пользователей
      */
     @Operation(summary = "Просмотр всех пользователей", description = "Просмотр всех пользователей с пагинацией")
@@ -84,7 +92,15 @@ public class AdminUserController {
     })
     @GetMapping
     public PageResponse<UserDto> getUsers(@PositiveOrZero @RequestParam(value = "page", defaultValue = "0") int page,
-                                          @Positive @RequestParam(value = "size", defaultValue = "10") int size) {
-        return userService.getUsers(page, size);
+                                          @Positive @RequestParam(value = "size", defaultValue = "10") int size,
+                                          @Parameter(description = "Способ подсчёта общего количества: EXACT — точный COUNT, APPROX — оценка, NONE — без подсчёта")
+                                          @RequestParam(value = "count", defaultValue = "EXACT") CountMode count,
+                                          @Parameter(description = "Курсор навигации: пустое значение — первая " +
+                                                  "страница, далее nextCursor предыдущего ответа")
+                                          @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return userService.getUsersByCursor(cursor, size);
+        }
+        return userService.getUsers(page, size, count);
     }
 }
\ No newline at end of file
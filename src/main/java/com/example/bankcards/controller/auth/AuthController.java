@@ -4,6 +4,7 @@ import com.example.bankcards.dto.jwt.JwtAuthDto;
 import com.example.bankcards.dto.jwt.RefreshTokenDto;
 import com.example.bankcards.dto.user.UserCredentialsDto;
 import com.example.bankcards.exception.ErrorResponse;
+import com.example.bankcards.security.LoginThrottle;
 import com.example.bankcards.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,6 +12,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -30,6 +32,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Аутентифицирует пользователя по предоставленным учётным данным.
@@ -39,11 +42,15 @@ public class AuthController {
      *   <li>JWT access token — используется для авторизации в защищённых эндпоинтах</li>
      *   <li>refresh token — используется для получения нового access token</li>
      * </ul>
+     * Перед проверкой учётных данных попытка учитывается в {@link LoginThrottle} по имени пользователя
+     * и адресу клиента.
      *
-     * @param dto DTO с логином и паролем пользователя
+     * @param dto     DTO с логином и паролем пользователя
+     * @param request HTTP-запрос, из которого берётся адрес клиента
      * @return объект {@link JwtAuthDto} с access и refresh токенами
      * @throws com.example.bankcards.exception.NotFoundException если пользователь не найден
      * @throws com.example.bankcards.exception.AuthException если пароль неверный
+     * @throws com.example.bankcards.exception.TooManyRequestsException если превышен лимит попыток входа
      */
     @Operation(description = "Авторизует пользователя и возвращает токены", summary = "Авторизация")
     @ApiResponses({
@@ -53,10 +60,15 @@ public class AuthController {
             @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный пароль",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "(NOT FOUND) Пользователь на найден",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "(TOO MANY REQUESTS) Превышен лимит попыток входа",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "(SERVICE UNAVAILABLE) Очередь проверки паролей переполнена",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PostMapping("/login")
-    public JwtAuthDto logIn(@Valid @RequestBody UserCredentialsDto dto) {
+    public JwtAuthDto logIn(@Valid @RequestBody UserCredentialsDto dto, HttpServletRequest request) {
+        loginThrottle.checkLogin(dto.username(), request.getRemoteAddr());
         return authService.logIn(dto);
     }
 
@@ -0,0 +1,88 @@
+package com.example.bankcards.controller.user;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferStatusDto;
+import com.example.bankcards.exception.ErrorResponse;
+import com.example.bankcards.security.CustomUserDetails;
+import com.example.bankcards.service.AsyncTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * REST-контроллер асинхронных переводов между картами текущего пользователя.
+ * <p>
+ * Доступен, только если включён режим полос переводов ({@code bank.transfer.lanes.enabled=true}).
+ */
+@Tag(name = "users: Асинхронные переводы")
+@SecurityRequirement(name = "bearerAuth")
+@RestController
+@RequestMapping("/users/cards/transfers")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "bank.transfer.lanes", name = "enabled", havingValue = "true")
+public class UserAsyncTransferController {
+    private final AsyncTransferService asyncTransferService;
+
+    /**
+     * Ставит перевод между картами текущего пользователя в очередь.
+     * <p>
+     * Перевод выполняется по тем же правилам, что и синхронный; результат доступен
+     * по идентификатору перевода.
+     *
+     * @param dto параметры перевода (карта-источник, карта-получатель, сумма)
+     * @return состояние перевода с его идентификатором
+     */
+    @Operation(summary = "Асинхронный перевод средств",
+            description = "Ставит перевод в очередь и возвращает его идентификатор")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "(ACCEPTED) Перевод поставлен в очередь"),
+            @ApiResponse(responseCode = "400", description = "(BAD REQUEST) Некорректное тело запроса",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный JWT",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещён",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "(SERVICE UNAVAILABLE) Очередь переводов переполнена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CardTransferStatusDto submitTransfer(@Valid @RequestBody CardTransferDto dto,
+                                                @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return asyncTransferService.submit(userDetails.getId(), dto);
+    }
+
+    /**
+     * Возвращает состояние асинхронного перевода текущего пользователя.
+     *
+     * @param transferId идентификатор перевода
+     * @return состояние перевода
+     */
+    @Operation(summary = "Состояние перевода", description = "Возвращает состояние асинхронного перевода")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "(OK) Состояние перевода возвращено"),
+            @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный JWT",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещён",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "(NOT FOUND) Перевод не найден",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/{transferId}")
+    public CardTransferStatusDto getTransferStatus(@PathVariable("transferId") UUID transferId,
+                                                   @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return asyncTransferService.getStatus(transferId, userDetails.getId());
+    }
+}
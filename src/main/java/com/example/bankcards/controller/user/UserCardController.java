@@ -1,13 +1,20 @@
 package com.example.bankcards.controller.user;
 
+import com.example.bankcards.dto.card.CardBatchTransferResultDto;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLedgerEntryDto;
 import com.example.bankcards.dto.card.CardTransferDto;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.exception.ErrorResponse;
 import com.example.bankcards.security.CustomUserDetails;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.GroupCommitService;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.CountMode;
+import com.example.bankcards.util.TransferBatchMode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,15 +22,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -40,7 +51,10 @@ import java.util.UUID;
 @Validated
 public class UserCardController {
     private final CardService cardService;
+    private final IdempotencyService idempotencyService;
+    private final GroupCommitService groupCommitService;
     private final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     /**
      * Возвращает страницу карт текущего пользователя с фильтрацией.
@@ -54,6 +68,9 @@ public class UserCardController {
      * @param expiryDateFrom  необязательная нижняя граница срока действия карты (включительно)
      * @param expiryDateTo    необязательная верхняя граница срока действия карты (включительно)
      * @param last4           необязательный фильтр по последним четырём цифрам номера карты
+     * @param count           способ подсчёта общего количества карт: точный, оценка или без подсчёта
+     * @param cursor          курсор навигации; если передан, страницы читаются по курсору без подсчёта
+     *                        общего количества, пустая строка — первая страница
      * @return страничный ответ с DTO карт текущего пользователя
      */
     @Operation(summary = "Получение всех карт пользователя",
@@ -78,8 +95,17 @@ public class UserCardController {
                                                  @RequestParam(value = "expiryDateTo", required = false)
                                              @Schema(example = "2025-01-01 12:00:00")
                                              @DateTimeFormat(pattern = DATE_FORMAT) LocalDateTime expiryDateTo,
-                                                 @RequestParam(value = "last4", required = false) String last4) {
-        return cardService.getAllUserCards(userDetails.getUsername(), page, size,
+                                                 @RequestParam(value = "last4", required = false) String last4,
+                                                 @Parameter(description = "Способ подсчёта общего количества: EXACT — точный COUNT, APPROX — оценка, NONE — без подсчёта")
+                                                 @RequestParam(value = "count", defaultValue = "EXACT") CountMode count,
+                                                 @Parameter(description = "Курсор навигации: пустое значение — " +
+                                                         "первая страница, далее nextCursor предыдущего ответа")
+                                                 @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return cardService.getAllUserCardsByCursor(userDetails.getId(), cursor, size,
+                    status, expiryDateFrom, expiryDateTo, last4);
+        }
+        return cardService.getAllUserCards(userDetails.getId(), page, size, count,
                 status, expiryDateFrom, expiryDateTo, last4);
     }
 
@@ -108,7 +134,7 @@ public class UserCardController {
     @PatchMapping("/{cardId}/block")
     public CardDto blockCardRequest(@PathVariable("cardId") UUID cardId,
                              @AuthenticationPrincipal CustomUserDetails userDetails) {
-        return cardService.blockCardRequest(cardId, userDetails.getUsername());
+        return cardService.blockCardRequest(cardId, userDetails.getId());
     }
 
     /**
@@ -117,7 +143,14 @@ public class UserCardController {
      * Перевод возможен только между разными картами, принадлежащими пользователю,
      * при условии, что обе карты активны и на карте-источнике достаточно средств.
      *
-     * @param dto         параметры перевода (карта-источник, карта-получатель, сумма)
+     * <p>
+     * Если передан заголовок {@code Idempotency-Key}, перевод выполняется не более одного раза:
+     * повтор запроса с тем же ключом (например, после таймаута) возвращает исходный результат.
+     * Переводы без ключа при включённой групповой фиксации ({@code bank.transfer.group-commit.enabled})
+     * фиксируются вместе с переводами других запросов, поступившими в то же окно.
+     *
+     * @param dto            параметры перевода (карта-источник, карта-получатель, сумма)
+     * @param idempotencyKey необязательный ключ идемпотентности, уникальный для каждого перевода клиента
      */
     @Operation(summary = "Перевод средств", description = "Переводит средства между картами пользователя")
     @ApiResponses({
@@ -136,13 +169,58 @@ public class UserCardController {
             - Перевод возможен только между активными картами
             - Сумма перевода должна быть больше 0
             - Недостаточно средств
+            - Ключ идемпотентности уже использован для другого запроса
             """,
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "(SERVICE UNAVAILABLE) Очередь групповой фиксации переполнена",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PostMapping("/transfer")
     public void transferMoney(@Valid @RequestBody CardTransferDto dto,
-                              @AuthenticationPrincipal CustomUserDetails userDetails) {
-        cardService.transfer(userDetails.getUsername(), dto);
+                              @AuthenticationPrincipal CustomUserDetails userDetails,
+                              @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом не выполняет " +
+                                      "перевод снова, а возвращает исходный результат",
+                                      example = "3f1c2a9e-5b7d-4e0a-9c61-2d8f4b7a1e55")
+                              @Size(max = 255)
+                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (StringUtils.hasText(idempotencyKey)) {
+            idempotencyService.transfer(userDetails.getId(), idempotencyKey, dto);
+            return;
+        }
+        groupCommitService.transfer(userDetails.getId(), dto);
+    }
+
+    /**
+     * Выполняет пакет переводов между картами текущего пользователя в одной транзакции.
+     * <p>
+     * Каждый перевод проверяется по тем же правилам, что и одиночный; результат возвращается
+     * для каждого перевода пакета. В режиме {@code ALL_OR_NOTHING} пакет выполняется только целиком,
+     * в режиме {@code BEST_EFFORT} выполняются все корректные переводы.
+     *
+     * @param transfers переводы в порядке выполнения
+     * @param mode      режим выполнения пакета
+     * @return результаты переводов
+     */
+    @Operation(summary = "Пакетный перевод средств",
+            description = "Выполняет несколько переводов между картами пользователя в одной транзакции")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "(OK) Пакет обработан, результаты по каждому переводу",
+                    content = @Content(schema = @Schema(implementation = CardBatchTransferResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "(BAD REQUEST) Некорректное тело запроса",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный JWT",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещён",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/transfers/batch")
+    public CardBatchTransferResultDto transferMoneyBatch(@RequestBody
+                                                         @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                                         List<@Valid CardTransferDto> transfers,
+                                                         @RequestParam(value = "mode", defaultValue = "ALL_OR_NOTHING")
+                                                         TransferBatchMode mode,
+                                                         @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return cardService.transferBatch(userDetails.getId(), transfers, mode);
     }
 
     /**
@@ -168,6 +246,37 @@ public class UserCardController {
     @GetMapping("{cardId}")
     public CardDto getUserCardById(@PathVariable("cardId") UUID cardId,
                                    @AuthenticationPrincipal CustomUserDetails userDetails) {
-        return cardService.getUserCardById(cardId, userDetails.getUsername());
+        return cardService.getUserCardById(cardId, userDetails.getId());
+    }
+
+    /**
+     * Возвращает журнал операций по карте текущего пользователя, начиная с последних операций.
+     *
+     * @param cardId идентификатор карты
+     * @param page   номер страницы (начиная с 0)
+     * @param size   размер страницы
+     * @return страничный ответ с записями журнала
+     */
+    @Operation(summary = "Журнал операций по карте",
+            description = "Возвращает списания и зачисления по карте пользователя, начиная с последних")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "(OK) Журнал возвращён"),
+            @ApiResponse(responseCode = "400", description = "(BAD REQUEST) Неверный формат данных",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "(UNAUTHORIZED) Неверный JWT токен",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "(FORBIDDEN) Доступ запрещён",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "(NOT FOUND) Карта не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "(CONFLICT) Просмотр чужой карты",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("{cardId}/ledger")
+    public PageResponse<CardLedgerEntryDto> getUserCardLedger(@PathVariable("cardId") UUID cardId,
+                                                              @PositiveOrZero @RequestParam(value = "page", defaultValue = "0") int page,
+                                                              @Positive @RequestParam(value = "size", defaultValue = "10") int size,
+                                                              @AuthenticationPrincipal CustomUserDetails userDetails) {
+        return cardService.getUserCardLedger(cardId, userDetails.getId(), page, size);
     }
 }
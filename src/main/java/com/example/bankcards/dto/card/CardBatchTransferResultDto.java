@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.TransferBatchMode;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "DTO результата пакетного перевода")
+public record CardBatchTransferResultDto(
+        @Schema(description = "Режим выполнения пакета", example = "BEST_EFFORT")
+        TransferBatchMode mode,
+        @Schema(description = "Количество выполненных переводов", example = "2")
+        int applied,
+        @Schema(description = "Количество отклонённых переводов", example = "1")
+        int rejected,
+        @Schema(description = "Результаты переводов в порядке их следования в запросе")
+        List<CardTransferItemResultDto> items) {
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.LedgerEntryType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Schema(description = "DTO записи журнала операций по карте")
+public record CardLedgerEntryDto(
+        @Schema(description = "ID записи журнала", example = "1051")
+        Long id,
+        @Schema(description = "ID перевода; общий для записей списания и зачисления",
+                example = "0b6f4c8e-3a57-4c39-9f0e-51f0c2f5a8d1")
+        UUID transferId,
+        @Schema(description = "Тип операции", example = "DEBIT")
+        LedgerEntryType entryType,
+        @Schema(description = "Изменение баланса: отрицательное для списания", example = "-250.00")
+        BigDecimal amount,
+        @Schema(description = "Время операции", example = "2025-01-01T12:00:00")
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+@Schema(description = "DTO для изменения количества частей баланса карты")
+public record CardStripesDto(
+        @Schema(description = "Количество частей баланса; 0 отключает разбиение", example = "8")
+        @NotNull
+        @PositiveOrZero
+        @Max(64)
+        Integer stripeCount) {
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.TransferItemStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "DTO результата одного перевода из пакета")
+public record CardTransferItemResultDto(
+        @Schema(description = "Позиция перевода в пакете (начиная с 0)", example = "0")
+        int index,
+        @Schema(description = "Результат перевода: APPLIED — выполнен, REJECTED — отклонён, " +
+                "ROLLED_BACK — корректен, но отменён из-за ошибки в другом переводе пакета",
+                example = "APPLIED")
+        TransferItemStatus status,
+        @Schema(description = "Причина отказа; null для выполненного перевода",
+                example = "Недостаточно средств для перевода.")
+        String message) {
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.TransferStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.UUID;
+
+@Schema(description = "DTO состояния асинхронного перевода")
+public record CardTransferStatusDto(
+        @Schema(description = "ID перевода", example = "0b6f4c8e-3a57-4c39-9f0e-51f0c2f5a8d1")
+        UUID transferId,
+        @Schema(description = "Состояние перевода: QUEUED — в очереди, COMPLETED — выполнен, FAILED — отклонён",
+                example = "COMPLETED")
+        TransferStatus status,
+        @Schema(description = "Причина отказа; null, если перевод не отклонён",
+                example = "Недостаточно средств для перевода.")
+        String message) {
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Строка списка карт: ровно те столбцы карты и её владельца, из которых собирается {@link CardDto}.
+ *
+ * @param id             идентификатор карты
+ * @param ownerId        идентификатор владельца
+ * @param ownerUsername  имя владельца
+ * @param last4          последние четыре цифры номера карты
+ * @param expiryDate     дата окончания срока действия
+ * @param status         статус карты
+ * @param balance        основной баланс карты
+ * @param stripedBalance сумма частей баланса; {@code null}, если баланс не разбит
+ */
+public record CardView(UUID id, UUID ownerId, String ownerUsername, String last4, LocalDateTime expiryDate,
+                       CardStatus status, BigDecimal balance, BigDecimal stripedBalance) {
+
+    /**
+     * Возвращает доступный баланс карты: основной баланс плюс сумма частей баланса.
+     */
+    public BigDecimal availableBalance() {
+        return stripedBalance == null ? balance : balance.add(stripedBalance);
+    }
+}
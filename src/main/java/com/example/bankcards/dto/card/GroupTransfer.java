@@ -0,0 +1,12 @@
+package com.example.bankcards.dto.card;
+
+import java.util.UUID;
+
+/**
+ * Перевод, поставленный в групповую транзакцию.
+ *
+ * @param userId идентификатор пользователя, выполняющего перевод
+ * @param dto    параметры перевода
+ */
+public record GroupTransfer(UUID userId, CardTransferDto dto) {
+}
@@ -0,0 +1,37 @@
+package com.example.bankcards.dto.card;
+
+/**
+ * Результат перевода в групповой транзакции.
+ *
+ * @param status    результат перевода
+ * @param rejection причина отказа; {@code null}, если перевод не отклонён
+ */
+public record GroupTransferResult(Status status, RuntimeException rejection) {
+
+    public enum Status {
+        /**
+         * Перевод выполнен и будет зафиксирован вместе с группой.
+         */
+        APPLIED,
+        /**
+         * Перевод отклонён и ничего не изменил.
+         */
+        REJECTED,
+        /**
+         * Перевод нельзя выполнить в группе, не блокируя части баланса карты; его нужно выполнить отдельно.
+         */
+        DEFERRED
+    }
+
+    public static GroupTransferResult applied() {
+        return new GroupTransferResult(Status.APPLIED, null);
+    }
+
+    public static GroupTransferResult rejected(RuntimeException rejection) {
+        return new GroupTransferResult(Status.REJECTED, rejection);
+    }
+
+    public static GroupTransferResult deferred() {
+        return new GroupTransferResult(Status.DEFERRED, null);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.dto.card;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Баланс карты и суммы журнала относительно границы снимка, прочитанные одним оператором.
+ *
+ * @param cardId           идентификатор карты
+ * @param balance          текущий доступный баланс карты (с учётом частей баланса)
+ * @param afterHorizon     сумма записей журнала, созданных позже границы нового снимка
+ * @param previousBalance  баланс предыдущего снимка; {@code null}, если снимка нет
+ * @param sincePrevious    сумма записей между границами предыдущего и нового снимков; {@code 0}, если снимка нет
+ */
+public record LedgerBalanceView(UUID cardId, BigDecimal balance, BigDecimal afterHorizon,
+                                BigDecimal previousBalance, BigDecimal sincePrevious) {
+
+    /**
+     * Возвращает баланс карты на границе нового снимка.
+     */
+    public BigDecimal balanceAtHorizon() {
+        return balance.subtract(afterHorizon);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.util.CardStatus;
+
+import java.util.UUID;
+
+/**
+ * Данные карты, по которым проверяется перевод: владелец и статус.
+ *
+ * @param id      идентификатор карты
+ * @param ownerId идентификатор владельца
+ * @param status  статус карты
+ */
+public record TransferCardView(UUID id, UUID ownerId, CardStatus status) {
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.dto.page;
+
+import com.example.bankcards.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Позиция в выборке при навигации по курсору: значение ключа сортировки и идентификатор последней
+ * выданной строки. Следующая страница читается условием {@code (ключ, id) > (sortKey, id)} по индексу,
+ * без пропуска {@code OFFSET} строк и без {@code COUNT(*)}.
+ * <p>
+ * Клиенту курсор передаётся непрозрачной строкой Base64URL.
+ *
+ * @param sortKey значение ключа сортировки последней строки страницы в строковом виде
+ * @param id      идентификатор последней строки страницы
+ */
+public record PageCursor(String sortKey, UUID id) {
+    private static final int UUID_LENGTH = 36;
+
+    /**
+     * Преобразует ключ сортировки к типу столбца.
+     *
+     * @throws BadRequestException если ключ не разбирается, то есть курсор получен не от этой выборки
+     */
+    public <T> T sortKey(Function<String, T> parser) {
+        try {
+            return parser.apply(sortKey);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Некорректный курсор страницы.");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + sortKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param cursor курсор или пустая строка для первой страницы
+     * @return позиция или {@code null} для первой страницы
+     * @throws BadRequestException если курсор повреждён
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new PageCursor(value.substring(UUID_LENGTH), UUID.fromString(value.substring(0, UUID_LENGTH)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Некорректный курсор страницы.");
+        }
+    }
+}
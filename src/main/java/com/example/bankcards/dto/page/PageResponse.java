@@ -1,16 +1,32 @@
 package com.example.bankcards.dto.page;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Function;
 
+/**
+ * Страница результатов.
+ * <p>
+ * При постраничной навигации по номеру страницы заполнены {@code page}, {@code totalElements} и {@code totalPages};
+ * при {@code count=none} общее количество не вычисляется и не выводится, а при {@code count=approx} является
+ * оценкой. При навигации по курсору номер страницы и общее количество не выводятся, а следующую страницу
+ * запрашивают по {@code nextCursor}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PageResponse<T>(
         List<T> content,
-        int page,
+        Integer page,
         int size,
-        long totalElements,
-        int totalPages,
-        boolean last
+        Long totalElements,
+        Integer totalPages,
+        boolean last,
+        boolean hasNext,
+        @Schema(description = "Курсор следующей страницы; отсутствует на последней странице и при навигации по номеру")
+        String nextCursor
 ) {
     public static <T> PageResponse<T> from(Page<T> page) {
         return new PageResponse<>(
@@ -19,8 +35,52 @@ public record PageResponse<T>(
                 page.getSize(),
                 page.getTotalElements(),
                 page.getTotalPages(),
-                page.isLast()
+                page.isLast(),
+                page.hasNext(),
+                null
         );
     }
-}
 
+    /**
+     * Страница без подсчёта общего количества элементов.
+     */
+    public static <T> PageResponse<T> fromSlice(Slice<T> slice) {
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), null, null,
+                slice.isLast(), slice.hasNext(), null);
+    }
+
+    /**
+     * Страница с оценкой общего количества элементов. Оценка не может быть меньше уже прочитанного,
+     * а на последней странице заменяется точным значением.
+     */
+    public static <T> PageResponse<T> fromSlice(Slice<T> slice, long approximateTotal) {
+        long read = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        long total;
+        if (slice.isLast() && (slice.hasContent() || slice.isFirst())) {
+            total = read;
+        } else {
+            total = Math.max(approximateTotal, slice.hasNext() ? read + 1 : 0);
+        }
+        int totalPages = (int) ((total + slice.getSize() - 1) / slice.getSize());
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), total, totalPages,
+                slice.isLast(), slice.hasNext(), null);
+    }
+
+    /**
+     * Собирает страницу навигации по курсору из строк, прочитанных с запасом в одну строку:
+     * лишняя строка означает, что следующая страница существует.
+     *
+     * @param rows     не более {@code size + 1} строк в порядке ключа сортировки
+     * @param size     размер страницы
+     * @param cursorOf позиция строки в выборке
+     * @param mapper   преобразование строки в элемент ответа
+     */
+    public static <E, T> PageResponse<T> fromKeyset(List<E> rows, int size, Function<E, PageCursor> cursorOf,
+                                                    Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.get(size - 1)).encode() : null;
+        return new PageResponse<>(pageRows.stream().map(mapper).toList(), null, size, null, null, !hasNext,
+                hasNext, nextCursor);
+    }
+}
@@ -3,6 +3,9 @@ package com.example.bankcards.entity;
 import com.example.bankcards.util.CardStatus;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,6 +25,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Table(name = "cards")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
 public class Card {
     /**
      * Уникальный идентификатор карты.
@@ -32,9 +36,9 @@ public class Card {
     private UUID id;
 
     /**
-     * Владелец карты.
+     * Владелец карты. Загружается только запросами, которым он нужен целиком.
      */
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User owner;
 
@@ -69,4 +73,39 @@ public class Card {
      */
     @Column(name = "balance", nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
+
+    /**
+     * Версия строки для оптимистической блокировки. Условные {@code UPDATE} баланса в {@code CardRepository}
+     * увеличивают её так же, как Hibernate при сохранении карты.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Количество частей баланса; {@code 0}, если баланс карты не разбит.
+     */
+    @Column(name = "stripe_count", nullable = false)
+    private int stripeCount;
+
+    /**
+     * Сумма частей баланса на момент загрузки карты; {@code 0}, если баланс не разбит.
+     */
+    @Formula("(SELECT COALESCE(SUM(s.balance), 0) FROM card_balance_stripes s WHERE s.card_id = id)")
+    private BigDecimal stripedBalance;
+
+    /**
+     * Возвращает доступный баланс карты: основной баланс плюс сумма частей баланса.
+     */
+    public BigDecimal getAvailableBalance() {
+        return stripedBalance == null ? balance : balance.add(stripedBalance);
+    }
+
+    /**
+     * Проверяет, принадлежит ли карта пользователю. Сравнивается внешний ключ: идентификатор
+     * непроинициализированного владельца известен без запроса к {@code users}.
+     */
+    public boolean isOwnedBy(UUID userId) {
+        return owner.getId().equals(userId);
+    }
 }
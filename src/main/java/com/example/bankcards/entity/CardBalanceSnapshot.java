@@ -0,0 +1,48 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity периодического снимка баланса карты.
+ * <p>
+ * Баланс карты равен {@code balance} плюс сумма записей журнала, созданных позже {@code coveredUntil}.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Table(name = "card_balance_snapshots")
+public class CardBalanceSnapshot {
+    /**
+     * Идентификатор карты.
+     */
+    @Id
+    @Column(name = "card_id")
+    @EqualsAndHashCode.Include
+    private UUID cardId;
+
+    /**
+     * Баланс карты на момент {@code coveredUntil}.
+     */
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    /**
+     * Граница снимка: учтены все записи журнала, созданные не позже этого момента, и только они.
+     */
+    @Column(name = "covered_until", nullable = false)
+    private LocalDateTime coveredUntil;
+
+    /**
+     * Время создания снимка.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
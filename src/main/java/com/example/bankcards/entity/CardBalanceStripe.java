@@ -0,0 +1,46 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Entity части баланса карты в режиме разбиения баланса.
+ * <p>
+ * Зачисления на карту с разбиением увеличивают одну из её частей вместо строки {@code cards},
+ * поэтому одновременные зачисления на одну карту изменяют разные строки.
+ * Доступный баланс карты равен {@code cards.balance} плюс сумма всех её частей.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@IdClass(CardBalanceStripeId.class)
+@Table(name = "card_balance_stripes")
+public class CardBalanceStripe {
+    /**
+     * Идентификатор карты.
+     */
+    @Id
+    @Column(name = "card_id")
+    @EqualsAndHashCode.Include
+    private UUID cardId;
+
+    /**
+     * Номер части баланса, от {@code 0} до {@code stripeCount - 1}.
+     */
+    @Id
+    @Column(name = "stripe")
+    @EqualsAndHashCode.Include
+    private int stripe;
+
+    /**
+     * Сумма зачислений, ещё не перенесённых в основной баланс карты.
+     */
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+}
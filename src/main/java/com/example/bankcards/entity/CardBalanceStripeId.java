@@ -0,0 +1,19 @@
+package com.example.bankcards.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Составной идентификатор части баланса карты: карта и номер части.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardBalanceStripeId implements Serializable {
+    private UUID cardId;
+    private int stripe;
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity записи журнала операций по карте.
+ * <p>
+ * Журнал только дополняется: каждый перевод создаёт запись списания и запись зачисления
+ * с общим {@code transferId}; записи никогда не изменяются и не удаляются, а карту с записями
+ * журнала удалить нельзя. Идентификаторы выдаются последовательностью блоками на каждый экземпляр
+ * приложения и не отражают порядок фиксации транзакций, поэтому снимки балансов опираются
+ * на время записи {@code createdAt}, а не на идентификатор.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Table(name = "card_ledger",
+        indexes = {
+                @Index(name = "idx_card_ledger_card_id_id", columnList = "card_id, id"),
+                @Index(name = "idx_card_ledger_card_id_created_at", columnList = "card_id, created_at")
+        })
+public class CardLedgerEntry {
+    /**
+     * Идентификатор записи; упорядочивает записи в выписке, но не задаёт порядок их фиксации.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_ledger_seq")
+    @SequenceGenerator(name = "card_ledger_seq", sequenceName = "card_ledger_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    /**
+     * Идентификатор карты, по которой выполнена операция.
+     */
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private UUID cardId;
+
+    /**
+     * Идентификатор перевода; общий для записей списания и зачисления одного перевода.
+     */
+    @Column(name = "transfer_id", nullable = false, updatable = false)
+    private UUID transferId;
+
+    /**
+     * Тип операции.
+     */
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 16)
+    @Enumerated(value = EnumType.STRING)
+    private LedgerEntryType entryType;
+
+    /**
+     * Изменение баланса карты: отрицательное для списания, положительное для зачисления.
+     */
+    @Column(name = "amount", nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    /**
+     * Время операции.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
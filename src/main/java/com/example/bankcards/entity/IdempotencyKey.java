@@ -0,0 +1,68 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity обработанного ключа идемпотентности.
+ * <p>
+ * Хранит результат первого выполнения запроса с заголовком {@code Idempotency-Key},
+ * чтобы повторы того же запроса получали исходный результат без повторного выполнения операции.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uq_idempotency_keys_user_key",
+                columnNames = {"user_id", "idempotency_key"}))
+public class IdempotencyKey {
+    /**
+     * Уникальный идентификатор записи.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @EqualsAndHashCode.Include
+    private UUID id;
+
+    /**
+     * Идентификатор пользователя, отправившего запрос. Ключи разных пользователей не пересекаются.
+     */
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    /**
+     * Значение заголовка {@code Idempotency-Key}.
+     */
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 параметров запроса; защищает от повторного использования ключа с другим телом.
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * HTTP-статус исходного ответа.
+     */
+    @Column(name = "response_status", nullable = false)
+    private int responseStatus;
+
+    /**
+     * Сообщение об ошибке исходного ответа; {@code null} для успешного выполнения.
+     */
+    @Column(name = "response_message", length = 1024)
+    private String responseMessage;
+
+    /**
+     * Время первого выполнения запроса.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
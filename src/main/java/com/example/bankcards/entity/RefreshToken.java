@@ -0,0 +1,54 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity выданного refresh token.
+ * <p>
+ * Идентификатор записи совпадает с claim {@code jti} токена. Токен одноразовый: при обновлении
+ * он отзывается ({@link #revokedAt}) и вместо него выдаётся новый.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+    /**
+     * Идентификатор токена, claim {@code jti}.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @EqualsAndHashCode.Include
+    private UUID id;
+
+    /**
+     * Идентификатор пользователя, которому выдан токен.
+     */
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    /**
+     * Время выдачи токена.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Время истечения токена, совпадает с claim {@code exp}.
+     */
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Время отзыва токена; {@code null}, пока токен действителен.
+     */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
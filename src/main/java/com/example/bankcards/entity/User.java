@@ -1,8 +1,13 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.security.UserChangeListener;
 import com.example.bankcards.util.UserRole;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.UUID;
 
@@ -10,15 +15,20 @@ import java.util.UUID;
  * Entity пользователя системы.
  * <p>
  * Содержит данные для аутентификации (username, password)
- * и роль пользователя в системе.
+ * и роль пользователя в системе. Имя пользователя неизменяемо и служит натуральным идентификатором:
+ * при включённом кэше второго уровня поиск по нему обходится без запроса к базе.
+ * Сохранение, изменение и удаление пользователя вытесняют его из кэша {@link UserChangeListener}.
  */
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-username")
 public class User {
 
     /**
@@ -31,6 +41,7 @@ public class User {
     /**
      * Уникальное имя пользователя (логин).
      */
+    @NaturalId
     @EqualsAndHashCode.Include
     @Column(name ="username", nullable = false, unique = true, updatable = false)
     private String username;
@@ -0,0 +1,39 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.entity.CardBalanceStripeId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public interface CardBalanceStripeRepository extends JpaRepository<CardBalanceStripe, CardBalanceStripeId> {
+
+    /**
+     * Зачисляет сумму на одну часть баланса активной карты владельца одним оператором.
+     * Строка {@code cards} при этом только читается и не блокируется.
+     *
+     * @return количество изменённых строк: {@code 1} при успешном зачислении, иначе {@code 0}
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CardBalanceStripe s SET s.balance = s.balance + :amount " +
+            "WHERE s.cardId = :cardId " +
+            "AND s.stripe = :stripe " +
+            "AND EXISTS (SELECT c.id FROM Card c " +
+            "WHERE c.id = :cardId " +
+            "AND c.owner.id = :ownerId " +
+            "AND c.status = com.example.bankcards.util.CardStatus.ACTIVE)")
+    int credit(UUID cardId, int stripe, UUID ownerId, BigDecimal amount);
+
+    /**
+     * Загружает все части баланса карты и блокирует их строки в порядке номеров частей.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CardBalanceStripe s WHERE s.cardId = :cardId ORDER BY s.stripe")
+    List<CardBalanceStripe> findAllByCardIdForUpdate(UUID cardId);
+}
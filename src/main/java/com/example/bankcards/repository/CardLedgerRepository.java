@@ -0,0 +1,42 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.card.LedgerBalanceView;
+import com.example.bankcards.entity.CardLedgerEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface CardLedgerRepository extends JpaRepository<CardLedgerEntry, Long> {
+
+    Page<CardLedgerEntry> findAllByCardId(UUID cardId, Pageable pageable);
+
+    boolean existsByCardId(UUID cardId);
+
+    /**
+     * Читает текущие доступные балансы карт (с учётом частей баланса) вместе с суммами журнала
+     * после границы {@code horizon} и между границами предыдущего снимка и {@code horizon}.
+     * <p>
+     * Баланс и записи журнала читаются одним оператором, то есть из одного снимка данных:
+     * баланс карты и её записи журнала изменяются в одной транзакции, поэтому результат согласован
+     * без блокировки строк карт. Суммы журнала читаются по индексу {@code (card_id, created_at)}.
+     *
+     * @param afterId идентификатор карты, после которой продолжается чтение; для первой порции — нулевой UUID
+     */
+    @Query("SELECT new com.example.bankcards.dto.card.LedgerBalanceView(c.id, " +
+            "c.balance + COALESCE((SELECT SUM(st.balance) FROM CardBalanceStripe st WHERE st.cardId = c.id), 0), " +
+            "COALESCE((SELECT SUM(l.amount) FROM CardLedgerEntry l " +
+            "WHERE l.cardId = c.id AND l.createdAt > :horizon), 0), " +
+            "s.balance, " +
+            "COALESCE((SELECT SUM(l.amount) FROM CardLedgerEntry l " +
+            "WHERE l.cardId = c.id AND l.createdAt > s.coveredUntil AND l.createdAt <= :horizon), 0)) " +
+            "FROM Card c LEFT JOIN CardBalanceSnapshot s ON s.cardId = c.id " +
+            "WHERE c.id > :afterId " +
+            "ORDER BY c.id")
+    List<LedgerBalanceView> readBalances(UUID afterId, LocalDateTime horizon, Limit limit);
+}
@@ -1,27 +1,145 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.card.TransferCardView;
 import com.example.bankcards.entity.Card;
-import com.example.bankcards.util.CardStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface CardRepository extends JpaRepository<Card, UUID> {
-
-    @Query("SELECT c FROM Card c " +
-            "WHERE (:status IS NULL OR :status = c.status)")
-    Page<Card> findAllByFilter(Pageable pageable, CardStatus status);
-
-    @Query("SELECT c FROM Card c " +
-            "WHERE c.owner.id = :userId " +
-            "AND (:status IS NULL OR c.status = :status) " +
-            "AND (cast(:expiryDateFrom as date) IS NULL OR c.expiryDate >= :expiryDateFrom) " +
-            "AND (cast(:expiryDateTo as date) IS NULL OR c.expiryDate <= :expiryDateTo) " +
-            "AND (:last4 IS NULL OR c.last4 = :last4)")
-    Page<Card> findAllUserCards(Pageable pageable, UUID userId, CardStatus status, LocalDateTime expiryDateFrom,
-                                LocalDateTime expiryDateTo, String last4);
-}
\ No newline at end of file
+public interface CardRepository extends JpaRepository<Card, UUID>, JpaSpecificationExecutor<Card>,
+        CardRepositoryCustom {
+    /**
+     * Пространство запроса условных изменений баланса. Не совпадает с таблицей ни одной сущности,
+     * поэтому Hibernate не сбрасывает регионы кэша второго уровня: записи изменённых карт
+     * блокируются по одной через {@link #lockCacheEntry}.
+     */
+    String BALANCE_UPDATES_SPACE = "card_balance_updates";
+
+    /**
+     * Загружает карту вместе с владельцем одним запросом — для ответов, в которые входит владелец.
+     */
+    @EntityGraph(attributePaths = "owner")
+    Optional<Card> findWithOwnerById(UUID id);
+
+    /**
+     * Читает владельца и статус карт перевода одним запросом, не загружая сами карты.
+     */
+    @Query("SELECT new com.example.bankcards.dto.card.TransferCardView(c.id, c.owner.id, c.status) " +
+            "FROM Card c WHERE c.id IN :ids")
+    List<TransferCardView> findTransferCards(Collection<UUID> ids);
+
+    /**
+     * Читает количество частей баланса карты, не загружая карту и сумму её частей.
+     */
+    @Query("SELECT c.stripeCount FROM Card c WHERE c.id = :cardId")
+    Optional<Integer> findStripeCount(UUID cardId);
+
+    /**
+     * Списывает сумму с активной карты владельца одним оператором, если на ней достаточно средств.
+     * Запись карты в кэше второго уровня блокируется до завершения транзакции.
+     *
+     * @return количество изменённых строк: {@code 1} при успешном списании, иначе {@code 0}
+     */
+    default int debit(UUID cardId, UUID ownerId, BigDecimal amount) {
+        lockCacheEntry(cardId);
+        return debitRow(cardId, ownerId, amount);
+    }
+
+    /**
+     * Зачисляет сумму на активную карту владельца без разбиения баланса одним оператором.
+     * Запись карты в кэше второго уровня блокируется до завершения транзакции.
+     *
+     * @return количество изменённых строк: {@code 1} при успешном зачислении, иначе {@code 0}
+     */
+    default int credit(UUID cardId, UUID ownerId, BigDecimal amount) {
+        lockCacheEntry(cardId);
+        return creditRow(cardId, ownerId, amount);
+    }
+
+    /**
+     * Условное списание для {@link #debit}. Выполняется нативным оператором с пространством запроса,
+     * которое не относится ни к одной сущности: массовое изменение {@code Card} через HQL сбросило бы
+     * весь регион карт в кэше второго уровня.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BALANCE_UPDATES_SPACE))
+    @Query(value = "UPDATE cards SET balance = balance - :amount, version = version + 1 " +
+            "WHERE id = :cardId " +
+            "AND user_id = :ownerId " +
+            "AND status = 'ACTIVE' " +
+            "AND balance >= :amount", nativeQuery = true)
+    int debitRow(UUID cardId, UUID ownerId, BigDecimal amount);
+
+    /**
+     * Условное зачисление для {@link #credit}; выполняется так же, как {@link #debitRow}.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BALANCE_UPDATES_SPACE))
+    @Query(value = "UPDATE cards SET balance = balance + :amount, version = version + 1 " +
+            "WHERE id = :cardId " +
+            "AND user_id = :ownerId " +
+            "AND status = 'ACTIVE' " +
+            "AND stripe_count = 0", nativeQuery = true)
+    int creditRow(UUID cardId, UUID ownerId, BigDecimal amount);
+
+    /**
+     * Загружает карту и блокирует её строку до конца транзакции.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id = :cardId")
+    Optional<Card> findByIdForUpdate(UUID cardId);
+
+    /**
+     * Загружает карты одним запросом и блокирует их строки до конца транзакции.
+     * <p>
+     * Строки блокируются в порядке {@code ORDER BY c.id}: PostgreSQL и H2 сравнивают {@code uuid} как
+     * беззнаковые байты, поэтому этот порядок совпадает с {@link com.example.bankcards.util.CardLockOrder},
+     * в котором строки карт изменяет одиночный перевод.
+     *
+     * @param cardIds идентификаторы карт
+     * @return найденные карты в порядке блокировки
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.id IN :cardIds ORDER BY c.id")
+    List<Card> findAllByIdForUpdate(Collection<UUID> cardIds);
+
+    /**
+     * Блокирует строку карты владельца, если её баланс разбит на части.
+     *
+     * @return идентификатор карты или пустой результат, если карта не найдена, чужая или без разбиения
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id FROM Card c WHERE c.id = :cardId AND c.owner.id = :ownerId AND c.stripeCount > 0")
+    Optional<UUID> lockStripedCard(UUID cardId, UUID ownerId);
+
+    /**
+     * Добавляет сумму к основному балансу карты одним оператором.
+     * Запись карты в кэше второго уровня блокируется до завершения транзакции.
+     */
+    default void addToBalance(UUID cardId, BigDecimal amount) {
+        lockCacheEntry(cardId);
+        addToBalanceRow(cardId, amount);
+    }
+
+    /**
+     * Изменение баланса для {@link #addToBalance}; выполняется так же, как {@link #debitRow}.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = BALANCE_UPDATES_SPACE))
+    @Query(value = "UPDATE cards SET balance = balance + :amount, version = version + 1 WHERE id = :cardId",
+            nativeQuery = true)
+    void addToBalanceRow(UUID cardId, BigDecimal amount);
+}
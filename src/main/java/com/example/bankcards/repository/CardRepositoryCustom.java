@@ -0,0 +1,45 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.card.CardView;
+import com.example.bankcards.entity.Card;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Чтение списков карт в виде {@link CardView}.
+ * <p>
+ * Карта и её владелец читаются одним запросом с соединением, выбираются только нужные столбцы,
+ * а сущности не создаются и не попадают в контекст персистентности.
+ */
+public interface CardRepositoryCustom {
+
+    /**
+     * Страница карт по условию с подсчётом общего количества.
+     */
+    Page<CardView> findViews(Specification<Card> spec, Pageable pageable);
+
+    /**
+     * Страница карт по условию без {@code COUNT(*)}: читает на одну строку больше страницы,
+     * чтобы определить наличие следующей.
+     */
+    Slice<CardView> findViewSlice(Specification<Card> spec, Pageable pageable);
+
+    /**
+     * Первые {@code limit} карт по условию в заданном порядке.
+     */
+    List<CardView> findViews(Specification<Card> spec, Sort sort, int limit);
+
+    /**
+     * Блокирует запись карты в кэше второго уровня до завершения текущей транзакции так же, как Hibernate
+     * при изменении сущности: до завершения карта читается из базы, а загрузки, начатые до фиксации,
+     * не возвращают в кэш прежнее состояние. Нужна изменениям, которые Hibernate не отслеживает: нативным
+     * {@code UPDATE} строки {@code cards} и изменениям частей баланса. Если кэш выключен, ничего не делает.
+     */
+    void lockCacheEntry(UUID cardId);
+}
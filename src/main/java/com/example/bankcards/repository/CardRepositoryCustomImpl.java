@@ -0,0 +1,115 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.card.CardView;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<CardView> findViews(Specification<Card> spec, Pageable pageable) {
+        List<CardView> content = viewQuery(spec, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<CardView> findViewSlice(Specification<Card> spec, Pageable pageable) {
+        List<CardView> rows = viewQuery(spec, pageable.getSort())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<CardView> findViews(Specification<Card> spec, Sort sort, int limit) {
+        return viewQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public void lockCacheEntry(UUID cardId) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Card.class);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        Object key = cacheAccess.generateCacheKey(cardId, persister, session.getFactory(),
+                session.getTenantIdentifier());
+        // Без версии блокировка сравнивает время: версия строки при этом изменении не растёт.
+        SoftLock lock = cacheAccess.lockItem(session, key, null);
+        session.getActionQueue().registerProcess((success, completed) -> cacheAccess.unlockItem(completed, key, lock));
+    }
+
+    private TypedQuery<CardView> viewQuery(Specification<Card> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardView> query = cb.createQuery(CardView.class);
+        Root<Card> root = query.from(Card.class);
+        Join<Card, User> owner = root.join("owner");
+
+        Subquery<BigDecimal> stripedBalance = query.subquery(BigDecimal.class);
+        Root<CardBalanceStripe> stripe = stripedBalance.from(CardBalanceStripe.class);
+        stripedBalance.select(cb.sum(stripe.get("balance")))
+                .where(cb.equal(stripe.get("cardId"), root.get("id")));
+
+        query.select(cb.construct(CardView.class,
+                root.get("id"),
+                owner.get("id"),
+                owner.get("username"),
+                root.get("last4"),
+                root.get("expiryDate"),
+                root.get("status"),
+                root.get("balance"),
+                stripedBalance));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Card> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.CardStatus;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Условия выборки карт.
+ * <p>
+ * В запрос попадают только переданные фильтры, поэтому для каждого набора фильтров строится свой SQL
+ * и планировщик может выбрать подходящий индекс: {@code idx_cards_status_id} для выборки по статусу,
+ * {@code idx_cards_user_id_expiry_date_id} для карт пользователя по сроку действия и
+ * {@code idx_cards_user_id_last4} для поиска карты пользователя по последним цифрам номера.
+ */
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    /**
+     * Карты с указанным статусом; если статус не задан, условие не добавляется.
+     */
+    public static Specification<Card> withStatus(CardStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * Карты пользователя с необязательными фильтрами; {@code null} означает отсутствие фильтра.
+     */
+    public static Specification<Card> userCards(UUID userId, CardStatus status, LocalDateTime expiryDateFrom,
+                                                LocalDateTime expiryDateTo, String last4) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("owner").get("id"), userId));
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (expiryDateFrom != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("expiryDate"), expiryDateFrom));
+            }
+            if (expiryDateTo != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("expiryDate"), expiryDateTo));
+            }
+            if (last4 != null) {
+                predicates.add(cb.equal(root.get("last4"), last4));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Карты после позиции {@code (status, id)} в порядке сортировки {@code status, id}.
+     */
+    public static Specification<Card> afterStatus(CardStatus status, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("status"), status),
+                cb.and(cb.equal(root.get("status"), status), cb.greaterThan(root.get("id"), id)));
+    }
+
+    /**
+     * Карты после позиции {@code (expiryDate, id)} в порядке сортировки {@code expiryDate, id}.
+     */
+    public static Specification<Card> afterExpiryDate(LocalDateTime expiryDate, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("expiryDate"), expiryDate),
+                cb.and(cb.equal(root.get("expiryDate"), expiryDate), cb.greaterThan(root.get("id"), id)));
+    }
+}
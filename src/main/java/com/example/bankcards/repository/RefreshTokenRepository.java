@@ -0,0 +1,57 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.RefreshToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    List<RefreshToken> findByUserIdAndRevokedAtIsNull(UUID userId);
+
+    /**
+     * Отозванные, но ещё не истёкшие токены; по ним восстанавливается список отзыва в памяти.
+     */
+    List<RefreshToken> findByRevokedAtIsNotNullAndExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Отзывает токен, если он ещё не отозван. Условие {@code revoked_at IS NULL} делает отзыв атомарным:
+     * из двух параллельных обновлений одним токеном успешным будет только одно.
+     *
+     * @return 1, если токен отозван этим вызовом, иначе 0
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.id = :id AND t.revokedAt IS NULL")
+    int revoke(UUID id, LocalDateTime now);
+
+    /**
+     * Отзывает все действующие токены пользователя.
+     *
+     * @return количество отозванных токенов
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.userId = :userId AND t.revokedAt IS NULL")
+    int revokeAllByUserId(UUID userId, LocalDateTime now);
+
+    /**
+     * Удаляет не более {@code limit} истёкших токенов в отдельной короткой транзакции.
+     * Подсказка ограничивает запрос таблицей {@code refresh_tokens}, и кэш второго уровня им не сбрасывается.
+     *
+     * @return количество удалённых строк
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+            "(SELECT id FROM refresh_tokens WHERE expires_at < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredChunk(LocalDateTime now, int limit);
+}
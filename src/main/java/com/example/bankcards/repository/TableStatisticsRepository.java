@@ -0,0 +1,44 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.OptionalLong;
+
+/**
+ * Оценки размера таблиц из статистики планировщика PostgreSQL.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TableStatisticsRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Возвращает оценку количества строк таблицы из {@code pg_class.reltuples}, обновляемую
+     * {@code ANALYZE} и autovacuum. Запрос читает одну строку каталога и не зависит от размера таблицы.
+     *
+     * @param table имя таблицы
+     * @return оценка или пустой результат, если база данных не PostgreSQL или таблица ещё не анализировалась
+     */
+    public OptionalLong estimateRowCount(String table) {
+        if (!isPostgres()) {
+            return OptionalLong.empty();
+        }
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+        return estimate == null || estimate < 0 ? OptionalLong.empty() : OptionalLong.of(estimate);
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            detected = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+            postgres = detected;
+        }
+        return detected;
+    }
+}
@@ -1,11 +1,35 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
+
+    /**
+     * Страница пользователей без {@code COUNT(*)}.
+     */
+    Slice<User> findSliceBy(Pageable pageable);
+
+    /**
+     * Первая страница пользователей в порядке {@code (username, id)} для навигации по курсору.
+     */
+    List<User> findAllByOrderByUsernameAscIdAsc(Limit limit);
+
+    /**
+     * Пользователи после позиции {@code (username, id)} для навигации по курсору.
+     * Условие {@code username >= :afterUsername} задаёт начало диапазона индекса по username,
+     * поэтому страница читается поиском по индексу, а не его просмотром с начала.
+     */
+    @Query("SELECT u FROM User u " +
+            "WHERE u.username >= :afterUsername " +
+            "AND (u.username > :afterUsername OR u.id > :afterId) " +
+            "ORDER BY u.username, u.id")
+    List<User> findAllAfter(String afterUsername, UUID afterId, Limit limit);
 }
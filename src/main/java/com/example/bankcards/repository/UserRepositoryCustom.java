@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.User;
+
+import java.util.Optional;
+
+/**
+ * Поиск пользователя по натуральному идентификатору и условная замена пароля.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Находит пользователя по имени. При включённом кэше второго уровня повторный поиск того же имени
+     * берёт идентификатор и сущность из кэша без запроса к базе.
+     */
+    Optional<User> findByUsername(String username);
+
+    /**
+     * Заменяет хеш пароля, только если он не изменился с момента чтения {@code user}, в отдельной короткой
+     * транзакции. При замене пользователь вытесняется из кэша пользователей.
+     *
+     * @param user        пользователь с прочитанным хешем пароля
+     * @param newPassword новый хеш пароля
+     * @return количество изменённых строк: {@code 0}, если пароль уже изменён параллельно
+     */
+    int replacePassword(User user, String newPassword);
+}
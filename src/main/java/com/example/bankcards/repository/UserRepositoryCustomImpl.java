@@ -0,0 +1,52 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.UserChangeListener;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+    private final UserChangeListener userChangeListener;
+
+    /**
+     * Загрузка по натуральному идентификатору, а не производный запрос {@code WHERE username = ?}:
+     * только она обращается к кэшу натуральных идентификаторов. Сессия нужна на всё время загрузки,
+     * поэтому метод выполняется в транзакции.
+     * <p>
+     * Транзакция не read-only: по этому методу вход и фильтр аутентификации проверяют пароль и роль,
+     * поэтому он читает основную базу, а не реплику, которая может ещё не видеть только что
+     * созданного пользователя или новый пароль.
+     */
+    @Override
+    @Transactional
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+
+    /**
+     * Массовый {@code UPDATE} не вызывает слушатели сущности, поэтому кэш пользователей
+     * вытесняется явно через {@link UserChangeListener}.
+     */
+    @Override
+    @Transactional
+    public int replacePassword(User user, String newPassword) {
+        int updated = entityManager.createQuery(
+                        "UPDATE User u SET u.password = :newPassword WHERE u.id = :userId AND u.password = :oldPassword")
+                .setParameter("newPassword", newPassword)
+                .setParameter("userId", user.getId())
+                .setParameter("oldPassword", user.getPassword())
+                .executeUpdate();
+        if (updated > 0) {
+            userChangeListener.userChanged(user);
+        }
+        return updated;
+    }
+}
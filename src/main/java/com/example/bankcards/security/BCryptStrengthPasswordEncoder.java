@@ -0,0 +1,33 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} с настраиваемой стоимостью, считающий устаревшим любой хеш,
+ * стоимость которого отличается от целевой: и меньшую, и большую.
+ * <p>
+ * Стандартный {@link BCryptPasswordEncoder#upgradeEncoding(String)} предлагает перехеширование только
+ * при меньшей стоимости, поэтому снизить стоимость входа для существующих пользователей им нельзя.
+ */
+public class BCryptStrengthPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[abyx]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+
+    private final int strength;
+
+    public BCryptStrengthPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+}
@@ -7,8 +7,28 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public record CustomUserDetails(User user) implements UserDetails {
+
+    /**
+     * Создаёт данные пользователя из проверенного access token, не обращаясь к базе данных.
+     * Пароль в таком объекте отсутствует: он нужен только при входе по логину и паролю.
+     *
+     * @param claims данные токена с идентификатором и ролью пользователя
+     * @return данные аутентифицированного пользователя
+     */
+    public static CustomUserDetails fromClaims(JwtClaims claims) {
+        return new CustomUserDetails(new User(claims.userId(), claims.username(), null, claims.role()));
+    }
+
+    /**
+     * Возвращает идентификатор пользователя.
+     */
+    public UUID getId() {
+        return user.getId();
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return List.of(new SimpleGrantedAuthority(user.getRole().name()));
@@ -1,18 +1,115 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.util.LruCache;
+import com.example.bankcards.util.UserRole;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Загрузка пользователей по username с ограниченным кэшем.
+ * <p>
+ * Найденные пользователи хранятся в LRU-кэше не дольше {@code bank.security.user-cache.ttl}
+ * в виде неизменяемых снимков (идентификатор, username, хеш пароля, роль), а не сущностей;
+ * отсутствие пользователя не кэшируется. Любое изменение пользователя — через сущность
+ * ({@link UserChangeListener}) или условным {@code UPDATE} пароля ({@link UserRepository#replacePassword}) —
+ * вытесняет запись методом {@link #evict(String)}, а TTL ограничивает устаревание после изменений в обход приложения.
+ * Попадания и промахи учитываются в метриках {@code bank.user.cache.hits} и {@code bank.user.cache.misses}.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class CustomUserServiceImpl implements UserDetailsService {
     private final UserRepository userRepository;
+    private final LruCache<String, UserSnapshot> users;
+    private final boolean cacheEnabled;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CustomUserServiceImpl(UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bank.security.user-cache.enabled:true}") boolean cacheEnabled,
+                                 @Value("${bank.security.user-cache.size:10000}") int size,
+                                 @Value("${bank.security.user-cache.ttl:PT1M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.users = new LruCache<>(size);
+        this.cacheEnabled = cacheEnabled;
+        this.ttl = ttl;
+        this.hits = meterRegistry.counter("bank.user.cache.hits");
+        this.misses = meterRegistry.counter("bank.user.cache.misses");
+    }
+
     @Override
     public CustomUserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username).map(CustomUserDetails::new)
+        return findByUsername(username).map(CustomUserDetails::new)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
     }
+
+    /**
+     * Возвращает пользователя по username из кэша или из базы данных.
+     * Каждый вызов возвращает новый отсоединённый объект, поэтому его изменение не затрагивает кэш.
+     *
+     * @param username имя пользователя
+     * @return пользователь или {@link Optional#empty()}, если он не найден
+     */
+    public Optional<User> findByUsername(String username) {
+        if (!cacheEnabled) {
+            return userRepository.findByUsername(username);
+        }
+
+        UserSnapshot cached = users.get(username);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            hits.increment();
+            return Optional.of(cached.toUser());
+        }
+
+        misses.increment();
+        Optional<UserSnapshot> snapshot = userRepository.findByUsername(username)
+                .map(found -> UserSnapshot.of(found, Instant.now().plus(ttl)));
+        snapshot.ifPresentOrElse(found -> users.put(username, found), () -> users.remove(username));
+        return snapshot.map(UserSnapshot::toUser);
+    }
+
+    /**
+     * Вытесняет пользователя из кэша. Внутри транзакции вытеснение выполняется после её фиксации,
+     * чтобы параллельный запрос не вернул в кэш ещё не зафиксированное состояние.
+     *
+     * @param username имя изменённого пользователя
+     */
+    public void evict(String username) {
+        users.remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.remove(username);
+                }
+            });
+        }
+        log.debug("Пользователь вытеснен из кэша. username={}", username);
+    }
+
+    private record UserSnapshot(UUID id, String username, String passwordHash, UserRole role, Instant expiresAt) {
+
+        static UserSnapshot of(User user, Instant expiresAt) {
+            return new UserSnapshot(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), expiresAt);
+        }
+
+        User toUser() {
+            return new User(id, username, passwordHash, role);
+        }
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.UserRole;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Проверенные данные JWT токена, извлечённые за один разбор.
+ *
+ * @param userId    идентификатор пользователя из claim {@code uid}; {@code null} для refresh token
+ * @param username  имя пользователя из claim {@code sub}
+ * @param role      роль пользователя из claim {@code role}; {@code null} для refresh token
+ * @param tokenId   идентификатор refresh token из claim {@code jti}; {@code null} для access token
+ * @param expiresAt момент истечения токена из claim {@code exp}
+ */
+public record JwtClaims(UUID userId, String username, UserRole role, UUID tokenId, Instant expiresAt) {
+
+    /**
+     * Возвращает {@code true}, если токен содержит идентификатор и роль пользователя,
+     * то есть является access token и по нему можно аутентифицировать запрос без обращения к базе данных.
+     */
+    public boolean hasIdentity() {
+        return userId != null && role != null;
+    }
+}
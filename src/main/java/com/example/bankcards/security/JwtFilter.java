@@ -1,10 +1,12 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.util.PrincipalSource;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,24 +15,36 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
+/**
+ * Аутентифицирует запрос по access token из заголовка {@code Authorization}.
+ * <p>
+ * По умолчанию ({@link PrincipalSource#TOKEN}) пользователь строится из проверенного токена без обращения
+ * к базе данных. В режиме {@link PrincipalSource#DATABASE} ({@code bank.security.principal-source})
+ * пользователь загружается через кэш {@link CustomUserServiceImpl}, поэтому изменение роли вступает в силу
+ * не позже истечения записи кэша; токен пользователя, пересозданного с тем же username, не принимается.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CustomUserServiceImpl customUserService;
 
+    @Value("${bank.security.principal-source:TOKEN}")
+    private PrincipalSource principalSource = PrincipalSource.TOKEN;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         String token = getTokenFromRequest(request);
-        if (token == null || !jwtService.validateJwtToken(token)) {
-            filterChain.doFilter(request, response);
-            return;
+        if (token != null) {
+            jwtService.verify(token)
+                    .filter(JwtClaims::hasIdentity)
+                    .flatMap(this::resolveUserDetails)
+                    .ifPresent(this::setCustomUserDetailsToSecurityContextHolder);
         }
-
-        setCustomUserDetailsToSecurityContextHolder(token);
         filterChain.doFilter(request, response);
     }
 
@@ -42,9 +56,16 @@ public class JwtFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private void setCustomUserDetailsToSecurityContextHolder(String token) {
-        String username = jwtService.getUsernameFromToken(token);
-        CustomUserDetails customUserDetails = customUserService.loadUserByUsername(username);
+    private Optional<CustomUserDetails> resolveUserDetails(JwtClaims claims) {
+        if (principalSource == PrincipalSource.TOKEN) {
+            return Optional.of(CustomUserDetails.fromClaims(claims));
+        }
+        return customUserService.findByUsername(claims.username())
+                .filter(user -> user.getId().equals(claims.userId()))
+                .map(CustomUserDetails::new);
+    }
+
+    private void setCustomUserDetailsToSecurityContextHolder(CustomUserDetails customUserDetails) {
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 customUserDetails,
                 null,
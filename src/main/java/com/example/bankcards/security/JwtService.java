@@ -1,7 +1,10 @@
 package com.example.bankcards.security;
 
-import com.example.bankcards.dto.jwt.JwtAuthDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.util.UserRole;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -10,72 +13,120 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * Выпуск и проверка JWT токенов.
+ * <p>
+ * Проверенные токены хранятся в ограниченном кэше Caffeine ёмкостью {@code bank.security.token-cache.size}
+ * до истечения их {@code exp}, поэтому повторные запросы с тем же токеном не проверяют подпись заново.
+ * Кэш читается без общей блокировки: проверка токена выполняется на каждом запросе, и общий монитор
+ * выстроил бы все запросы в очередь.
+ * Ключом кэша служит сама строка токена: поиск идёт по её хэшу, а совпадение подтверждается сравнением строк,
+ * поэтому коллизия хэшей не может подменить проверенный токен.
+ */
 @Component
 @Slf4j
 public class JwtService {
-    private final String jwtSecret;
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
 
-    public JwtService(@Value("${JWT_SECRET}") String jwtSecret) {
-        this.jwtSecret = jwtSecret;
-    }
-
-    public JwtAuthDto generateAuthToken(User user) {
-        JwtAuthDto jwtDto = new JwtAuthDto();
-        jwtDto.setToken(generateJwtToken(user));
-        jwtDto.setRefreshToken(generateRefreshToken(user));
-        return jwtDto;
-    }
+    private final SecretKey signInKey;
+    private final JwtParser jwtParser;
+    private final Cache<String, JwtClaims> verifiedTokens;
 
-    public JwtAuthDto refreshBaseToken(User user, String refreshToken) {
-        JwtAuthDto jwtDto = new JwtAuthDto();
-        jwtDto.setToken(generateJwtToken(user));
-        jwtDto.setRefreshToken(refreshToken);
-        return jwtDto;
+    public JwtService(@Value("${JWT_SECRET}") String jwtSecret,
+                      @Value("${bank.security.token-cache.enabled:true}") boolean tokenCacheEnabled,
+                      @Value("${bank.security.token-cache.size:10000}") int tokenCacheSize) {
+        this.signInKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+        this.verifiedTokens = tokenCacheEnabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(tokenCacheSize)
+                        .expireAfter(new UntilTokenExpires())
+                        .build()
+                : null;
     }
 
     public SecretKey getSignInKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        return signInKey;
     }
 
-    private String generateJwtToken(User user) {
+    /**
+     * Создаёт access token. Помимо имени пользователя токен содержит его идентификатор и роль,
+     * поэтому {@link JwtFilter} аутентифицирует запрос без чтения пользователя из базы данных.
+     */
+    public String generateAccessToken(User user) {
         Date date = Date.from(LocalDateTime.now().plusMinutes(30).atZone(ZoneId.systemDefault()).toInstant());
         return Jwts.builder()
                 .subject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId().toString())
+                .claim(CLAIM_ROLE, user.getRole().name())
                 .expiration(date)
                 .signWith(getSignInKey())
                 .compact();
     }
 
-    private String generateRefreshToken(User user) {
-        Date date = Date.from(LocalDateTime.now().plusDays(15).atZone(ZoneId.systemDefault()).toInstant());
+    /**
+     * Создаёт refresh token с идентификатором {@code jti}, под которым он сохранён в таблице {@code refresh_tokens}.
+     */
+    public String generateRefreshToken(User user, UUID tokenId, Instant expiresAt) {
         return Jwts.builder()
                 .subject(user.getUsername())
-                .expiration(date)
+                .id(tokenId.toString())
+                .expiration(Date.from(expiresAt))
                 .signWith(getSignInKey())
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.getSubject();
+    /**
+     * Проверяет подпись и срок действия токена и возвращает его данные.
+     * <p>
+     * Токен, уже принятый ранее и ещё не истёкший, возвращается из кэша без проверки подписи.
+     * Иначе токен разбирается и проверяется ровно один раз; ключ и парсер создаются при старте
+     * и переиспользуются всеми запросами. Refresh token одноразовые, поэтому в кэш не попадают.
+     *
+     * @param token JWT токен
+     * @return данные токена или {@link Optional#empty()}, если токен недействителен или истёк
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (verifiedTokens != null) {
+            JwtClaims cached = verifiedTokens.getIfPresent(token);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Optional<JwtClaims> claims = parseAndVerify(token);
+        if (verifiedTokens != null) {
+            claims.filter(verified -> verified.expiresAt() != null && verified.tokenId() == null)
+                    .ifPresent(verified -> verifiedTokens.put(token, verified));
+        }
+        return claims;
     }
 
-    public boolean validateJwtToken(String token) {
+    private Optional<JwtClaims> parseAndVerify(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return true;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            String userId = claims.get(CLAIM_USER_ID, String.class);
+            String role = claims.get(CLAIM_ROLE, String.class);
+            String tokenId = claims.getId();
+            return Optional.of(new JwtClaims(
+                    userId == null ? null : UUID.fromString(userId),
+                    claims.getSubject(),
+                    role == null ? null : UserRole.valueOf(role),
+                    tokenId == null ? null : UUID.fromString(tokenId),
+                    expiration == null ? null : expiration.toInstant()
+            ));
         } catch (ExpiredJwtException expEx) {
             log.warn("Expired JwtException: {}", expEx.getMessage());
         } catch (UnsupportedJwtException expEx) {
@@ -87,6 +138,27 @@ public class JwtService {
         } catch (Exception expEx) {
             log.warn("Invalid token: {}", expEx.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    /**
+     * Хранит проверенный токен в кэше до момента его {@code exp}.
+     */
+    private static final class UntilTokenExpires implements Expiry<String, JwtClaims> {
+
+        @Override
+        public long expireAfterCreate(String token, JwtClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
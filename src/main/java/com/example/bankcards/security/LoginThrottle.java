@@ -0,0 +1,132 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты попыток входа по имени пользователя и по адресу клиента.
+ * <p>
+ * Для каждого ключа хранится token bucket ёмкостью {@code capacity}, пополняемый на один токен
+ * раз в {@code refill-interval}. Каждая попытка входа, успешная или нет, расходует по токену из обоих
+ * корзин; при пустой корзине запрос отклоняется до обращения к базе данных и BCrypt.
+ * <p>
+ * Корзина хранится как одно значение {@link AtomicLong} — момент, когда она снова станет полной,
+ * и обновляется через compare-and-set без блокировок. Корзины хранятся в кэшах Caffeine и удаляются
+ * через {@code capacity * refill-interval} после последнего обращения: к этому моменту корзина полна
+ * и ничем не отличается от отсутствующей.
+ * <p>
+ * Число корзин каждого вида ограничено {@code bank.security.login-throttle.max-entries}; при переполнении
+ * корзины вытесняются кэшем, и каждая попытка по-прежнему расходует токен корзины имени. Кэш допускает
+ * новую запись по частоте обращений (W-TinyLFU), поэтому перебор новых имён, каждое из которых встречается
+ * однажды, не вытесняет корзину часто атакуемого пользователя.
+ */
+@Component
+public class LoginThrottle {
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Limit usernameLimit;
+    private final Limit addressLimit;
+    private final Cache<String, TokenBucket> usernameBuckets;
+    private final Cache<String, TokenBucket> addressBuckets;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${bank.security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${bank.security.login-throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${bank.security.login-throttle.username.refill-interval:PT1M}")
+                         Duration usernameRefillInterval,
+                         @Value("${bank.security.login-throttle.address.capacity:20}") int addressCapacity,
+                         @Value("${bank.security.login-throttle.address.refill-interval:PT3S}")
+                         Duration addressRefillInterval,
+                         @Value("${bank.security.login-throttle.max-entries:100000}") int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Число корзин должно быть больше 0.");
+        }
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.usernameLimit = new Limit(usernameCapacity, usernameRefillInterval);
+        this.addressLimit = new Limit(addressCapacity, addressRefillInterval);
+        this.usernameBuckets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(usernameRefillInterval.multipliedBy(usernameCapacity))
+                .build();
+        this.addressBuckets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(addressRefillInterval.multipliedBy(addressCapacity))
+                .build();
+    }
+
+    /**
+     * Расходует токены попытки входа для адреса клиента и имени пользователя.
+     * Если корзина адреса пуста, токен имени пользователя не расходуется.
+     *
+     * @param username      имя пользователя из запроса
+     * @param remoteAddress адрес клиента
+     * @throws TooManyRequestsException если исчерпан лимит по адресу или по имени пользователя
+     */
+    public void checkLogin(String username, String remoteAddress) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (remoteAddress != null
+                && !addressBuckets.get(remoteAddress, key -> new TokenBucket(now)).tryAcquire(now, addressLimit)) {
+            reject("address");
+        }
+        if (username != null
+                && !usernameBuckets.get(username, key -> new TokenBucket(now)).tryAcquire(now, usernameLimit)) {
+            reject("username");
+        }
+    }
+
+    long size() {
+        usernameBuckets.cleanUp();
+        addressBuckets.cleanUp();
+        return usernameBuckets.estimatedSize() + addressBuckets.estimatedSize();
+    }
+
+    private void reject(String key) {
+        meterRegistry.counter("bank.auth.throttled", "key", key).increment();
+        throw new TooManyRequestsException("Слишком много попыток входа, повторите позже.");
+    }
+
+    private record Limit(long intervalNanos, long burstNanos) {
+        Limit(int capacity, Duration refillInterval) {
+            this(refillInterval.toNanos(), (capacity - 1) * refillInterval.toNanos());
+            if (capacity <= 0 || refillInterval.isNegative() || refillInterval.isZero()) {
+                throw new IllegalArgumentException("Ёмкость и интервал пополнения должны быть больше 0.");
+            }
+        }
+    }
+
+    /**
+     * Token bucket в форме GCRA: хранит момент, когда корзина станет полной.
+     * Запрос допускается, если этот момент отстоит от текущего не дальше, чем на (capacity - 1) интервалов.
+     */
+    private static final class TokenBucket {
+        private final AtomicLong fullAt;
+
+        TokenBucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long now, Limit limit) {
+            while (true) {
+                long current = fullAt.get();
+                long base = current - now > 0 ? current : now;
+                if (base - now > limit.burstNanos()) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, base + limit.intervalNanos())) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@link PasswordEncoder}, выполняющий хеширование и проверку паролей в отдельном ограниченном пуле потоков.
+ * <p>
+ * BCrypt занимает процессор примерно на 100 мс, поэтому одновременно выполняется не больше операций, чем потоков
+ * в пуле, а остальные ждут в очереди ограниченной ёмкости. Если очередь заполнена, операция сразу отклоняется
+ * с {@link ServiceUnavailableException} (503): всплеск входов занимает не больше потоков Tomcat, чем помещается
+ * в очередь, и не вытесняет операции с картами.
+ * <p>
+ * Метрики: {@code bank.password.queue.wait} — ожидание в очереди, {@code bank.password.hash} — время хеширования
+ * (обе с тегом {@code operation}: {@code encode} или {@code matches}), {@code bank.password.queue.size} — длина
+ * очереди, {@code bank.password.rejected} — отказы.
+ */
+@Slf4j
+public class PooledPasswordEncoder implements PasswordEncoder {
+    private static final String OPERATION_ENCODE = "encode";
+    private static final String OPERATION_MATCHES = "matches";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.rejected = meterRegistry.counter("bank.password.rejected");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        meterRegistry.gauge("bank.password.queue.size", executor, pool -> pool.getQueue().size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(OPERATION_ENCODE, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(OPERATION_MATCHES, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Хеширует пароль в пуле, не дожидаясь результата. Используется для фоновых операций,
+     * которые не должны задерживать запрос.
+     *
+     * @param rawPassword пароль
+     * @return хеш пароля; завершается с {@link ServiceUnavailableException}, если очередь заполнена
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(timed(OPERATION_ENCODE, () -> delegate.encode(rawPassword)), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Сервис перегружен, повторите запрос позже."));
+        }
+    }
+
+    /**
+     * Останавливает пул; вызывается контейнером при закрытии контекста.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Оборачивает операцию учётом времени ожидания в очереди (от вызова этого метода до начала выполнения)
+     * и времени хеширования.
+     */
+    private <T> Supplier<T> timed(String operation, Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            meterRegistry.timer("bank.password.queue.wait", "operation", operation)
+                    .record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                return task.get();
+            } finally {
+                meterRegistry.timer("bank.password.hash", "operation", operation)
+                        .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private <T> T execute(String operation, Supplier<T> task) {
+        Callable<T> timedTask = timed(operation, task)::get;
+        Future<T> future;
+        try {
+            future = executor.submit(timedTask);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Очередь проверки паролей переполнена. operation={}, queued={}",
+                    operation, executor.getQueue().size());
+            throw new ServiceUnavailableException("Сервис перегружен, повторите запрос позже.");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Проверка пароля прервана, повторите запрос позже.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.util.UuidBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Список отозванных refresh token в памяти.
+ * <p>
+ * Проверка идёт в два шага: фильтр Блума отсекает подавляющее большинство действующих токенов,
+ * и только при его положительном ответе идентификатор ищется в точном множестве.
+ * Токены хранятся до истечения их {@code exp}: истёкший токен отклоняется ещё при проверке подписи.
+ * Список не является источником истины — окончательно токен отзывается условным {@code UPDATE}
+ * в таблице {@code refresh_tokens}, поэтому отставание списка на другом узле не позволяет
+ * использовать токен повторно, а лишь приводит к обращению к базе данных.
+ */
+@Component
+@Slf4j
+public class RevokedTokenRegistry {
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Map<UUID, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile UuidBloomFilter filter;
+
+    public RevokedTokenRegistry(@Value("${bank.security.refresh-token.bloom.expected-insertions:100000}")
+                                int expectedInsertions,
+                                @Value("${bank.security.refresh-token.bloom.false-positive-rate:0.01}")
+                                double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new UuidBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    public boolean isRevoked(UUID tokenId) {
+        return filter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public void revoke(UUID tokenId, Instant expiresAt) {
+        revoked.put(tokenId, expiresAt);
+        filter.put(tokenId);
+    }
+
+    /**
+     * Заменяет содержимое списка, например загруженным из базы данных при старте.
+     */
+    public void reload(Map<UUID, Instant> tokens) {
+        revoked.clear();
+        revoked.putAll(tokens);
+        rebuildFilter();
+        log.info("Список отозванных refresh token загружен. count={}", revoked.size());
+    }
+
+    /**
+     * Удаляет истёкшие токены и пересоздаёт фильтр Блума, который не поддерживает удаление.
+     */
+    public void evictExpired(Instant now) {
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        if (revoked.size() != before) {
+            rebuildFilter();
+        }
+    }
+
+    int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Строит новый фильтр и после публикации ещё раз добавляет в него множество: токен, отозванный
+     * во время построения, мог попасть только в старый фильтр.
+     */
+    private void rebuildFilter() {
+        UuidBloomFilter rebuilt = new UuidBloomFilter(Math.max(expectedInsertions, revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        revoked.keySet().forEach(rebuilt::put);
+    }
+}
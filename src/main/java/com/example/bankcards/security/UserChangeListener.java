@@ -0,0 +1,32 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Вытесняет пользователя из кэша {@link CustomUserServiceImpl} при любом его изменении.
+ * <p>
+ * Как слушатель сущности {@link User} срабатывает при сохранении, изменении (в том числе роли) и удалении;
+ * изменения массовым {@code UPDATE} в обход сущности вызывают {@link #userChanged(User)} явно.
+ * Сервис кэша получается лениво: он сам зависит от репозитория пользователей, который создаётся вместе
+ * с фабрикой сущностей, использующей этот слушатель.
+ */
+@Component
+public class UserChangeListener {
+    private final ObjectProvider<CustomUserServiceImpl> customUserService;
+
+    public UserChangeListener(ObjectProvider<CustomUserServiceImpl> customUserService) {
+        this.customUserService = customUserService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        customUserService.getObject().evict(user.getUsername());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferStatusDto;
+
+import java.util.UUID;
+
+/**
+ * Сервис асинхронного выполнения переводов.
+ * <p>
+ * Перевод ставится в очередь и выполняется позже; клиент получает идентификатор перевода
+ * и запрашивает его состояние отдельно.
+ */
+public interface AsyncTransferService {
+
+    /**
+     * Ставит перевод в очередь.
+     *
+     * @param userId   идентификатор пользователя, выполняющего перевод
+     * @param dto      параметры перевода
+     * @return состояние перевода с его идентификатором
+     */
+    CardTransferStatusDto submit(UUID userId, CardTransferDto dto);
+
+    /**
+     * Возвращает состояние перевода пользователя.
+     *
+     * @param transferId идентификатор перевода
+     * @param userId     идентификатор пользователя, запрашивающего состояние
+     * @return состояние перевода
+     */
+    CardTransferStatusDto getStatus(UUID transferId, UUID userId);
+}
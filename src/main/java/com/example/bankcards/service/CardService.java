@@ -1,12 +1,20 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.card.CardBatchTransferResultDto;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLedgerEntryDto;
 import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardStripesDto;
 import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.GroupTransfer;
+import com.example.bankcards.dto.card.GroupTransferResult;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.CountMode;
+import com.example.bankcards.util.TransferBatchMode;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -34,7 +42,16 @@ public interface CardService {
     CardDto updateCardStatus(UUID cardId, CardNewStatusDto dto);
 
     /**
-     * Удаляет карту по её идентификатору.
+     * Изменяет количество частей баланса карты.
+     *
+     * @param cardId идентификатор карты
+     * @param dto    объект с новым количеством частей баланса
+     * @return DTO карты
+     */
+    CardDto updateCardStripes(UUID cardId, CardStripesDto dto);
+
+    /**
+     * Удаляет карту по её идентификатору. Карту с записями журнала операций удалить нельзя.
      *
      * @param cardId идентификатор удаляемой карты
      */
@@ -54,49 +71,114 @@ public interface CardService {
      *
      * @param page   номер страницы (начиная с 0)
      * @param size   количество элементов на странице
+     * @param count  способ подсчёта общего количества карт
      * @param status фильтр по статусу карты; может быть {@code null}
      * @return объект {@link PageResponse} с DTO карт и метаданными
      */
-    PageResponse<CardDto> getAll(int page, int size, CardStatus status);
+    PageResponse<CardDto> getAll(int page, int size, CountMode count, CardStatus status);
+
+    /**
+     * Возвращает страницу карт, следующую за курсором, в порядке (статус, id).
+     *
+     * @param cursor курсор из {@link PageResponse#nextCursor()} предыдущей страницы или пустая строка для первой
+     * @param size   количество элементов на странице
+     * @param status фильтр по статусу карты; может быть {@code null}
+     * @return объект {@link PageResponse} с DTO карт и курсором следующей страницы
+     */
+    PageResponse<CardDto> getAllByCursor(String cursor, int size, CardStatus status);
 
     /**
      * Возвращает страницу карт пользователя с расширенной фильтрацией.
      *
-     * @param username        имя пользователя, чьи карты запрашиваются
+     * @param userId          идентификатор пользователя, чьи карты запрашиваются
      * @param page            номер страницы (начиная с 0)
      * @param size            количество элементов на странице
+     * @param count           способ подсчёта общего количества карт
      * @param status          фильтр по статусу карты; может быть {@code null}
      * @param expiryDateFrom  нижняя граница срока действия карты (включительно); может быть {@code null}
      * @param expiryDateTo    верхняя граница срока действия карты (включительно); может быть {@code null}
      * @param last4           фильтр по последним четырём цифрам номера карты; может быть {@code null}
      * @return объект {@link PageResponse} с DTO карт пользователя
      */
-    PageResponse<CardDto> getAllUserCards(String username, int page, int size, CardStatus status,
+    PageResponse<CardDto> getAllUserCards(UUID userId, int page, int size, CountMode count, CardStatus status,
                                           LocalDateTime expiryDateFrom, LocalDateTime expiryDateTo, String last4);
 
+    /**
+     * Возвращает страницу карт пользователя, следующую за курсором, в порядке (срок действия, id).
+     *
+     * @param userId          идентификатор пользователя, чьи карты запрашиваются
+     * @param cursor          курсор предыдущей страницы или пустая строка для первой
+     * @param size            количество элементов на странице
+     * @param status          фильтр по статусу карты; может быть {@code null}
+     * @param expiryDateFrom  нижняя граница срока действия карты (включительно); может быть {@code null}
+     * @param expiryDateTo    верхняя граница срока действия карты (включительно); может быть {@code null}
+     * @param last4           фильтр по последним четырём цифрам номера карты; может быть {@code null}
+     * @return объект {@link PageResponse} с DTO карт пользователя и курсором следующей страницы
+     */
+    PageResponse<CardDto> getAllUserCardsByCursor(UUID userId, String cursor, int size, CardStatus status,
+                                                  LocalDateTime expiryDateFrom, LocalDateTime expiryDateTo,
+                                                  String last4);
+
     /**
      * Создаёт запрос на блокировку карты от имени пользователя.
      *
      * @param cardId   идентификатор карты
-     * @param username имя пользователя, отправляющего запрос
+     * @param userId   идентификатор пользователя, отправляющего запрос
      * @return DTO карты с обновлённым статусом
      */
-    CardDto blockCardRequest(UUID cardId, String username);
+    CardDto blockCardRequest(UUID cardId, UUID userId);
 
     /**
      * Выполняет перевод средств между картами одного пользователя.
      *
-     * @param username имя пользователя, выполняющего перевод
+     * @param userId   идентификатор пользователя, выполняющего перевод
      * @param dto      параметры перевода (карта-источник, карта-получатель, сумма)
      */
-    void transfer(String username, CardTransferDto dto);
+    void transfer(UUID userId, CardTransferDto dto);
+
+    /**
+     * Проверяет параметры перевода, не обращаясь к базе данных.
+     *
+     * @param dto параметры перевода (карта-источник, карта-получатель, сумма)
+     */
+    void checkTransferRequest(CardTransferDto dto);
+
+    /**
+     * Выполняет группу переводов разных пользователей в уже открытой транзакции.
+     * Отклонённый перевод ничего не изменяет и не прерывает общую транзакцию.
+     *
+     * @param transfers переводы группы
+     * @return результаты переводов в порядке их следования в группе
+     */
+    List<GroupTransferResult> transferGroup(List<GroupTransfer> transfers);
+
+    /**
+     * Выполняет пакет переводов между картами одного пользователя в одной транзакции.
+     *
+     * @param userId    идентификатор пользователя, выполняющего переводы
+     * @param transfers переводы в порядке выполнения
+     * @param mode      режим пакета: все или ничего либо выполнение корректных переводов
+     * @return результаты переводов в порядке их следования в пакете
+     */
+    CardBatchTransferResultDto transferBatch(UUID userId, List<CardTransferDto> transfers, TransferBatchMode mode);
 
     /**
      * Возвращает карту пользователя по её идентификатору.
      *
      * @param cardId   идентификатор карты
-     * @param username имя пользователя, запрашивающего карту
+     * @param userId   идентификатор пользователя, запрашивающего карту
      * @return DTO найденной карты
      */
-    CardDto getUserCardById(UUID cardId, String username);
+    CardDto getUserCardById(UUID cardId, UUID userId);
+
+    /**
+     * Возвращает страницу журнала операций по карте пользователя, начиная с последних операций.
+     *
+     * @param cardId   идентификатор карты
+     * @param userId   идентификатор пользователя, запрашивающего журнал
+     * @param page     номер страницы (начиная с 0)
+     * @param size     количество элементов на странице
+     * @return объект {@link PageResponse} с записями журнала
+     */
+    PageResponse<CardLedgerEntryDto> getUserCardLedger(UUID cardId, UUID userId, int page, int size);
 }
@@ -0,0 +1,44 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Сервис разбиения баланса карты на части.
+ * <p>
+ * Карта с разбиением принимает зачисления в одну из своих частей баланса, а не в строку {@code cards},
+ * поэтому частые зачисления на одну карту не конкурируют за одну строку.
+ * Перед списанием части переносятся в основной баланс.
+ */
+public interface CardStripeService {
+
+    /**
+     * Зачисляет сумму на случайную часть баланса активной карты владельца.
+     *
+     * @param cardId  идентификатор карты
+     * @param ownerId идентификатор владельца карты
+     * @param amount  сумма зачисления
+     * @return {@code true}, если баланс карты разбит и зачисление выполнено
+     */
+    boolean credit(UUID cardId, UUID ownerId, BigDecimal amount);
+
+    /**
+     * Блокирует карту владельца и переносит её части баланса в основной баланс.
+     *
+     * @param cardId  идентификатор карты
+     * @param ownerId идентификатор владельца карты
+     * @return {@code true}, если в основной баланс перенесена ненулевая сумма
+     */
+    boolean consolidate(UUID cardId, UUID ownerId);
+
+    /**
+     * Изменяет количество частей баланса уже заблокированной карты.
+     * Текущие части переносятся в основной баланс, после чего создаются новые пустые части.
+     *
+     * @param card        карта, строка которой заблокирована текущей транзакцией
+     * @param stripeCount новое количество частей; {@code 0} отключает разбиение
+     */
+    void configure(Card card, int stripeCount);
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+
+import java.util.UUID;
+
+/**
+ * Сервис выполнения переводов с групповой фиксацией.
+ * <p>
+ * Переводы, поступившие почти одновременно от разных запросов, выполняются в одной транзакции базы данных,
+ * при этом каждый вызывающий получает результат только своего перевода.
+ */
+public interface GroupCommitService {
+
+    /**
+     * Выполняет перевод и ожидает фиксации транзакции, в которую он попал.
+     *
+     * @param userId   идентификатор пользователя, выполняющего перевод
+     * @param dto      параметры перевода
+     */
+    void transfer(UUID userId, CardTransferDto dto);
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+
+import java.util.UUID;
+
+/**
+ * Сервис идемпотентного выполнения запросов с заголовком {@code Idempotency-Key}.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Выполняет перевод не более одного раза для пары (пользователь, ключ идемпотентности).
+     * <p>
+     * Повторный запрос с тем же ключом не выполняет перевод снова, а получает исходный результат:
+     * успешное завершение или ту же ошибку.
+     *
+     * @param userId         идентификатор пользователя, выполняющего перевод
+     * @param idempotencyKey значение заголовка {@code Idempotency-Key}
+     * @param dto            параметры перевода
+     */
+    void transfer(UUID userId, String idempotencyKey, CardTransferDto dto);
+}
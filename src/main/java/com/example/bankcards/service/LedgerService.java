@@ -0,0 +1,35 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+
+import java.util.List;
+
+/**
+ * Сервис журнала операций по картам.
+ * <p>
+ * Ведёт аудиторский журнал, который только дополняется записями списания и зачисления,
+ * и периодически сохраняет снимки балансов карт, сверяя их с журналом. Источником баланса карты
+ * журнал не является.
+ */
+public interface LedgerService {
+
+    /**
+     * Добавляет в журнал записи списания и зачисления для выполненного перевода.
+     *
+     * @param dto параметры выполненного перевода
+     */
+    void recordTransfer(CardTransferDto dto);
+
+    /**
+     * Добавляет в журнал записи для нескольких выполненных переводов одной пакетной вставкой.
+     *
+     * @param transfers выполненные переводы в порядке выполнения
+     */
+    void recordTransfers(List<CardTransferDto> transfers);
+
+    /**
+     * Сохраняет снимки балансов всех карт, у которых появились новые записи журнала,
+     * на границе по времени создания записей, и сверяет их с предыдущими снимками по журналу.
+     */
+    void snapshotBalances();
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+
+/**
+ * Сервис приведения хешей паролей к текущим настройкам BCrypt.
+ */
+public interface PasswordRehashService {
+
+    /**
+     * Запускает фоновое перехеширование пароля, если стоимость сохранённого хеша отличается от целевой.
+     * Вызывается только после успешной проверки пароля и не задерживает вызывающего.
+     *
+     * @param user        пользователь, чей пароль проверен
+     * @param rawPassword проверенный пароль
+     */
+    void rehashIfNeeded(User user, String rawPassword);
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.jwt.JwtAuthDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.JwtClaims;
+
+/**
+ * Сервис выдачи и ротации refresh token.
+ */
+public interface RefreshTokenService {
+
+    /**
+     * Сохраняет новый refresh token и выдаёт его вместе с access token.
+     *
+     * @param user пользователь, которому выдаются токены
+     * @return пара JWT-токенов (access + refresh)
+     */
+    JwtAuthDto issue(User user);
+
+    /**
+     * Отзывает предъявленный refresh token, чтобы его нельзя было использовать повторно.
+     * Повторное предъявление уже отозванного токена отзывает все токены его владельца.
+     *
+     * @param claims проверенные данные refresh token
+     * @throws com.example.bankcards.exception.AuthException если токен неизвестен или уже отозван
+     */
+    void consume(JwtClaims claims);
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.service;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Сервис приблизительного подсчёта строк для постраничных выборок.
+ */
+public interface RowCountService {
+
+    /**
+     * Возвращает приблизительное количество строк выборки.
+     *
+     * @param table      таблица выборки
+     * @param filter     значения фильтров выборки; если все они {@code null}, выборка считается нефильтрованной
+     * @param exactCount точный подсчёт, выполняемый, когда оценки нет
+     * @return оценка количества строк
+     */
+    long approximateCount(String table, List<?> filter, LongSupplier exactCount);
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.dto.user.UserCreateDto;
 import com.example.bankcards.dto.user.UserDto;
+import com.example.bankcards.util.CountMode;
 
 /**
  * Сервис для управления пользователями.
@@ -20,9 +21,19 @@ public interface UserService {
     /**
      * Возвращает страницу пользователей.
      *
-     * @param page номер страницы
-     * @param size размер страницы
+     * @param page  номер страницы
+     * @param size  размер страницы
+     * @param count способ подсчёта общего количества пользователей
      * @return страничный список пользователей
      */
-    PageResponse<UserDto> getUsers(int page, int size);
+    PageResponse<UserDto> getUsers(int page, int size, CountMode count);
+
+    /**
+     * Возвращает страницу пользователей, следующую за курсором, в порядке (username, id).
+     *
+     * @param cursor курсор предыдущей страницы или пустая строка для первой
+     * @param size   размер страницы
+     * @return страничный список пользователей с курсором следующей страницы
+     */
+    PageResponse<UserDto> getUsersByCursor(String cursor, int size);
 }
@@ -5,12 +5,16 @@ import com.example.bankcards.dto.jwt.JwtAuthDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AuthException;
 import com.example.bankcards.exception.NotFoundException;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserServiceImpl;
+import com.example.bankcards.security.JwtClaims;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.service.AuthService;
+import com.example.bankcards.service.PasswordRehashService;
+import com.example.bankcards.service.RefreshTokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,9 +29,11 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 @Transactional
 public class AuthServiceImpl implements AuthService {
-    private final UserRepository userRepository;
+    private final CustomUserServiceImpl customUserService;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordRehashService passwordRehashService;
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * Выполняет авторизацию пользователя по логину и паролю.
@@ -36,18 +42,23 @@ public class AuthServiceImpl implements AuthService {
      * <ol>
      *     <li>Проверяет существование пользователя по username;</li>
      *     <li>Сравнивает предоставленный пароль с хешированным паролем в базе данных;</li>
-     *     <li>В случае успеха генерирует пару токенов — access token и refresh token.</li>
+     *     <li>Если стоимость хеша отличается от текущей настройки BCrypt, запускает фоновое перехеширование
+     *     ({@link PasswordRehashService#rehashIfNeeded(User, String)});</li>
+     *     <li>В случае успеха генерирует пару токенов — access token и refresh token,
+     *     который сохраняется через {@link RefreshTokenService#issue(User)}.</li>
      * </ol>
+     * Проверка пароля выполняется вне транзакции, чтобы BCrypt не удерживал соединение с базой данных;
+     * refresh token сохраняется в собственной короткой транзакции.
      *
      * @param dto DTO с логином и паролем
      * @return объект {@link JwtAuthDto} с парой JWT-токенов
      * @throws NotFoundException если пользователь с указанным логином не найден
      * @throws AuthException     если предоставлен неверный пароль
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public JwtAuthDto logIn(UserCredentialsDto dto) {
-        User user = userRepository.findByUsername(dto.username()).orElseThrow(() -> {
+        User user = customUserService.findByUsername(dto.username()).orElseThrow(() -> {
             log.warn("Пользователь с username={} не найден", dto.username());
             return new NotFoundException("Пользователь с username=" + dto.username() + " не найден.");
         });
@@ -55,7 +66,8 @@ public class AuthServiceImpl implements AuthService {
             log.warn("Неверный пароль для пользователя={}", user.getUsername());
             throw new AuthException("Неверный пароль.");
         }
-        return jwtService.generateAuthToken(user);
+        passwordRehashService.rehashIfNeeded(user, dto.password());
+        return refreshTokenService.issue(user);
     }
 
     /**
@@ -64,25 +76,29 @@ public class AuthServiceImpl implements AuthService {
      * Логика обновления:
      * <ol>
      *     <li>Проверка, что refresh token не равен null;</li>
-     *     <li>Валидация refresh token методом {@link JwtService#validateJwtToken(String)};</li>
-     *     <li>Извлечение username из токена;</li>
-     *     <li>Поиск пользователя в базе;</li>
-     *     <li>Генерация нового access token.</li>
+     *     <li>Проверка refresh token и извлечение username за один разбор методом {@link JwtService#verify(String)};</li>
+     *     <li>Отзыв предъявленного refresh token через {@link RefreshTokenService#consume(JwtClaims)};</li>
+     *     <li>Поиск пользователя через кэш {@link CustomUserServiceImpl};</li>
+     *     <li>Выдача нового access token и нового refresh token.</li>
      * </ol>
+     * Отказ в обновлении не откатывает транзакцию: отзыв токенов при повторном использовании должен сохраниться.
      *
      * @param refreshToken действительный refresh token
      * @return новый объект {@link JwtAuthDto} с обновлёнными токенами
-     * @throws AuthException     если refresh token недействителен или отсутствует
+     * @throws AuthException     если refresh token недействителен, отсутствует или уже использован
      * @throws NotFoundException если пользователь, которому принадлежит токен, не найден
      */
-    @Transactional(readOnly = true)
+    @Transactional(noRollbackFor = AuthException.class)
     @Override
     public JwtAuthDto refreshToken(String  refreshToken) {
-        if (refreshToken != null && jwtService.validateJwtToken(refreshToken)) {
-            User user = userRepository.findByUsername(jwtService.getUsernameFromToken(refreshToken))
-                    .orElseThrow(() -> new NotFoundException("User not found"));
-            return jwtService.refreshBaseToken(user, refreshToken);
+        if (refreshToken == null) {
+            throw new AuthException("Invalid refresh token");
         }
-        throw new AuthException("Invalid refresh token");
+        JwtClaims claims = jwtService.verify(refreshToken)
+                .orElseThrow(() -> new AuthException("Invalid refresh token"));
+        refreshTokenService.consume(claims);
+        User user = customUserService.findByUsername(claims.username())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        return refreshTokenService.issue(user);
     }
 }
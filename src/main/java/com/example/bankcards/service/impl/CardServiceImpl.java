@@ -1,31 +1,59 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.card.CardBatchTransferResultDto;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLedgerEntryDto;
 import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardStripesDto;
 import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferItemResultDto;
+import com.example.bankcards.dto.card.CardView;
+import com.example.bankcards.dto.card.GroupTransfer;
+import com.example.bankcards.dto.card.GroupTransferResult;
+import com.example.bankcards.dto.card.TransferCardView;
+import com.example.bankcards.dto.page.PageCursor;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.CardLedgerRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStripeService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.RowCountService;
+import com.example.bankcards.util.CardLockOrder;
 import com.example.bankcards.util.CardNumberGenerator;
 import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.CountMode;
+import com.example.bankcards.util.OptimisticRetry;
+import com.example.bankcards.util.TransferBatchMode;
+import com.example.bankcards.util.TransferConcurrencyMode;
+import com.example.bankcards.util.TransferItemStatus;
+import com.example.bankcards.util.mapper.CardLedgerMapper;
 import com.example.bankcards.util.mapper.CardMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Stream;
 
 
 /**
@@ -39,9 +67,24 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class CardServiceImpl implements CardService {
+    private static final String STAGE_REQUEST = "request";
+    private static final String STAGE_CARDS = "cards";
+    private static final String STAGE_BALANCE = "balance";
+    private static final String CARDS_TABLE = "cards";
+
     private final UserRepository userRepository;
     private final CardRepository cardRepository;
     private final CardMapper cardMapper;
+    private final LedgerService ledgerService;
+    private final CardStripeService cardStripeService;
+    private final CardLedgerRepository cardLedgerRepository;
+    private final CardLedgerMapper cardLedgerMapper;
+    private final TransactionOperations transactionOperations;
+    private final MeterRegistry meterRegistry;
+    private final RowCountService rowCountService;
+
+    @Value("${bank.transfer.concurrency-mode:CONDITIONAL}")
+    private TransferConcurrencyMode concurrencyMode = TransferConcurrencyMode.CONDITIONAL;
 
     /**
      * Создаёт новую карту для указанного пользователя.
@@ -79,9 +122,10 @@ public class CardServiceImpl implements CardService {
      * @return DTO карты с обновлённым статусом
      * @throws NotFoundException если карта с указанным идентификатором не найдена
      */
+    @OptimisticRetry("updateCardStatus")
     @Override
     public CardDto updateCardStatus(UUID cardId, CardNewStatusDto dto) {
-        Card card = findCardByIdOrThrow(cardId);
+        Card card = findCardWithOwnerOrThrow(cardId);
         card.setStatus(dto.status());
 
         cardRepository.save(card);
@@ -89,16 +133,47 @@ public class CardServiceImpl implements CardService {
         return cardMapper.toDto(card);
     }
 
+    /**
+     * Изменяет количество частей баланса карты.
+     * <p>
+     * Карта с разбитым балансом принимает зачисления в одну из {@code stripeCount} частей, поэтому
+     * частые зачисления на одну карту (например, карту расчётов с мерчантом) не конкурируют за строку
+     * {@code cards}. Текущие части переносятся в основной баланс, доступный баланс карты не меняется.
+     *
+     * @param cardId идентификатор карты
+     * @param dto    DTO с новым количеством частей; {@code 0} отключает разбиение
+     * @return DTO карты
+     * @throws NotFoundException если карта с указанным идентификатором не найдена
+     */
+    @Override
+    public CardDto updateCardStripes(UUID cardId, CardStripesDto dto) {
+        Card card = cardRepository.findByIdForUpdate(cardId).orElseThrow(() -> {
+            log.warn("Карта с id={} не найдена.", cardId);
+            return new NotFoundException("Карта не найдена.");
+        });
+        cardStripeService.configure(card, dto.stripeCount());
+
+        cardRepository.save(card);
+        log.debug("Изменено количество частей баланса карты. cardId={}, stripeCount={}", cardId, dto.stripeCount());
+        return cardMapper.toDto(card);
+    }
+
     /**
      * Удаляет карту по её идентификатору.
      * <p>
+     * Журнал операций хранит историю переводов, поэтому карту с записями журнала удалить нельзя:
+     * такую карту блокируют.
      *
      * @param cardId идентификатор карты, подлежащей удалению
      * @throws NotFoundException если карта с указанным идентификатором не найдена
+     * @throws ConflictException если у карты есть записи журнала операций
      */
     @Override
     public void deleteCard(UUID cardId) {
         findCardByIdOrThrow(cardId);
+        if (cardLedgerRepository.existsByCardId(cardId)) {
+            throw new ConflictException("Карту с историей операций удалить нельзя, её можно заблокировать.");
+        }
         cardRepository.deleteById(cardId);
     }
 
@@ -112,7 +187,7 @@ public class CardServiceImpl implements CardService {
     @Transactional(readOnly = true)
     @Override
     public CardDto getById(UUID cardId) {
-        return cardMapper.toDto(findCardByIdOrThrow(cardId));
+        return cardMapper.toDto(findCardWithOwnerOrThrow(cardId));
     }
 
     /**
@@ -122,15 +197,47 @@ public class CardServiceImpl implements CardService {
      *
      * @param page   номер страницы (начиная с 0)
      * @param size   размер страницы (количество элементов на странице)
+     * @param count  способ подсчёта общего количества карт: без подсчёта, оценка или точный {@code COUNT(*)}
      * @param status необязательный фильтр по статусу карты; если {@code null}, возвращаются карты всех статусов
      * @return объект {@link PageResponse} с DTO карт и метаданными пагинации
      */
     @Transactional(readOnly = true)
     @Override
-    public PageResponse<CardDto> getAll(int page, int size, CardStatus status) {
+    public PageResponse<CardDto> getAll(int page, int size, CountMode count, CardStatus status) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("status"));
-        Page<CardDto> cardsPage = cardRepository.findAllByFilter(pageable, status).map(cardMapper::toDto);
-        return PageResponse.from(cardsPage);
+        Specification<Card> spec = CardSpecifications.withStatus(status);
+        return switch (count) {
+            case EXACT -> PageResponse.from(cardRepository.findViews(spec, pageable).map(cardMapper::toDto));
+            case NONE -> PageResponse.fromSlice(cardRepository.findViewSlice(spec, pageable).map(cardMapper::toDto));
+            case APPROX -> PageResponse.fromSlice(
+                    cardRepository.findViewSlice(spec, pageable).map(cardMapper::toDto),
+                    rowCountService.approximateCount(CARDS_TABLE, Collections.singletonList(status),
+                            () -> cardRepository.count(spec)));
+        };
+    }
+
+    /**
+     * Возвращает страницу карт, следующую за курсором.
+     * <p>
+     * Страница читается условием {@code (status, id) > курсор} по индексу {@code idx_cards_status_id}, поэтому
+     * стоимость запроса не зависит от глубины страницы, а общее количество карт не подсчитывается.
+     *
+     * @param cursor курсор предыдущей страницы или пустая строка для первой
+     * @param size   размер страницы
+     * @param status необязательный фильтр по статусу карты
+     * @return объект {@link PageResponse} с DTO карт и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PageResponse<CardDto> getAllByCursor(String cursor, int size, CardStatus status) {
+        PageCursor after = PageCursor.decode(cursor);
+        Specification<Card> spec = CardSpecifications.withStatus(status);
+        if (after != null) {
+            spec = spec.and(CardSpecifications.afterStatus(after.sortKey(CardStatus::valueOf), after.id()));
+        }
+        List<CardView> cards = cardRepository.findViews(spec, Sort.by("status", "id"), size + 1);
+        return PageResponse.fromKeyset(cards, size,
+                card -> new PageCursor(card.status().name(), card.id()), cardMapper::toDto);
     }
 
     /**
@@ -138,26 +245,64 @@ public class CardServiceImpl implements CardService {
      * <p>
      * Поддерживает фильтрацию по статусу, диапазону дат окончания срока действия и последним четырём цифрам.
      *
-     * @param username        имя пользователя, чьи карты запрашиваются
+     * @param userId          идентификатор пользователя, чьи карты запрашиваются
      * @param page            номер страницы (начиная с 0)
      * @param size            размер страницы
+     * @param count           способ подсчёта общего количества карт
      * @param status          необязательный фильтр по статусу карты
      * @param expiryDateFrom  нижняя граница срока действия карты (включительно); может быть {@code null}
      * @param expiryDateTo    верхняя граница срока действия карты (включительно); может быть {@code null}
      * @param last4           необязательный фильтр по последним четырём цифрам номера карты
      * @return объект {@link PageResponse} с DTO карт и метаданными пагинации
-     * @throws NotFoundException если пользователь с указанным именем не найден
      */
     @Transactional(readOnly = true)
     @Override
-    public PageResponse<CardDto> getAllUserCards(String username, int page, int size, CardStatus status,
+    public PageResponse<CardDto> getAllUserCards(UUID userId, int page, int size, CountMode count, CardStatus status,
                                                  LocalDateTime expiryDateFrom, LocalDateTime expiryDateTo, String last4) {
-        User user = findUserByUsernameOrThrow(username);
         Pageable pageable = PageRequest.of(page, size, Sort.by("expiryDate").ascending());
+        Specification<Card> spec = CardSpecifications.userCards(userId, status, expiryDateFrom, expiryDateTo, last4);
 
-        Page<CardDto> userCardsPage = cardRepository.findAllUserCards(pageable, user.getId(), status, expiryDateFrom,
-                expiryDateTo, last4).map(cardMapper::toDto);
-        return PageResponse.from(userCardsPage);
+        if (count == CountMode.EXACT) {
+            Page<CardDto> userCardsPage = cardRepository.findViews(spec, pageable).map(cardMapper::toDto);
+            return PageResponse.from(userCardsPage);
+        }
+        Slice<CardDto> userCardsSlice = cardRepository.findViewSlice(spec, pageable).map(cardMapper::toDto);
+        if (count == CountMode.NONE) {
+            return PageResponse.fromSlice(userCardsSlice);
+        }
+        long total = rowCountService.approximateCount(CARDS_TABLE,
+                Arrays.asList(userId, status, expiryDateFrom, expiryDateTo, last4), () -> cardRepository.count(spec));
+        return PageResponse.fromSlice(userCardsSlice, total);
+    }
+
+    /**
+     * Возвращает страницу карт пользователя, следующую за курсором.
+     * <p>
+     * Страница читается условием {@code (expiryDate, id) > курсор} по индексу
+     * {@code idx_cards_user_id_expiry_date_id}; общее количество карт не подсчитывается.
+     *
+     * @param userId          идентификатор пользователя, чьи карты запрашиваются
+     * @param cursor          курсор предыдущей страницы или пустая строка для первой
+     * @param size            размер страницы
+     * @param status          необязательный фильтр по статусу карты
+     * @param expiryDateFrom  нижняя граница срока действия карты (включительно); может быть {@code null}
+     * @param expiryDateTo    верхняя граница срока действия карты (включительно); может быть {@code null}
+     * @param last4           необязательный фильтр по последним четырём цифрам номера карты
+     * @return объект {@link PageResponse} с DTO карт и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PageResponse<CardDto> getAllUserCardsByCursor(UUID userId, String cursor, int size, CardStatus status,
+                                                         LocalDateTime expiryDateFrom, LocalDateTime expiryDateTo,
+                                                         String last4) {
+        PageCursor after = PageCursor.decode(cursor);
+        Specification<Card> spec = CardSpecifications.userCards(userId, status, expiryDateFrom, expiryDateTo, last4);
+        if (after != null) {
+            spec = spec.and(CardSpecifications.afterExpiryDate(after.sortKey(LocalDateTime::parse), after.id()));
+        }
+        List<CardView> cards = cardRepository.findViews(spec, Sort.by("expiryDate", "id"), size + 1);
+        return PageResponse.fromKeyset(cards, size,
+                card -> new PageCursor(card.expiryDate().toString(), card.id()), cardMapper::toDto);
     }
 
     /**
@@ -167,31 +312,31 @@ public class CardServiceImpl implements CardService {
      * В случае успешного запроса статус карты изменяется на {@link CardStatus#BLOCK_PENDING}.
      *
      * @param cardId   идентификатор карты, для которой запрашивается блокировка
-     * @param username имя пользователя, от имени которого отправляется запрос
+     * @param userId идентификатор пользователя, от имени которого отправляется запрос
      * @return DTO карты с обновлённым статусом
-     * @throws NotFoundException   если пользователь или карта не найдены
+     * @throws NotFoundException   если карта не найдена
      * @throws ConflictException   если карту пытается заблокировать не владелец
      * или текущий статус карты не {@link CardStatus#ACTIVE}
      */
+    @OptimisticRetry("blockCardRequest")
     @Override
-    public CardDto blockCardRequest(UUID cardId, String username) {
-        User user = findUserByUsernameOrThrow(username);
-        Card card = findCardByIdOrThrow(cardId);
+    public CardDto blockCardRequest(UUID cardId, UUID userId) {
+        Card card = findCardWithOwnerOrThrow(cardId);
 
-        if(!card.getOwner().getId().equals(user.getId())) {
-            log.warn("Блокировать карту может только владелец. cardId={}, userId={}", cardId, user.getId());
+        if (!card.isOwnedBy(userId)) {
+            log.warn("Блокировать карту может только владелец. cardId={}, userId={}", cardId, userId);
             throw new ConflictException("Блокировать карту может только владелец.");
         }
 
         if(!card.getStatus().equals(CardStatus.ACTIVE)) {
             log.warn("Запрос на блокировку карты со статусом не ACTIVE. userId={}, cardId={}",
-                    user.getId(), card.getId());
+                    userId, card.getId());
             throw new ConflictException("Статус карты должен быть ACTIVE");
         }
 
         card.setStatus(CardStatus.BLOCK_PENDING);
         cardRepository.save(card);
-        log.debug("Пользователь запросил блокировку карты. userId={}, cardId={}", user.getId(), cardId);
+        log.debug("Пользователь запросил блокировку карты. userId={}, cardId={}", userId, cardId);
         return cardMapper.toDto(card);
     }
 
@@ -200,55 +345,212 @@ public class CardServiceImpl implements CardService {
      * <p>
      * Перевод возможен только между разными картами, принадлежащими одному пользователю,
      * со статусом {@link CardStatus#ACTIVE} и при наличии достаточного баланса на карте-источнике.
+     * <p>
+     * Перевод проходит этапы по возрастанию стоимости, и отказ на раннем этапе не доходит до следующих:
+     * <ol>
+     *     <li>проверки параметров без обращения к базе данных ({@link #checkTransferRequest}) —
+     *     до открытия транзакции;</li>
+     *     <li>проверка владельца и статуса обеих карт одним запросом ({@link CardRepository#findTransferCards});</li>
+     *     <li>изменение балансов.</li>
+     * </ol>
+     * Отказы учитываются в метрике {@code bank.transfer.rejected} с тегами {@code stage} и {@code reason}.
+     * <p>
+     * Списание и зачисление выполняются условными {@code UPDATE} ({@link CardRepository#debit}
+     * и {@link CardRepository#credit}): проверки владельца, статуса и баланса повторяет сама база
+     * в том же операторе, что и изменение баланса, поэтому конкурентные переводы не теряют обновлений.
+     * Операторы выполняются в порядке {@link CardLockOrder}, чтобы встречные переводы
+     * (A → B и B → A), а также одиночные и пакетные переводы не могли попасть во взаимную блокировку строк.
+     * Если какой-либо оператор не изменил ни одной строки, причина отказа определяется
+     * дополнительным чтением карт, а транзакция откатывается.
+     * Выполненный перевод добавляет в журнал операций записи списания и зачисления.
+     * <p>
+     * Для карт с разбитым балансом зачисление изменяет одну из частей баланса
+     * ({@link CardStripeService#credit}), а не строку карты; если списанию не хватает основного баланса,
+     * части сначала переносятся в основной баланс ({@link CardStripeService#consolidate(UUID, UUID)}).
+     * <p>
+     * В режиме {@link TransferConcurrencyMode#OPTIMISTIC} ({@code bank.transfer.concurrency-mode}) карты без
+     * разбиения баланса читаются без блокировок, проверяются в памяти и сохраняются с проверкой версии;
+     * при конфликте с параллельной транзакцией перевод повторяется ({@link OptimisticRetry}).
      *
-     * @param username имя пользователя, от имени которого выполняется перевод
+     * @param userId   идентификатор пользователя, от имени которого выполняется перевод
      * @param dto      DTO с параметрами перевода (карта-источник, карта-получатель, сумма)
-     * @throws NotFoundException   если пользователь или одна из карт не найдены
+     * @throws NotFoundException   если одна из карт не найдена
      * @throws ConflictException   если карты не принадлежат пользователю, совпадают,
      *                             имеют некорректный статус или недостаточно средств/некорректная сумма
      */
+    @OptimisticRetry("transfer")
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
-    public void transfer(String username, CardTransferDto dto) {
-        Card fromCard = findCardByIdOrThrow(dto.fromCardId());
-        Card toCard = findCardByIdOrThrow(dto.toCardId());
-        User user = findUserByUsernameOrThrow(username);
+    public void transfer(UUID userId, CardTransferDto dto) {
+        checkTransferRequest(dto);
+        transactionOperations.executeWithoutResult(status -> applyTransfer(userId, dto));
+    }
 
-        if (!fromCard.getOwner().getId().equals(user.getId()) || !toCard.getOwner().getId().equals(user.getId())) {
-            log.warn("Перевод возможен только между своими картами. fromCardId={}, toCardId={}, userId={}",
-                    fromCard.getId(), toCard.getId(), user.getId());
-            throw new ConflictException("Перевод возможен только между своими картами.");
+    /**
+     * Проверяет параметры перевода, не обращаясь к базе данных: карты перевода различаются, сумма положительна.
+     * <p>
+     * Вызывается до открытия транзакции, поэтому некорректный запрос не занимает соединение с базой данных.
+     *
+     * @param dto DTO с параметрами перевода
+     * @throws ConflictException если перевод на ту же карту или сумма не больше нуля
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Override
+    public void checkTransferRequest(CardTransferDto dto) {
+        if (dto.fromCardId().equals(dto.toCardId())) {
+            log.warn("Попытка перевода на ту же карту. cardId={}", dto.fromCardId());
+            countRejection(STAGE_REQUEST, "same_card");
+            throw new ConflictException("Перевод на ту же карту невозможен.");
         }
 
-        if (fromCard.getId().equals(toCard.getId())) {
-            log.warn("Попытка перевода на ту же карту. cardId={}, userId={}", fromCard.getId(), user.getId());
-            throw new ConflictException("Перевод на ту же карту невозможен.");
+        if (dto.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            log.warn("Некорректная сумма перевода. amount={}", dto.amount());
+            countRejection(STAGE_REQUEST, "non_positive_amount");
+            throw new ConflictException("Сумма перевода должна быть больше 0.");
         }
+    }
 
-        if (!fromCard.getStatus().equals(CardStatus.ACTIVE) || !toCard.getStatus().equals(CardStatus.ACTIVE)) {
-            log.warn("Перевод возможен только между активными картами. fromCardId={}, toCardId={}, userId={}",
-                    fromCard.getId(), toCard.getId(), user.getId());
-            throw new ConflictException("Перевод возможен только между активными картами.");
+    /**
+     * Выполняет группу переводов разных пользователей в транзакции групповой фиксации, открытой вызывающим.
+     * <p>
+     * Карты всех переводов группы загружаются и блокируются одним запросом
+     * ({@link CardRepository#findAllByIdForUpdate}) в порядке {@link CardLockOrder}. Переводы проверяются
+     * по очереди в памяти теми же правилами, что и одиночный перевод, с учётом балансов после предыдущих
+     * переводов группы, поэтому отклонённый перевод ничего не изменяет и точки сохранения не нужны.
+     * Итоговые балансы записываются один раз на карту при фиксации: Hibernate отправляет эти {@code UPDATE}
+     * пакетами JDBC ({@code hibernate.jdbc.batch_size}) и проверяет по версии карты число строк, изменённых
+     * каждым из них. Записи журнала операций добавляются одной пакетной вставкой.
+     * <p>
+     * Как и пакет переводов, группа не блокирует части баланса карт с разбиением: зачисление на такую карту
+     * изменяет её основной баланс, а перевод, которому не хватает основного баланса такой карты-источника,
+     * получает статус {@link GroupTransferResult.Status#DEFERRED} и выполняется вызывающим отдельно.
+     *
+     * @param transfers переводы группы
+     * @return результаты переводов в порядке их следования в группе
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public List<GroupTransferResult> transferGroup(List<GroupTransfer> transfers) {
+        Set<UUID> cardIds = new HashSet<>();
+        for (GroupTransfer transfer : transfers) {
+            cardIds.add(transfer.dto().fromCardId());
+            cardIds.add(transfer.dto().toCardId());
+        }
+        Map<UUID, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllByIdForUpdate(cardIds)) {
+            cards.put(card.getId(), card);
         }
 
-        if (dto.amount().compareTo(BigDecimal.ZERO) <= 0) {
-            log.warn("Некорректная сумма перевода. amount={}, userId={}", dto.amount(), user.getId());
-            throw new ConflictException("Сумма перевода должна быть больше 0.");
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        List<GroupTransferResult> results = new ArrayList<>(transfers.size());
+        List<CardTransferDto> appliedTransfers = new ArrayList<>(transfers.size());
+        for (GroupTransfer transfer : transfers) {
+            CardTransferDto dto = transfer.dto();
+            try {
+                if (!checkGroupTransfer(transfer.userId(), dto, cards, balances)) {
+                    results.add(GroupTransferResult.deferred());
+                    continue;
+                }
+            } catch (ConflictException | NotFoundException e) {
+                results.add(GroupTransferResult.rejected(e));
+                continue;
+            }
+            balances.put(dto.fromCardId(), balanceOf(dto.fromCardId(), cards, balances).subtract(dto.amount()));
+            balances.put(dto.toCardId(), balanceOf(dto.toCardId(), cards, balances).add(dto.amount()));
+            results.add(GroupTransferResult.applied());
+            appliedTransfers.add(dto);
         }
 
-        if (fromCard.getBalance().compareTo(dto.amount()) < 0) {
-            log.warn("Недостаточно средств для перевода. fromCardId={}, balance={}, amount={}, userId={}",
-                    fromCard.getId(), fromCard.getBalance(), dto.amount(), user.getId());
-            throw new ConflictException("Недостаточно средств для перевода.");
+        if (!appliedTransfers.isEmpty()) {
+            List<Card> changed = new ArrayList<>(balances.size());
+            balances.forEach((cardId, balance) -> {
+                Card card = cards.get(cardId);
+                card.setBalance(balance);
+                changed.add(card);
+            });
+            cardRepository.saveAll(changed);
+            ledgerService.recordTransfers(appliedTransfers);
         }
+        return results;
+    }
 
-        fromCard.setBalance(fromCard.getBalance().subtract(dto.amount()));
-        toCard.setBalance(toCard.getBalance().add(dto.amount()));
+    /**
+     * Выполняет пакет переводов между картами пользователя в одной транзакции.
+     * <p>
+     * Все карты пакета загружаются и блокируются одним запросом ({@link CardRepository#findAllByIdForUpdate}) в порядке
+     * {@link CardLockOrder} — том же, в котором одиночный перевод изменяет строки карт. Переводы проверяются по очереди теми же правилами, что и одиночный
+     * перевод, с учётом балансов после предыдущих переводов пакета. Итоговые балансы записываются
+     * один раз на карту при фиксации транзакции — Hibernate отправляет эти {@code UPDATE}, как и вставки
+     * записей журнала операций, пакетами JDBC ({@code hibernate.jdbc.batch_size}, {@code hibernate.order_updates}).
+     * <p>
+     * В режиме {@link TransferBatchMode#ALL_OR_NOTHING} при хотя бы одном отклонённом переводе балансы
+     * не изменяются, а корректные переводы получают статус {@link TransferItemStatus#ROLLED_BACK}.
+     * В режиме {@link TransferBatchMode#BEST_EFFORT} выполняются все корректные переводы.
+     * <p>
+     * Части баланса карт с разбиением пакет не блокирует и не переносит: иначе пакет блокировал бы части
+     * одной карты, уже удерживая строки следующих по порядку карт. Поэтому списание с такой карты в пакете
+     * ограничено её основным балансом.
+     *
+     * @param userId    идентификатор пользователя, от имени которого выполняются переводы
+     * @param transfers переводы в порядке выполнения
+     * @param mode      режим выполнения пакета
+     * @return результаты переводов в порядке их следования в пакете
+     */
+    @Override
+    public CardBatchTransferResultDto transferBatch(UUID userId, List<CardTransferDto> transfers,
+                                                    TransferBatchMode mode) {
+        Set<UUID> cardIds = new HashSet<>();
+        for (CardTransferDto dto : transfers) {
+            cardIds.add(dto.fromCardId());
+            cardIds.add(dto.toCardId());
+        }
+        Map<UUID, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllByIdForUpdate(cardIds)) {
+            cards.put(card.getId(), card);
+        }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        List<CardTransferItemResultDto> items = new ArrayList<>(transfers.size());
+        List<CardTransferDto> appliedTransfers = new ArrayList<>(transfers.size());
+        int rejected = 0;
+        for (int i = 0; i < transfers.size(); i++) {
+            CardTransferDto dto = transfers.get(i);
+            String reason = checkBatchTransfer(userId, dto, cards, balances);
+            if (reason != null) {
+                rejected++;
+                items.add(new CardTransferItemResultDto(i, TransferItemStatus.REJECTED, reason));
+                continue;
+            }
+            balances.put(dto.fromCardId(), balanceOf(dto.fromCardId(), cards, balances).subtract(dto.amount()));
+            balances.put(dto.toCardId(), balanceOf(dto.toCardId(), cards, balances).add(dto.amount()));
+            items.add(new CardTransferItemResultDto(i, TransferItemStatus.APPLIED, null));
+            appliedTransfers.add(dto);
+        }
 
-        log.debug("Успешный перевод между картами. fromCardId={}, toCardId={}, amount={}, userId={}",
-                fromCard.getId(), toCard.getId(), dto.amount(), user.getId());
+        if (mode == TransferBatchMode.ALL_OR_NOTHING && rejected > 0) {
+            log.warn("Пакетный перевод отменён. userId={}, size={}, rejected={}",
+                    userId, transfers.size(), rejected);
+            List<CardTransferItemResultDto> rolledBack = items.stream()
+                    .map(item -> item.status() == TransferItemStatus.APPLIED
+                            ? new CardTransferItemResultDto(item.index(), TransferItemStatus.ROLLED_BACK,
+                            "Перевод отменён: в пакете есть отклонённые переводы.")
+                            : item)
+                    .toList();
+            return new CardBatchTransferResultDto(mode, 0, rejected, rolledBack);
+        }
+
+        List<Card> changed = new ArrayList<>(balances.size());
+        balances.forEach((cardId, balance) -> {
+            Card card = cards.get(cardId);
+            card.setBalance(balance);
+            changed.add(card);
+        });
+        cardRepository.saveAll(changed);
+        ledgerService.recordTransfers(appliedTransfers);
+
+        log.debug("Пакетный перевод выполнен. userId={}, applied={}, rejected={}",
+                userId, transfers.size() - rejected, rejected);
+        return new CardBatchTransferResultDto(mode, transfers.size() - rejected, rejected, items);
     }
 
     /**
@@ -257,25 +559,53 @@ public class CardServiceImpl implements CardService {
      * Карта может быть просмотрена только её владельцем.
      *
      * @param cardId   идентификатор карты
-     * @param username имя пользователя, запрашивающего карту
+     * @param userId идентификатор пользователя, запрашивающего карту
      * @return DTO карты
-     * @throws NotFoundException   если пользователь или карта не найдены
+     * @throws NotFoundException   если карта не найдена
      * @throws ConflictException   если пользователь пытается просмотреть чужую карту
      */
     @Transactional(readOnly = true)
     @Override
-    public CardDto getUserCardById(UUID cardId, String username) {
-        User user = findUserByUsernameOrThrow(username);
-        Card card = findCardByIdOrThrow(cardId);
+    public CardDto getUserCardById(UUID cardId, UUID userId) {
+        Card card = findCardWithOwnerOrThrow(cardId);
 
-        if (!card.getOwner().getId().equals(user.getId())) {
-            log.warn("Попытка просмотра чужой карты. cardId={}, userId={}", cardId, user.getId());
+        if (!card.isOwnedBy(userId)) {
+            log.warn("Попытка просмотра чужой карты. cardId={}, userId={}", cardId, userId);
             throw new ConflictException("Просмотреть можно только свою карту.");
         }
 
         return cardMapper.toDto(card);
     }
 
+    /**
+     * Возвращает страницу журнала операций по карте пользователя, начиная с последних операций.
+     * <p>
+     * Журнал доступен только владельцу карты. Страница читается по индексу {@code (card_id, id)}.
+     *
+     * @param cardId   идентификатор карты
+     * @param userId   идентификатор пользователя, запрашивающего журнал
+     * @param page     номер страницы (начиная с 0)
+     * @param size     размер страницы
+     * @return объект {@link PageResponse} с записями журнала
+     * @throws NotFoundException   если карта не найдена
+     * @throws ConflictException   если пользователь запрашивает журнал чужой карты
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PageResponse<CardLedgerEntryDto> getUserCardLedger(UUID cardId, UUID userId, int page, int size) {
+        Card card = findCardByIdOrThrow(cardId);
+
+        if (!card.isOwnedBy(userId)) {
+            log.warn("Попытка просмотра журнала чужой карты. cardId={}, userId={}", cardId, userId);
+            throw new ConflictException("Просмотреть можно только свою карту.");
+        }
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        Page<CardLedgerEntryDto> ledgerPage = cardLedgerRepository.findAllByCardId(cardId, pageable)
+                .map(cardLedgerMapper::toDto);
+        return PageResponse.from(ledgerPage);
+    }
+
     private Card findCardByIdOrThrow(UUID cardId) {
         return cardRepository.findById(cardId).orElseThrow(() -> {
             log.warn("Карта с id={} не найдена.", cardId);
@@ -283,17 +613,230 @@ public class CardServiceImpl implements CardService {
         });
     }
 
+    private Card findCardWithOwnerOrThrow(UUID cardId) {
+        return cardRepository.findWithOwnerById(cardId).orElseThrow(() -> {
+            log.warn("Карта с id={} не найдена.", cardId);
+            return new NotFoundException("Карта не найдена.");
+        });
+    }
+
+    private boolean debitCard(UUID cardId, UUID ownerId, BigDecimal amount) {
+        if (cardRepository.debit(cardId, ownerId, amount) == 1) {
+            return true;
+        }
+        return cardStripeService.consolidate(cardId, ownerId) && cardRepository.debit(cardId, ownerId, amount) == 1;
+    }
+
+    private boolean creditCard(UUID cardId, UUID ownerId, BigDecimal amount) {
+        return cardRepository.credit(cardId, ownerId, amount) == 1
+                || cardStripeService.credit(cardId, ownerId, amount);
+    }
+
+    /**
+     * Проверяет карты перевода и изменяет балансы; вызывается в транзакции после {@link #checkTransferRequest}.
+     */
+    private void applyTransfer(UUID ownerId, CardTransferDto dto) {
+        if (concurrencyMode == TransferConcurrencyMode.OPTIMISTIC && transferOptimistically(ownerId, dto)) {
+            return;
+        }
+
+        checkTransferCards(ownerId, dto, cardRepository.findTransferCards(List.of(dto.fromCardId(), dto.toCardId())));
+
+        boolean applied;
+        if (CardLockOrder.isBefore(dto.fromCardId(), dto.toCardId())) {
+            applied = debitCard(dto.fromCardId(), ownerId, dto.amount())
+                    && creditCard(dto.toCardId(), ownerId, dto.amount());
+        } else {
+            applied = creditCard(dto.toCardId(), ownerId, dto.amount())
+                    && debitCard(dto.fromCardId(), ownerId, dto.amount());
+        }
+
+        if (!applied) {
+            throw rejectTransfer(ownerId, dto);
+        }
+        ledgerService.recordTransfer(dto);
+
+        log.debug("Успешный перевод между картами. fromCardId={}, toCardId={}, amount={}, userId={}",
+                dto.fromCardId(), dto.toCardId(), dto.amount(), ownerId);
+    }
+
+    /**
+     * Проверяет, что обе карты перевода существуют, принадлежат пользователю и активны.
+     */
+    private void checkTransferCards(UUID userId, CardTransferDto dto, List<TransferCardView> cards) {
+        if (cards.size() < 2) {
+            log.warn("Карта перевода не найдена. fromCardId={}, toCardId={}", dto.fromCardId(), dto.toCardId());
+            countRejection(STAGE_CARDS, "card_not_found");
+            throw new NotFoundException("Карта не найдена.");
+        }
+
+        if (cards.stream().anyMatch(card -> !userId.equals(card.ownerId()))) {
+            log.warn("Перевод возможен только между своими картами. fromCardId={}, toCardId={}, userId={}",
+                    dto.fromCardId(), dto.toCardId(), userId);
+            countRejection(STAGE_CARDS, "not_owner");
+            throw new ConflictException("Перевод возможен только между своими картами.");
+        }
+
+        if (cards.stream().anyMatch(card -> card.status() != CardStatus.ACTIVE)) {
+            log.warn("Перевод возможен только между активными картами. fromCardId={}, toCardId={}, userId={}",
+                    dto.fromCardId(), dto.toCardId(), userId);
+            countRejection(STAGE_CARDS, "inactive_card");
+            throw new ConflictException("Перевод возможен только между активными картами.");
+        }
+    }
+
+    /**
+     * Проверяет перевод группы по заблокированным картам и балансам после предыдущих переводов группы.
+     *
+     * @return {@code false}, если карте-источнику с разбитым балансом не хватает основного баланса
+     * и перевод нужно выполнить отдельно
+     * @throws NotFoundException если одна из карт не найдена
+     * @throws ConflictException если перевод отклонён
+     */
+    private boolean checkGroupTransfer(UUID ownerId, CardTransferDto dto, Map<UUID, Card> cards,
+                                       Map<UUID, BigDecimal> balances) {
+        checkTransferCards(ownerId, dto, Stream.of(cards.get(dto.fromCardId()), cards.get(dto.toCardId()))
+                .filter(Objects::nonNull)
+                .map(card -> new TransferCardView(card.getId(), card.getOwner().getId(), card.getStatus()))
+                .toList());
+
+        Card fromCard = cards.get(dto.fromCardId());
+        BigDecimal balance = balanceOf(fromCard.getId(), cards, balances);
+        if (balance.compareTo(dto.amount()) >= 0) {
+            return true;
+        }
+        if (fromCard.getStripeCount() > 0) {
+            return false;
+        }
+        log.warn("Недостаточно средств для перевода. fromCardId={}, balance={}, amount={}, userId={}",
+                fromCard.getId(), balance, dto.amount(), ownerId);
+        countRejection(STAGE_BALANCE, "insufficient_funds");
+        throw new ConflictException("Недостаточно средств для перевода.");
+    }
+
+    /**
+     * Выполняет перевод с оптимистической блокировкой: изменённые карты сохраняются при фиксации
+     * с проверкой версии, конфликт завершает транзакцию {@code OptimisticLockingFailureException}.
+     *
+     * @return {@code false}, если у одной из карт разбит баланс и перевод нужно выполнить условными {@code UPDATE}
+     */
+    private boolean transferOptimistically(UUID ownerId, CardTransferDto dto) {
+        Map<UUID, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllById(List.of(dto.fromCardId(), dto.toCardId()))) {
+            cards.put(card.getId(), card);
+        }
+        checkTransferCards(ownerId, dto, cards.values().stream()
+                .map(card -> new TransferCardView(card.getId(), card.getOwner().getId(), card.getStatus()))
+                .toList());
+
+        Card fromCard = cards.get(dto.fromCardId());
+        Card toCard = cards.get(dto.toCardId());
+        if (fromCard.getStripeCount() > 0 || toCard.getStripeCount() > 0) {
+            return false;
+        }
+
+        if (fromCard.getBalance().compareTo(dto.amount()) < 0) {
+            log.warn("Недостаточно средств для перевода. fromCardId={}, balance={}, amount={}, userId={}",
+                    fromCard.getId(), fromCard.getBalance(), dto.amount(), ownerId);
+            countRejection(STAGE_BALANCE, "insufficient_funds");
+            throw new ConflictException("Недостаточно средств для перевода.");
+        }
+
+        fromCard.setBalance(fromCard.getBalance().subtract(dto.amount()));
+        toCard.setBalance(toCard.getBalance().add(dto.amount()));
+        ledgerService.recordTransfer(dto);
+
+        log.debug("Успешный перевод между картами. fromCardId={}, toCardId={}, amount={}, userId={}",
+                dto.fromCardId(), dto.toCardId(), dto.amount(), ownerId);
+        return true;
+    }
+
+    /**
+     * Определяет, почему условное списание или зачисление не изменило ни одной строки.
+     * Вызывается только для отклонённых переводов, поэтому успешный перевод не платит за это чтение.
+     * Владелец и статус карт уже проверены, поэтому причиной почти всегда оказывается нехватка средств;
+     * остальные причины возможны, только если карту изменил параллельный запрос.
+     */
+    private RuntimeException rejectTransfer(UUID ownerId, CardTransferDto dto) {
+        Card fromCard = findCardByIdOrThrow(dto.fromCardId());
+        Card toCard = findCardByIdOrThrow(dto.toCardId());
+
+        if (!fromCard.isOwnedBy(ownerId) || !toCard.isOwnedBy(ownerId)) {
+            log.warn("Перевод возможен только между своими картами. fromCardId={}, toCardId={}, userId={}",
+                    fromCard.getId(), toCard.getId(), ownerId);
+            countRejection(STAGE_BALANCE, "not_owner");
+            return new ConflictException("Перевод возможен только между своими картами.");
+        }
+
+        if (!fromCard.getStatus().equals(CardStatus.ACTIVE) || !toCard.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("Перевод возможен только между активными картами. fromCardId={}, toCardId={}, userId={}",
+                    fromCard.getId(), toCard.getId(), ownerId);
+            countRejection(STAGE_BALANCE, "inactive_card");
+            return new ConflictException("Перевод возможен только между активными картами.");
+        }
+
+        log.warn("Недостаточно средств для перевода. fromCardId={}, balance={}, amount={}, userId={}",
+                fromCard.getId(), fromCard.getAvailableBalance(), dto.amount(), ownerId);
+        countRejection(STAGE_BALANCE, "insufficient_funds");
+        return new ConflictException("Недостаточно средств для перевода.");
+    }
+
+    /**
+     * Учитывает отклонённый перевод в метрике {@code bank.transfer.rejected} с тегами этапа и причины.
+     */
+    private void countRejection(String stage, String reason) {
+        meterRegistry.counter("bank.transfer.rejected", "stage", stage, "reason", reason).increment();
+    }
+
+    /**
+     * Проверяет перевод из пакета по правилам одиночного перевода.
+     *
+     * @return причина отказа или {@code null}, если перевод может быть выполнен
+     */
+    private String checkBatchTransfer(UUID userId, CardTransferDto dto, Map<UUID, Card> cards,
+                                      Map<UUID, BigDecimal> balances) {
+        if (dto.fromCardId().equals(dto.toCardId())) {
+            return "Перевод на ту же карту невозможен.";
+        }
+        if (dto.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Сумма перевода должна быть больше 0.";
+        }
+
+        Card fromCard = cards.get(dto.fromCardId());
+        Card toCard = cards.get(dto.toCardId());
+        if (fromCard == null || toCard == null) {
+            return "Карта не найдена.";
+        }
+        return checkTransfer(userId, dto, fromCard, toCard, balanceOf(fromCard.getId(), cards, balances));
+    }
+
+    /**
+     * Проверяет владельца и статус загруженных карт перевода и достаточность средств на карте-источнике.
+     *
+     * @return причина отказа или {@code null}, если перевод может быть выполнен
+     */
+    private String checkTransfer(UUID userId, CardTransferDto dto, Card fromCard, Card toCard, BigDecimal fromBalance) {
+        if (!fromCard.isOwnedBy(userId) || !toCard.isOwnedBy(userId)) {
+            return "Перевод возможен только между своими картами.";
+        }
+        if (!fromCard.getStatus().equals(CardStatus.ACTIVE) || !toCard.getStatus().equals(CardStatus.ACTIVE)) {
+            return "Перевод возможен только между активными картами.";
+        }
+        if (fromBalance.compareTo(dto.amount()) < 0) {
+            return "Недостаточно средств для перевода.";
+        }
+        return null;
+    }
+
+    private BigDecimal balanceOf(UUID cardId, Map<UUID, Card> cards, Map<UUID, BigDecimal> balances) {
+        BigDecimal pending = balances.get(cardId);
+        return pending != null ? pending : cards.get(cardId).getBalance();
+    }
+
     private User findUserByIdOrThrow(UUID userId) {
         return userRepository.findById(userId).orElseThrow(() -> {
             log.warn("Пользователь с id={} не найден.", userId);
             return new NotFoundException("Пользователь с id=" + userId + " не найден.");
         });
     }
-
-    private User findUserByUsernameOrThrow(String username) {
-        return userRepository.findByUsername(username).orElseThrow(() -> {
-            log.warn("Пользователь с username={} не найден.", username);
-            return new NotFoundException("Пользователь не найден.");
-        });
-    }
 }
@@ -0,0 +1,114 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.repository.CardBalanceStripeRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardStripeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Реализация сервиса разбиения баланса карты на части.
+ * <p>
+ * Зачисление на карту с разбиением изменяет одну случайную часть баланса; строка {@code cards}
+ * при этом только читается, так что одновременные зачисления на горячую карту распределяются
+ * по {@code stripeCount} независимым строкам. Перенос частей в основной баланс блокирует сначала строку
+ * карты, а затем её части в порядке номеров, и выполняется на шаге этой карты в порядке блокировки карт,
+ * поэтому перенос не может попасть во взаимную блокировку с другими переводами.
+ * Все методы выполняются только внутри транзакции перевода или администрирования карты.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+@Slf4j
+public class CardStripeServiceImpl implements CardStripeService {
+    private final CardRepository cardRepository;
+    private final CardBalanceStripeRepository stripeRepository;
+
+    /**
+     * Зачисляет сумму на случайную часть баланса карты. Количество частей читается отдельным скалярным
+     * запросом без блокировки строки карты и без загрузки сущности с суммой её частей; владелец и статус
+     * проверяются тем же оператором, что изменяет часть баланса.
+     * Сумма частей входит в состояние карты, поэтому запись карты в кэше второго уровня блокируется
+     * до завершения транзакции.
+     *
+     * @param cardId  идентификатор карты
+     * @param ownerId идентификатор владельца карты
+     * @param amount  сумма зачисления
+     * @return {@code true}, если баланс карты разбит и зачисление выполнено
+     */
+    @Override
+    public boolean credit(UUID cardId, UUID ownerId, BigDecimal amount) {
+        int stripeCount = cardRepository.findStripeCount(cardId).orElse(0);
+        if (stripeCount == 0) {
+            return false;
+        }
+        cardRepository.lockCacheEntry(cardId);
+        int stripe = ThreadLocalRandom.current().nextInt(stripeCount);
+        return stripeRepository.credit(cardId, stripe, ownerId, amount) == 1;
+    }
+
+    /**
+     * Блокирует строку карты и переносит её части баланса в основной баланс.
+     * Вызывается, когда условное списание не прошло: недостающие средства могут находиться в частях.
+     * Основной баланс изменяется оператором {@code UPDATE}, а не через сущность, чтобы не зависеть
+     * от состояния карты, уже загруженной в текущую транзакцию.
+     *
+     * @param cardId  идентификатор карты
+     * @param ownerId идентификатор владельца карты
+     * @return {@code true}, если в основной баланс перенесена ненулевая сумма
+     */
+    @Override
+    public boolean consolidate(UUID cardId, UUID ownerId) {
+        if (cardRepository.lockStripedCard(cardId, ownerId).isEmpty()) {
+            return false;
+        }
+        BigDecimal total = drain(stripeRepository.findAllByCardIdForUpdate(cardId));
+        if (total.signum() == 0) {
+            return false;
+        }
+        cardRepository.addToBalance(cardId, total);
+        log.debug("Части баланса перенесены в основной баланс. cardId={}, amount={}", cardId, total);
+        return true;
+    }
+
+    @Override
+    public void configure(Card card, int stripeCount) {
+        List<CardBalanceStripe> stripes = stripeRepository.findAllByCardIdForUpdate(card.getId());
+        card.setBalance(card.getBalance().add(drain(stripes)));
+        card.setStripedBalance(BigDecimal.ZERO);
+        if (stripes.size() > stripeCount) {
+            stripeRepository.deleteAll(stripes.subList(stripeCount, stripes.size()));
+        }
+        List<CardBalanceStripe> added = new ArrayList<>();
+        for (int stripe = stripes.size(); stripe < stripeCount; stripe++) {
+            added.add(new CardBalanceStripe(card.getId(), stripe, BigDecimal.ZERO));
+        }
+        stripeRepository.saveAll(added);
+        card.setStripeCount(stripeCount);
+
+        log.debug("Изменено количество частей баланса карты. cardId={}, stripeCount={}", card.getId(), stripeCount);
+    }
+
+    /**
+     * Обнуляет загруженные части баланса и возвращает их сумму.
+     */
+    private static BigDecimal drain(List<CardBalanceStripe> stripes) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CardBalanceStripe stripe : stripes) {
+            total = total.add(stripe.getBalance());
+            stripe.setBalance(BigDecimal.ZERO);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.GroupTransfer;
+import com.example.bankcards.dto.card.GroupTransferResult;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.GroupCommitService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация групповой фиксации переводов.
+ * <p>
+ * Вызывающие потоки ставят переводы в ограниченную очередь и ждут результата. Поток фиксации забирает
+ * первый перевод, затем добирает поступившие в течение окна {@code bank.transfer.group-commit.window},
+ * но не более {@code bank.transfer.group-commit.max-batch}, и выполняет их в одной транзакции
+ * ({@link CardService#transferGroup}). Карты группы блокируются одним упорядоченным запросом, переводы
+ * проверяются в памяти, а изменённые балансы и записи журнала записываются пакетами JDBC; отклонённый
+ * перевод ничего не изменяет, а остальные фиксируются одним {@code COMMIT}.
+ * <p>
+ * Переводы, которым для списания нужны части баланса карты, выполняются после фиксации группы по одному,
+ * каждый в своей транзакции.
+ * <p>
+ * Если транзакция группы не удалась целиком (например, из-за ошибки базы данных), переводы группы
+ * выполняются повторно по одному, каждый в своей транзакции.
+ * <p>
+ * Режим включается свойством {@code bank.transfer.group-commit.enabled}; в выключенном режиме перевод
+ * сразу выполняется в вызывающем потоке.
+ */
+@Service
+@Slf4j
+public class GroupCommitServiceImpl implements GroupCommitService {
+    private final CardService cardService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public GroupCommitServiceImpl(CardService cardService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.transfer.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${bank.transfer.group-commit.window:PT0.002S}") Duration window,
+                                  @Value("${bank.transfer.group-commit.max-batch:256}") int maxBatch,
+                                  @Value("${bank.transfer.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.cardService = cardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.committer = new Thread(this::run, "transfer-group-commit");
+        if (enabled) {
+            committer.start();
+        }
+    }
+
+    /**
+     * Ставит перевод в очередь групповой фиксации и ждёт его результата.
+     *
+     * @param userId   идентификатор пользователя, выполняющего перевод
+     * @param dto      параметры перевода
+     * @throws NotFoundException           если пользователь или одна из карт не найдены
+     * @throws ConflictException           если перевод отклонён; некорректные параметры отклоняются
+     *                                     до постановки в очередь
+     * @throws ServiceUnavailableException если очередь переполнена или сервис останавливается
+     */
+    @Override
+    public void transfer(UUID userId, CardTransferDto dto) {
+        if (!enabled) {
+            cardService.transfer(userId, dto);
+            return;
+        }
+
+        cardService.checkTransferRequest(dto);
+        PendingTransfer pending = new PendingTransfer(userId, dto, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            log.warn("Очередь групповой фиксации переполнена. size={}", queue.size());
+            throw new ServiceUnavailableException("Очередь переводов переполнена, повторите запрос позже.");
+        }
+        try {
+            pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        committer.interrupt();
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(
+                    new ServiceUnavailableException("Сервис останавливается, повторите запрос позже."));
+        }
+    }
+
+    private void run() {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+        batch.forEach(pending -> pending.result().completeExceptionally(
+                new ServiceUnavailableException("Сервис останавливается, повторите запрос позже.")));
+    }
+
+    /**
+     * Выполняет группу переводов одной транзакцией и сообщает результат каждому вызывающему после фиксации.
+     */
+    void commit(List<PendingTransfer> batch) {
+        List<GroupTransferResult> results;
+        try {
+            results = transactionTemplate.execute(status -> cardService.transferGroup(batch.stream()
+                    .map(pending -> new GroupTransfer(pending.userId(), pending.dto()))
+                    .toList()));
+        } catch (RuntimeException e) {
+            log.warn("Групповая фиксация не удалась, переводы выполняются по одному. size={}", batch.size(), e);
+            batch.forEach(this::applySeparately);
+            return;
+        }
+
+        List<PendingTransfer> deferred = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingTransfer pending = batch.get(i);
+            GroupTransferResult result = results.get(i);
+            switch (result.status()) {
+                case APPLIED -> pending.result().complete(null);
+                case REJECTED -> {
+                    rejected++;
+                    pending.result().completeExceptionally(result.rejection());
+                }
+                case DEFERRED -> deferred.add(pending);
+            }
+        }
+        log.debug("Групповая фиксация переводов. size={}, rejected={}, deferred={}",
+                batch.size(), rejected, deferred.size());
+        deferred.forEach(this::applySeparately);
+    }
+
+    private void applySeparately(PendingTransfer pending) {
+        try {
+            cardService.transfer(pending.userId(), pending.dto());
+            pending.result().complete(null);
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    record PendingTransfer(UUID userId, CardTransferDto dto, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.util.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Реализация сервиса идемпотентного выполнения переводов.
+ * <p>
+ * Результаты обработанных ключей хранятся в таблице {@code idempotency_keys}. Перед ней стоит
+ * ограниченный LRU-кэш последних ключей, поэтому большинство повторов не обращается к базе данных.
+ * Запись об успешном переводе сохраняется в одной транзакции с самим переводом: если два одинаковых
+ * запроса выполняются одновременно, уникальный индекс по (user_id, idempotency_key) откатывает
+ * перевод проигравшего запроса, и он получает результат победителя.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final CardService cardService;
+    private final TransactionTemplate transactionTemplate;
+    private final LruCache<String, IdempotencyKey> recentKeys;
+    private final Duration keyTtl;
+    private final int cleanupChunkSize;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  CardService cardService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.idempotency.cache-size:10000}") int cacheSize,
+                                  @Value("${bank.idempotency.ttl:PT24H}") Duration keyTtl,
+                                  @Value("${bank.idempotency.cleanup.chunk-size:1000}") int cleanupChunkSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.cardService = cardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentKeys = new LruCache<>(cacheSize);
+        this.keyTtl = keyTtl;
+        this.cleanupChunkSize = cleanupChunkSize;
+    }
+
+    /**
+     * Выполняет перевод не более одного раза для пары (пользователь, ключ идемпотентности).
+     * <p>
+     * Порядок обработки:
+     * <ol>
+     *     <li>Проверка параметров перевода без обращения к базе данных ({@link CardService#checkTransferRequest});</li>
+     *     <li>Поиск ключа в LRU-кэше, затем в базе данных; найденный результат воспроизводится;</li>
+     *     <li>Выполнение перевода и сохранение ключа в одной транзакции;</li>
+     *     <li>Сохранение ошибки перевода ({@code 404}/{@code 409}) отдельной транзакцией,
+     *     чтобы повтор получил ту же ошибку.</li>
+     * </ol>
+     *
+     * @param userId         идентификатор пользователя, выполняющего перевод
+     * @param idempotencyKey значение заголовка {@code Idempotency-Key}
+     * @param dto            параметры перевода
+     * @throws ConflictException если ключ уже использован с другими параметрами или перевод отклонён
+     * @throws NotFoundException если пользователь или карта не найдены
+     */
+    @Override
+    public void transfer(UUID userId, String idempotencyKey, CardTransferDto dto) {
+        cardService.checkTransferRequest(dto);
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = hashRequest(dto);
+
+        IdempotencyKey processed = findProcessedKey(cacheKey, userId, idempotencyKey);
+        if (processed != null) {
+            replay(processed, requestHash);
+            return;
+        }
+
+        IdempotencyKey record = newKey(userId, idempotencyKey, requestHash);
+        try {
+            record.setResponseStatus(HttpStatus.OK.value());
+            transactionTemplate.executeWithoutResult(status -> {
+                cardService.transfer(userId, dto);
+                idempotencyKeyRepository.saveAndFlush(record);
+            });
+        } catch (ConflictException | NotFoundException e) {
+            HttpStatus status = e instanceof NotFoundException ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+            IdempotencyKey failure = newKey(userId, idempotencyKey, requestHash);
+            failure.setResponseStatus(status.value());
+            failure.setResponseMessage(e.getMessage());
+            try {
+                idempotencyKeyRepository.saveAndFlush(failure);
+            } catch (DataIntegrityViolationException race) {
+                replayConcurrentWinner(cacheKey, userId, idempotencyKey, requestHash);
+                return;
+            }
+            recentKeys.put(cacheKey, failure);
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            replayConcurrentWinner(cacheKey, userId, idempotencyKey, requestHash);
+            return;
+        }
+        recentKeys.put(cacheKey, record);
+    }
+
+    /**
+     * Удаляет просроченные ключи порциями по {@code bank.idempotency.cleanup.chunk-size} строк,
+     * каждая порция в отдельной транзакции, чтобы не держать длинные блокировки на таблице.
+     */
+    @Scheduled(fixedDelayString = "${bank.idempotency.cleanup.interval:PT10M}")
+    public void deleteExpiredKeys() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(keyTtl);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepository.deleteExpiredChunk(cutoff, cleanupChunkSize);
+            total += deleted;
+        } while (deleted == cleanupChunkSize);
+
+        if (total > 0) {
+            log.debug("Удалены просроченные ключи идемпотентности. count={}", total);
+        }
+    }
+
+    private IdempotencyKey findProcessedKey(String cacheKey, UUID userId, String idempotencyKey) {
+        IdempotencyKey cached = recentKeys.get(cacheKey);
+        if (cached != null) {
+            if (!isExpired(cached)) {
+                return cached;
+            }
+            recentKeys.remove(cacheKey);
+        }
+
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElse(null);
+        if (stored == null) {
+            return null;
+        }
+        if (isExpired(stored)) {
+            idempotencyKeyRepository.delete(stored);
+            return null;
+        }
+        recentKeys.put(cacheKey, stored);
+        return stored;
+    }
+
+    private void replayConcurrentWinner(String cacheKey, UUID userId, String idempotencyKey, String requestHash) {
+        IdempotencyKey winner = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> new ConflictException("Запрос с этим ключом идемпотентности уже выполняется."));
+        recentKeys.put(cacheKey, winner);
+        replay(winner, requestHash);
+    }
+
+    private void replay(IdempotencyKey processed, String requestHash) {
+        if (!processed.getRequestHash().equals(requestHash)) {
+            log.warn("Ключ идемпотентности использован для другого запроса. userId={}, key={}",
+                    processed.getUserId(), processed.getIdempotencyKey());
+            throw new ConflictException("Ключ идемпотентности уже использован для другого запроса.");
+        }
+
+        log.debug("Повторный запрос, возвращается исходный результат. userId={}, key={}, status={}",
+                processed.getUserId(), processed.getIdempotencyKey(), processed.getResponseStatus());
+        if (processed.getResponseStatus() == HttpStatus.NOT_FOUND.value()) {
+            throw new NotFoundException(processed.getResponseMessage());
+        }
+        if (processed.getResponseStatus() == HttpStatus.CONFLICT.value()) {
+            throw new ConflictException(processed.getResponseMessage());
+        }
+    }
+
+    private boolean isExpired(IdempotencyKey key) {
+        return key.getCreatedAt().isBefore(LocalDateTime.now().minus(keyTtl));
+    }
+
+    private IdempotencyKey newKey(UUID userId, String idempotencyKey, String requestHash) {
+        IdempotencyKey key = new IdempotencyKey();
+        key.setUserId(userId);
+        key.setIdempotencyKey(idempotencyKey);
+        key.setRequestHash(requestHash);
+        key.setCreatedAt(LocalDateTime.now());
+        return key;
+    }
+
+    private String hashRequest(CardTransferDto dto) {
+        String canonical = dto.fromCardId() + ":" + dto.toCardId() + ":" + dto.amount().stripTrailingZeros().toPlainString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
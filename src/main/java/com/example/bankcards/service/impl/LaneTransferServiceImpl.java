@@ -0,0 +1,189 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferStatusDto;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.util.LruCache;
+import com.example.bankcards.util.TransferStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Реализация асинхронных переводов на однопоточных очередях («полосах») карт.
+ * <p>
+ * Каждая карта закреплена за одной из {@code bank.transfer.lanes.count} полос по хешу её идентификатора.
+ * Полоса выполняет свои задачи строго по одной и в порядке поступления, поэтому переводы с участием
+ * одной карты не ждут друг друга на блокировках строк в базе данных, а выстраиваются в очередь полосы.
+ * <p>
+ * Если карты перевода закреплены за разными полосами, перевод ставится в обе очереди: полоса с меньшим
+ * номером, дойдя до него, передаёт управление полосе с большим номером и ждёт, пока та выполнит перевод.
+ * Постановка в обе очереди выполняется под общей блокировкой, поэтому порядок задач во всех очередях
+ * согласован с единым порядком поступления: переводы одной карты выполняются в порядке поступления,
+ * а циклическое ожидание полос невозможно.
+ * <p>
+ * Режим включается свойством {@code bank.transfer.lanes.enabled}. Состояния переводов хранятся
+ * в ограниченном LRU-кэше и со временем вытесняются.
+ */
+@Service
+@ConditionalOnProperty(prefix = "bank.transfer.lanes", name = "enabled", havingValue = "true")
+@Slf4j
+public class LaneTransferServiceImpl implements AsyncTransferService {
+    private final CardService cardService;
+    private final ThreadPoolExecutor[] lanes;
+    private final LruCache<UUID, TransferRecord> transfers;
+
+    public LaneTransferServiceImpl(CardService cardService,
+                                   @Value("${bank.transfer.lanes.count:8}") int laneCount,
+                                   @Value("${bank.transfer.lanes.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${bank.transfer.lanes.status-cache-size:100000}") int statusCacheSize) {
+        this.cardService = cardService;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "transfer-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, name));
+        }
+        this.transfers = new LruCache<>(statusCacheSize);
+    }
+
+    /**
+     * Ставит перевод в очередь полосы его карт; если карты закреплены за разными полосами — в очереди обеих полос.
+     *
+     * @param userId   идентификатор пользователя, выполняющего перевод
+     * @param dto      параметры перевода
+     * @return состояние {@link TransferStatus#QUEUED} с идентификатором перевода
+     * @throws ConflictException           если параметры перевода некорректны (проверяются до постановки в очередь)
+     * @throws ServiceUnavailableException если очередь полосы переполнена
+     */
+    @Override
+    public CardTransferStatusDto submit(UUID userId, CardTransferDto dto) {
+        cardService.checkTransferRequest(dto);
+        UUID transferId = UUID.randomUUID();
+        int fromLane = laneOf(dto.fromCardId());
+        int toLane = laneOf(dto.toCardId());
+        int first = Math.min(fromLane, toLane);
+        int second = Math.max(fromLane, toLane);
+
+        CardTransferStatusDto queued = new CardTransferStatusDto(transferId, TransferStatus.QUEUED, null);
+        transfers.put(transferId, new TransferRecord(userId, queued));
+
+        Runnable apply = () -> apply(transferId, userId, dto);
+        synchronized (lanes) {
+            try {
+                if (first == second) {
+                    lanes[first].execute(apply);
+                } else {
+                    enqueueHandOff(first, second, apply);
+                }
+            } catch (RejectedExecutionException e) {
+                transfers.remove(transferId);
+                log.warn("Очередь полосы переводов переполнена. lane={}, userId={}", first, userId);
+                throw new ServiceUnavailableException("Очередь переводов переполнена, повторите запрос позже.");
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Возвращает состояние перевода, если он принадлежит пользователю.
+     *
+     * @param transferId идентификатор перевода
+     * @param userId     идентификатор пользователя, запрашивающего состояние
+     * @return состояние перевода
+     * @throws NotFoundException если перевод не найден, принадлежит другому пользователю или его состояние вытеснено
+     */
+    @Override
+    public CardTransferStatusDto getStatus(UUID transferId, UUID userId) {
+        TransferRecord record = transfers.get(transferId);
+        if (record == null || !record.userId().equals(userId)) {
+            log.warn("Перевод с id={} не найден.", transferId);
+            throw new NotFoundException("Перевод не найден.");
+        }
+        return record.status();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    int laneOf(UUID cardId) {
+        return Math.floorMod(cardId.hashCode(), lanes.length);
+    }
+
+    /**
+     * Ставит перевод в очереди двух полос. Первая полоса, дойдя до перевода, отмечает своё прибытие
+     * и ждёт завершения; вторая полоса ждёт прибытия первой и выполняет перевод.
+     * Если вторая очередь переполнена, задача первой полосы освобождается без выполнения перевода.
+     */
+    private void enqueueHandOff(int first, int second, Runnable apply) {
+        CountDownLatch firstArrived = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        lanes[first].execute(() -> {
+            firstArrived.countDown();
+            awaitUninterruptibly(done);
+        });
+        try {
+            lanes[second].execute(() -> {
+                awaitUninterruptibly(firstArrived);
+                try {
+                    apply.run();
+                } finally {
+                    done.countDown();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            done.countDown();
+            throw e;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(UUID transferId, UUID userId, CardTransferDto dto) {
+        try {
+            cardService.transfer(userId, dto);
+            complete(transferId, userId, TransferStatus.COMPLETED, null);
+        } catch (ConflictException | NotFoundException e) {
+            complete(transferId, userId, TransferStatus.FAILED, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Ошибка выполнения перевода. transferId={}", transferId, e);
+            complete(transferId, userId, TransferStatus.FAILED, "Внутренняя ошибка перевода.");
+        }
+    }
+
+    private void complete(UUID transferId, UUID userId, TransferStatus status, String message) {
+        transfers.put(transferId, new TransferRecord(userId, new CardTransferStatusDto(transferId, status, message)));
+    }
+
+    private record TransferRecord(UUID userId, CardTransferStatusDto status) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.LedgerBalanceView;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.util.LedgerEntryType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Реализация сервиса журнала операций по картам.
+ * <p>
+ * Журнал — аудиторский: источник баланса карты — {@code cards.balance}, который условные {@code UPDATE}
+ * перевода изменяют вместе с проверкой достаточности средств. Записи журнала добавляются в той же
+ * транзакции как дополнительные вставки и не снижают конкуренцию за строку карты. Журнал нужен для
+ * истории операций и сверки: периодические снимки в {@code card_balance_snapshots} фиксируют баланс
+ * на границе по времени создания записей, и каждый новый снимок сверяется с предыдущим и записями между
+ * ними. Расхождения увеличивают счётчик {@code bank.ledger.discrepancies}.
+ * <p>
+ * Идентификаторы записей выделяются блоками на каждый экземпляр приложения, а транзакции фиксируются
+ * в произвольном порядке, поэтому наибольший идентификатор не отделяет учтённые записи от ещё
+ * не зафиксированных. Граница снимка отстаёт от текущего времени на {@code bank.ledger.snapshot.lag}:
+ * к этому моменту транзакции с записями, созданными до границы, уже завершены. Отставание должно
+ * превышать самую долгую транзакцию перевода вместе с расхождением часов экземпляров.
+ */
+@Service
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+    private final CardLedgerRepository cardLedgerRepository;
+    private final CardBalanceSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int snapshotChunkSize;
+    private final Duration snapshotLag;
+    private final Counter discrepancies;
+
+    public LedgerServiceImpl(CardLedgerRepository cardLedgerRepository,
+                             CardBalanceSnapshotRepository snapshotRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${bank.ledger.snapshot.chunk-size:500}") int snapshotChunkSize,
+                             @Value("${bank.ledger.snapshot.lag:PT5M}") Duration snapshotLag) {
+        this.cardLedgerRepository = cardLedgerRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotChunkSize = snapshotChunkSize;
+        this.snapshotLag = snapshotLag;
+        this.discrepancies = meterRegistry.counter("bank.ledger.discrepancies");
+    }
+
+    /**
+     * Добавляет записи списания и зачисления с общим идентификатором перевода.
+     * Выполняется только внутри транзакции перевода.
+     *
+     * @param dto параметры выполненного перевода
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void recordTransfer(CardTransferDto dto) {
+        cardLedgerRepository.saveAll(toEntries(dto, LocalDateTime.now()));
+    }
+
+    /**
+     * Добавляет записи для всех переводов пакета. Идентификаторы записей выделяются
+     * последовательностью блоками, поэтому вставки отправляются пакетами JDBC.
+     *
+     * @param transfers выполненные переводы в порядке выполнения
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void recordTransfers(List<CardTransferDto> transfers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CardLedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (CardTransferDto dto : transfers) {
+            entries.addAll(toEntries(dto, now));
+        }
+        cardLedgerRepository.saveAll(entries);
+    }
+
+    /**
+     * Проходит по всем картам порциями по {@code bank.ledger.snapshot.chunk-size}, каждая порция
+     * в отдельной транзакции, и сохраняет снимки балансов на границе, отстающей от текущего времени
+     * на {@code bank.ledger.snapshot.lag}. Баланс на границе — текущий баланс за вычетом записей журнала,
+     * созданных позже неё.
+     * <p>
+     * Перед перезаписью снимка проверяется, что новый баланс равен предыдущему снимку плюс записи
+     * журнала между их границами; расхождение записывается в лог как ошибка и учитывается в счётчике
+     * {@code bank.ledger.discrepancies}.
+     */
+    @Scheduled(fixedDelayString = "${bank.ledger.snapshot.interval:PT1H}",
+            initialDelayString = "${bank.ledger.snapshot.interval:PT1H}")
+    @Override
+    public void snapshotBalances() {
+        // Граница усекается до секунд, чтобы сравнение с created_at не зависело от точности столбца.
+        LocalDateTime horizon = LocalDateTime.now().minus(snapshotLag).truncatedTo(ChronoUnit.SECONDS);
+        UUID afterId = new UUID(0, 0);
+        int total = 0;
+        List<LedgerBalanceView> current;
+        do {
+            current = cardLedgerRepository.readBalances(afterId, horizon, Limit.of(snapshotChunkSize));
+            if (current.isEmpty()) {
+                break;
+            }
+            List<LedgerBalanceView> chunk = current;
+            total += Objects.requireNonNull(transactionTemplate.execute(status ->
+                    saveChangedSnapshots(chunk, horizon)));
+            afterId = current.get(current.size() - 1).cardId();
+        } while (current.size() == snapshotChunkSize);
+
+        if (total > 0) {
+            log.debug("Сохранены снимки балансов карт. count={}, coveredUntil={}", total, horizon);
+        }
+    }
+
+    private int saveChangedSnapshots(List<LedgerBalanceView> balances, LocalDateTime horizon) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CardBalanceSnapshot> changed = new ArrayList<>();
+        for (LedgerBalanceView view : balances) {
+            BigDecimal balance = view.balanceAtHorizon();
+            if (view.previousBalance() != null) {
+                BigDecimal expected = view.previousBalance().add(view.sincePrevious());
+                if (expected.compareTo(balance) != 0) {
+                    discrepancies.increment();
+                    log.error("Баланс карты расходится с журналом. cardId={}, balance={}, expected={}",
+                            view.cardId(), balance, expected);
+                } else if (view.sincePrevious().signum() == 0) {
+                    continue;
+                }
+            }
+            changed.add(new CardBalanceSnapshot(view.cardId(), balance, horizon, now));
+        }
+        snapshotRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private List<CardLedgerEntry> toEntries(CardTransferDto dto, LocalDateTime createdAt) {
+        UUID transferId = UUID.randomUUID();
+        return List.of(
+                new CardLedgerEntry(null, dto.fromCardId(), transferId, LedgerEntryType.DEBIT,
+                        dto.amount().negate(), createdAt),
+                new CardLedgerEntry(null, dto.toCardId(), transferId, LedgerEntryType.CREDIT,
+                        dto.amount(), createdAt));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.PooledPasswordEncoder;
+import com.example.bankcards.service.PasswordRehashService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Реализация сервиса перехеширования паролей.
+ * <p>
+ * Новый хеш вычисляется в пуле {@link PooledPasswordEncoder} и сохраняется условным {@code UPDATE}:
+ * если пароль успели изменить параллельно, новый хеш отбрасывается. При заполненной очереди пула
+ * перехеширование пропускается и будет повторено при следующем входе.
+ * <p>
+ * Запись в базу данных выполняется в общем пуле задач приложения, а не в потоке пула хеширования:
+ * иначе ожидание соединения и {@code UPDATE} занимали бы один из немногих потоков BCrypt.
+ * Выполненные перехеширования учитываются в метрике {@code bank.password.rehashed}.
+ */
+@Service
+@Slf4j
+public class PasswordRehashServiceImpl implements PasswordRehashService {
+    private final PooledPasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final Executor ioExecutor;
+
+    public PasswordRehashServiceImpl(PooledPasswordEncoder passwordEncoder,
+                                     UserRepository userRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                     Executor ioExecutor) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @Override
+    public void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+
+        passwordEncoder.encodeAsync(rawPassword).whenCompleteAsync((newPassword, error) -> {
+            if (error != null) {
+                log.debug("Перехеширование пароля пропущено. userId={}, reason={}", user.getId(), error.getMessage());
+                return;
+            }
+            try {
+                if (userRepository.replacePassword(user, newPassword) == 1) {
+                    meterRegistry.counter("bank.password.rehashed").increment();
+                    log.debug("Пароль перехеширован с новой стоимостью. userId={}", user.getId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Не удалось сохранить перехешированный пароль. userId={}", user.getId(), e);
+            }
+        }, ioExecutor);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.jwt.JwtAuthDto;
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.AuthException;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.security.JwtClaims;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.RevokedTokenRegistry;
+import com.example.bankcards.service.RefreshTokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса refresh token.
+ * <p>
+ * Каждый refresh token хранится в таблице {@code refresh_tokens} под своим {@code jti} и одноразов:
+ * при обновлении он отзывается условным {@code UPDATE}, а вместо него выдаётся новый. Перед обращением
+ * к базе данных токен проверяется по {@link RevokedTokenRegistry}, поэтому повтор уже использованного
+ * токена обычно отклоняется без запроса. Повторное предъявление отозванного токена считается признаком
+ * утечки, и все действующие токены владельца отзываются.
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final JwtService jwtService;
+    private final Duration tokenTtl;
+    private final int cleanupChunkSize;
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   RevokedTokenRegistry revokedTokenRegistry,
+                                   JwtService jwtService,
+                                   @Value("${bank.security.refresh-token.ttl:P15D}") Duration tokenTtl,
+                                   @Value("${bank.security.refresh-token.cleanup.chunk-size:1000}")
+                                   int cleanupChunkSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenRegistry = revokedTokenRegistry;
+        this.jwtService = jwtService;
+        this.tokenTtl = tokenTtl;
+        this.cleanupChunkSize = cleanupChunkSize;
+    }
+
+    @Override
+    @Transactional
+    public JwtAuthDto issue(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken token = refreshTokenRepository.save(
+                new RefreshToken(null, user.getId(), now, now.plus(tokenTtl), null));
+
+        JwtAuthDto jwtDto = new JwtAuthDto();
+        jwtDto.setToken(jwtService.generateAccessToken(user));
+        jwtDto.setRefreshToken(jwtService.generateRefreshToken(user, token.getId(), toInstant(token.getExpiresAt())));
+        return jwtDto;
+    }
+
+    @Override
+    @Transactional(noRollbackFor = AuthException.class)
+    public void consume(JwtClaims claims) {
+        UUID tokenId = claims.tokenId();
+        if (tokenId == null || claims.expiresAt() == null) {
+            throw new AuthException("Invalid refresh token");
+        }
+        if (revokedTokenRegistry.isRevoked(tokenId)
+                || refreshTokenRepository.revoke(tokenId, LocalDateTime.now()) == 0) {
+            revokeAllAfterReuse(tokenId);
+            throw new AuthException("Invalid refresh token");
+        }
+        registerRevoked(tokenId, claims.expiresAt());
+    }
+
+    /**
+     * Загружает отозванные и ещё не истёкшие токены в список отзыва после старта приложения.
+     * Чтение выполняется в изменяющей транзакции, чтобы идти в основную базу: реплика с задержкой
+     * вернула бы не все отзывы, и отозванные токены снова принимались бы.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void loadRevokedTokens() {
+        Map<UUID, Instant> revoked = refreshTokenRepository
+                .findByRevokedAtIsNotNullAndExpiresAtAfter(LocalDateTime.now()).stream()
+                .collect(Collectors.toMap(RefreshToken::getId, token -> toInstant(token.getExpiresAt())));
+        revokedTokenRegistry.reload(revoked);
+    }
+
+    /**
+     * Удаляет истёкшие токены порциями по {@code bank.security.refresh-token.cleanup.chunk-size} строк
+     * и вычищает их из списка отзыва.
+     */
+    @Scheduled(fixedDelayString = "${bank.security.refresh-token.cleanup.interval:PT1H}")
+    public void deleteExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredChunk(now, cleanupChunkSize);
+            total += deleted;
+        } while (deleted == cleanupChunkSize);
+        revokedTokenRegistry.evictExpired(toInstant(now));
+
+        if (total > 0) {
+            log.debug("Удалены истёкшие refresh token. count={}", total);
+        }
+    }
+
+    private void revokeAllAfterReuse(UUID tokenId) {
+        refreshTokenRepository.findById(tokenId).ifPresent(reused -> {
+            log.warn("Повторное использование refresh token, отзываются все токены пользователя. userId={}",
+                    reused.getUserId());
+            List<RefreshToken> active = refreshTokenRepository.findByUserIdAndRevokedAtIsNull(reused.getUserId());
+            refreshTokenRepository.revokeAllByUserId(reused.getUserId(), LocalDateTime.now());
+            active.forEach(token -> registerRevoked(token.getId(), toInstant(token.getExpiresAt())));
+        });
+    }
+
+    /**
+     * Добавляет токен в список отзыва после фиксации транзакции, чтобы откат не оставил в памяти
+     * отзыв, которого нет в базе данных.
+     */
+    private void registerRevoked(UUID tokenId, Instant expiresAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revokedTokenRegistry.revoke(tokenId, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revokedTokenRegistry.revoke(tokenId, expiresAt);
+            }
+        });
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
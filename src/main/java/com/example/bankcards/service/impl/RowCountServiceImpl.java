@@ -0,0 +1,60 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.repository.TableStatisticsRepository;
+import com.example.bankcards.service.RowCountService;
+import com.example.bankcards.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Реализация сервиса приблизительного подсчёта строк.
+ * <p>
+ * Для нефильтрованной выборки используется статистика планировщика PostgreSQL. Для фильтрованной —
+ * точный подсчёт, который хранится в LRU-кэше ёмкостью {@code bank.pagination.count-cache.size}
+ * в течение {@code bank.pagination.count-cache.ttl}, поэтому перелистывание страниц одной выборки
+ * выполняет {@code COUNT(*)} не чаще одного раза за это время.
+ */
+@Service
+public class RowCountServiceImpl implements RowCountService {
+    private final TableStatisticsRepository tableStatisticsRepository;
+    private final LruCache<String, CachedCount> counts;
+    private final Duration countTtl;
+
+    public RowCountServiceImpl(TableStatisticsRepository tableStatisticsRepository,
+                               @Value("${bank.pagination.count-cache.size:10000}") int cacheSize,
+                               @Value("${bank.pagination.count-cache.ttl:PT30S}") Duration countTtl) {
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.counts = new LruCache<>(cacheSize);
+        this.countTtl = countTtl;
+    }
+
+    @Override
+    public long approximateCount(String table, List<?> filter, LongSupplier exactCount) {
+        if (filter.stream().allMatch(Objects::isNull)) {
+            OptionalLong estimate = tableStatisticsRepository.estimateRowCount(table);
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
+
+        String key = table + filter;
+        Instant now = Instant.now();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.count();
+        }
+        long count = exactCount.getAsLong();
+        counts.put(key, new CachedCount(count, now.plus(countTtl)));
+        return count;
+    }
+
+    private record CachedCount(long count, Instant expiresAt) {
+    }
+}
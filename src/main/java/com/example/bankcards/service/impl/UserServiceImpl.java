@@ -1,22 +1,27 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.page.PageCursor;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.dto.user.UserCreateDto;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.RowCountService;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.CountMode;
 import com.example.bankcards.util.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * Реализация сервиса управления пользователями.
  * <p>
@@ -27,9 +32,12 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl implements UserService {
+    private static final String USERS_TABLE = "users";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final RowCountService rowCountService;
 
     /**
      * Создаёт нового пользователя на основе переданного DTO.
@@ -39,7 +47,8 @@ public class UserServiceImpl implements UserService {
      *     <li>Проверку уникальности username;</li>
      *     <li>Хеширование пароля через {@link PasswordEncoder};</li>
      *     <li>Преобразование DTO → entity через {@link UserMapper#toEntity(UserCreateDto, PasswordEncoder)};</li>
-     *     <li>Сохранение пользователя в базе данных.</li>
+     *     <li>Сохранение пользователя в базе данных; username вытесняется из кэша пользователей
+     *     слушателем сущности {@link com.example.bankcards.security.UserChangeListener}.</li>
      * </ol>
      *
      * @param dto DTO с данными нового пользователя
@@ -64,15 +73,40 @@ public class UserServiceImpl implements UserService {
      * <p>
      * Используется для административного просмотра всех пользователей.
      *
-     * @param page номер страницы (начиная с 0)
-     * @param size количество элементов на странице
+     * @param page  номер страницы (начиная с 0)
+     * @param size  количество элементов на странице
+     * @param count способ подсчёта общего количества пользователей
      * @return объект {@link PageResponse} с метаданными и списком пользователей
      */
     @Transactional(readOnly = true)
     @Override
-    public PageResponse<UserDto> getUsers(int page, int size) {
+    public PageResponse<UserDto> getUsers(int page, int size, CountMode count) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserDto> userDtoPage = userRepository.findAll(pageable).map(userMapper::toDto);
-        return PageResponse.from(userDtoPage);
+        return switch (count) {
+            case EXACT -> PageResponse.from(userRepository.findAll(pageable).map(userMapper::toDto));
+            case NONE -> PageResponse.fromSlice(userRepository.findSliceBy(pageable).map(userMapper::toDto));
+            case APPROX -> PageResponse.fromSlice(userRepository.findSliceBy(pageable).map(userMapper::toDto),
+                    rowCountService.approximateCount(USERS_TABLE, List.of(), userRepository::count));
+        };
+    }
+
+    /**
+     * Возвращает страницу пользователей, следующую за курсором, в порядке (username, id).
+     * <p>
+     * Страница читается по уникальному индексу username без {@code OFFSET} и без подсчёта общего количества.
+     *
+     * @param cursor курсор предыдущей страницы или пустая строка для первой
+     * @param size   количество элементов на странице
+     * @return объект {@link PageResponse} со списком пользователей и курсором следующей страницы
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public PageResponse<UserDto> getUsersByCursor(String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<User> users = after == null
+                ? userRepository.findAllByOrderByUsernameAscIdAsc(Limit.of(size + 1))
+                : userRepository.findAllAfter(after.sortKey(), after.id(), Limit.of(size + 1));
+        return PageResponse.fromKeyset(users, size,
+                user -> new PageCursor(user.getUsername(), user.getId()), userMapper::toDto);
     }
 }
@@ -0,0 +1,32 @@
+package com.example.bankcards.util;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Единый порядок, в котором транзакции блокируют строки нескольких карт.
+ * <p>
+ * Идентификаторы сравниваются как 16 беззнаковых байт — так тип {@code uuid} упорядочивают PostgreSQL и H2.
+ * {@link UUID#compareTo} сравнивает знаковые {@code long} и расходится с этим порядком, если у идентификаторов
+ * различается старший бит, поэтому для упорядочивания блокировок он не подходит.
+ */
+public final class CardLockOrder {
+
+    /**
+     * Сравнивает идентификаторы карт в порядке блокировки.
+     */
+    public static final Comparator<UUID> COMPARATOR = (a, b) -> {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    private CardLockOrder() {
+    }
+
+    /**
+     * Проверяет, блокируется ли карта {@code a} раньше карты {@code b}.
+     */
+    public static boolean isBefore(UUID a, UUID b) {
+        return COMPARATOR.compare(a, b) < 0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.util;
+
+/**
+ * Способ подсчёта общего количества элементов постраничной выборки.
+ */
+public enum CountMode {
+    /**
+     * Без подсчёта: в ответе только признак наличия следующей страницы.
+     */
+    NONE,
+    /**
+     * Оценка: статистика планировщика для выборок без фильтров, кэшированный подсчёт для остальных.
+     */
+    APPROX,
+    /**
+     * Точный {@code COUNT(*)} на каждый запрос.
+     */
+    EXACT
+}
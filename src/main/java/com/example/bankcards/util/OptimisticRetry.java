@@ -0,0 +1,22 @@
+package com.example.bankcards.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Помечает операцию, которая повторяется при конфликте оптимистической блокировки.
+ * <p>
+ * Повтор выполняется в новой транзакции, поэтому метод должен открывать транзакцию сам,
+ * а не присоединяться к транзакции вызывающего.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OptimisticRetry {
+
+    /**
+     * Имя операции в метриках конфликтов и повторов.
+     */
+    String value();
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.util;
+
+public enum TransferBatchMode {
+    ALL_OR_NOTHING, BEST_EFFORT
+}
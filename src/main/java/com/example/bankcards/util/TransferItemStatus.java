@@ -0,0 +1,5 @@
+package com.example.bankcards.util;
+
+public enum TransferItemStatus {
+    APPLIED, REJECTED, ROLLED_BACK
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.util;
+
+public enum TransferStatus {
+    QUEUED, COMPLETED, FAILED
+}
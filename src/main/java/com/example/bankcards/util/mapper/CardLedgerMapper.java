@@ -0,0 +1,12 @@
+package com.example.bankcards.util.mapper;
+
+import com.example.bankcards.dto.card.CardLedgerEntryDto;
+import com.example.bankcards.entity.CardLedgerEntry;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface CardLedgerMapper {
+
+    CardLedgerEntryDto toDto(CardLedgerEntry entry);
+}
@@ -1,17 +1,26 @@
 package com.example.bankcards.util.mapper;
 
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardView;
+import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.entity.Card;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
-@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = UserMapper.class)
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = UserMapper.class,
+        imports = UserDto.class)
 public interface CardMapper {
 
     @Mapping(target = "maskedNumber", expression = "java(maskCard(card.getLast4()))")
+    @Mapping(target = "balance", expression = "java(card.getAvailableBalance())")
     CardDto toDto(Card card);
 
+    @Mapping(target = "owner", expression = "java(new UserDto(view.ownerId(), view.ownerUsername()))")
+    @Mapping(target = "maskedNumber", expression = "java(maskCard(view.last4()))")
+    @Mapping(target = "balance", expression = "java(view.availableBalance())")
+    CardDto toDto(CardView view);
+
     default String maskCard(String last4) {
         return "**** **** **** " + last4;
     }
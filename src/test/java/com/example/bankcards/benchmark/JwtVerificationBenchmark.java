@@ -0,0 +1,89 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.JwtClaims;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.util.UserRole;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает стоимость проверки JWT на один запрос в {@code JwtFilter}.
+ * <ul>
+ *     <li>{@code legacy} — прежняя схема: {@code validateJwtToken} и {@code getUsernameFromToken},
+ *     каждый со своим ключом, парсером и проверкой HMAC;</li>
+ *     <li>{@code singleParse} — {@link JwtService#verify(String)} без кэша: ключ и парсер созданы один раз;</li>
+ *     <li>{@code cached} — {@link JwtService#verify(String)} для токена, уже находящегося в кэше проверенных токенов.</li>
+ * </ul>
+ * Запуск:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.example.bankcards.benchmark.JwtVerificationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "13wsy34ui96yoSmxVAb9+Eg6O+aYmNKuP8oEzzA+kpoF+I3g10lkMJF4BWjfN/Vw";
+
+    private JwtService jwtService;
+    private JwtService cachingJwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET, false, 1);
+        cachingJwtService = new JwtService(SECRET, true, 10_000);
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark-user");
+        user.setRole(UserRole.ROLE_USER);
+        token = jwtService.generateAccessToken(user);
+        cachingJwtService.verify(token);
+    }
+
+    @Benchmark
+    public String legacy() {
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> singleParse() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> cached() {
+        return cachingJwtService.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConflictingOperation operation;
+
+    private ConflictingOperation proxy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        operation = new ConflictingOperation();
+        AspectJProxyFactory factory = new AspectJProxyFactory(operation);
+        factory.addAspect(new OptimisticRetryAspect(meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(5)));
+        proxy = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "operation", "transfer").count();
+    }
+
+    @Test
+    @DisplayName("retry: повторяет операцию после конфликта и учитывает конфликты и повторы")
+    void retry_ShouldRetryUntilSuccess() {
+        operation.conflicts.set(2);
+
+        assertEquals("ok", proxy.transfer());
+
+        assertEquals(3, operation.calls.get());
+        assertEquals(2, count("bank.card.optimistic.conflicts"));
+        assertEquals(2, count("bank.card.optimistic.retries"));
+        assertEquals(0, count("bank.card.optimistic.exhausted"));
+    }
+
+    @Test
+    @DisplayName("retry: передаёт конфликт вызывающему, когда попытки исчерпаны")
+    void retry_ShouldRethrow_WhenAttemptsExhausted() {
+        operation.conflicts.set(10);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.transfer());
+
+        assertEquals(3, operation.calls.get());
+        assertEquals(3, count("bank.card.optimistic.conflicts"));
+        assertEquals(2, count("bank.card.optimistic.retries"));
+        assertEquals(1, count("bank.card.optimistic.exhausted"));
+    }
+
+    @Test
+    @DisplayName("retry: не повторяет операцию, присоединённую к транзакции вызывающего")
+    void retry_ShouldNotRetry_WhenTransactionJoined() {
+        operation.conflicts.set(1);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.transfer());
+
+        assertEquals(1, operation.calls.get());
+        assertEquals(1, count("bank.card.optimistic.conflicts"));
+        assertEquals(0, count("bank.card.optimistic.retries"));
+    }
+
+    static class ConflictingOperation {
+        final AtomicInteger conflicts = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @OptimisticRetry("transfer")
+        public String transfer() {
+            calls.incrementAndGet();
+            if (conflicts.getAndDecrement() > 0) {
+                throw new ObjectOptimisticLockingFailureException("Card", "id");
+            }
+            return "ok";
+        }
+    }
+}
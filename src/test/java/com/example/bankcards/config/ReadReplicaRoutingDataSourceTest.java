@@ -0,0 +1,116 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstReplicaConnection;
+
+    @Mock
+    private Connection secondReplicaConnection;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReadReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ReadReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica),
+                Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("getConnection: вне read-only транзакции выдаёт соединение основной базы")
+    void getConnection_ShouldUsePrimary_WhenNotReadOnly() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(firstReplica, secondReplica);
+    }
+
+    @Test
+    @DisplayName("getConnection: в read-only транзакции обходит реплики по кругу")
+    void getConnection_ShouldRoundRobinReplicas_WhenReadOnly() throws SQLException {
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+        assertSame(secondReplicaConnection, dataSource.getConnection());
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+        verifyNoInteractions(primary);
+        assertEquals(3, meterRegistry.counter("bank.datasource.connections", "target", "replica").count());
+    }
+
+    @Test
+    @DisplayName("getConnection: исключает реплику, не выдавшую соединение, до успешной проверки")
+    void getConnection_ShouldSkipFailedReplica_UntilHealthCheckPasses() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(secondReplicaConnection, dataSource.getConnection());
+        assertSame(secondReplicaConnection, dataSource.getConnection());
+        verify(firstReplica, times(1)).getConnection();
+
+        doReturn(firstReplicaConnection).when(firstReplica).getConnection();
+        when(firstReplicaConnection.isValid(anyInt())).thenReturn(true);
+        when(secondReplicaConnection.isValid(anyInt())).thenReturn(true);
+        dataSource.checkReplicas();
+
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    @DisplayName("getConnection: без доступных реплик выдаёт соединение основной базы")
+    void getConnection_ShouldFallBackToPrimary_WhenNoReplicaAvailable() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        verify(firstReplica, times(1)).getConnection();
+        verify(secondReplica, times(1)).getConnection();
+        assertEquals(2, meterRegistry.counter("bank.datasource.replica.unavailable").count());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.user.UserCreateDto;
+import com.example.bankcards.dto.user.UserCredentialsDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuthService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.UserService;
+import com.example.bankcards.service.impl.RefreshTokenServiceImpl;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.CountMode;
+import com.example.bankcards.util.UserRole;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет маршрутизацию соединений на второй пул H2, подключённый к той же базе как реплика,
+ * и то, что чтения с реплики не пополняют кэш второго уровня.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "bank.datasource.replicas.enabled=true",
+        "bank.datasource.replicas.urls=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "bank.cache.second-level.enabled=true"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTests {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private double connections(String target) {
+        return meterRegistry.counter("bank.datasource.connections", "target", target).count();
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("read-only транзакции читают с реплики, изменяющие — с основной базы")
+    void readOnlyTransactions_ShouldUseReplica() {
+        UUID userId = userRepository.findByUsername("testuser").orElseThrow().getId();
+
+        double primaryBefore = connections("primary");
+        double replicaBefore = connections("replica");
+        cardService.createCardForUser(userId);
+        assertTrue(connections("primary") > primaryBefore);
+        assertEquals(replicaBefore, connections("replica"));
+
+        primaryBefore = connections("primary");
+        assertEquals(1, cardService.getAll(0, 10, CountMode.EXACT, null).content().size());
+        assertEquals(replicaBefore + 1, connections("replica"));
+        assertEquals(primaryBefore, connections("primary"));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Вход сразу после создания пользователя и загрузка отозванных токенов читают основную базу")
+    void authenticationReads_ShouldUsePrimary() {
+        userService.create(new UserCreateDto("fresh-user", "fresh-pass", UserRole.ROLE_USER));
+        entityManagerFactory.getCache().evictAll();
+
+        double replicaBefore = connections("replica");
+        assertNotNull(authService.logIn(new UserCredentialsDto("fresh-user", "fresh-pass")).getToken());
+        refreshTokenService.loadRevokedTokens();
+
+        assertEquals(replicaBefore, connections("replica"));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Карта, прочитанная с реплики, не попадает в кэш второго уровня, а прочитанная с основной базы попадает")
+    void replicaLoads_ShouldNotPopulateSecondLevelCache() {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        UUID cardId = fixtures.createActiveCard(user, BigDecimal.TEN).getId();
+        entityManagerFactory.getCache().evictAll();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        double replicaBefore = connections("replica");
+        readOnly.executeWithoutResult(tx -> cardRepository.findById(cardId).orElseThrow());
+        assertEquals(replicaBefore + 1, connections("replica"));
+        assertFalse(entityManagerFactory.getCache().contains(Card.class, cardId));
+
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(tx -> cardRepository.findById(cardId).orElseThrow());
+        assertTrue(entityManagerFactory.getCache().contains(Card.class, cardId));
+
+        replicaBefore = connections("replica");
+        readOnly.executeWithoutResult(tx -> cardRepository.findById(cardId).orElseThrow());
+        assertEquals(replicaBefore, connections("replica"));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardStripesDto;
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStripeService;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.CardStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет кэш второго уровня: повторное чтение карты и поиск пользователя по имени обходятся без запросов,
+ * а после фиксации изменения баланса или статуса из кэша не читается прежнее значение.
+ */
+@SpringBootTest(properties = {
+        "bank.cache.second-level.enabled=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+class SecondLevelCacheTests {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardStripeService cardStripeService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Скрипты @Sql пишут в базу мимо Hibernate, поэтому кэш предыдущего теста сбрасывается вручную.
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.findByUsername("testuser").orElseThrow();
+    }
+
+    private UUID createCard(BigDecimal balance) {
+        return fixtures.createActiveCard(user, balance).getId();
+    }
+
+    /**
+     * Читает карту по идентификатору в отдельной транзакции: такое чтение обращается к кэшу.
+     */
+    private Card readCard(UUID cardId) {
+        return transactionTemplate.execute(tx -> cardRepository.findById(cardId).orElseThrow());
+    }
+
+    private long cardHits() {
+        return statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.CARDS_REGION).getHitCount();
+    }
+
+    /**
+     * Прогревает кэш и проверяет, что карта действительно читается из него.
+     */
+    private void warmUp(UUID cardId) {
+        readCard(cardId);
+        long hits = cardHits();
+        readCard(cardId);
+        assertEquals(hits + 1, cardHits());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повторное чтение карты по идентификатору не выполняет запросов")
+    void findById_ShouldBeServedFromCache() {
+        UUID cardId = createCard(BigDecimal.TEN);
+        readCard(cardId);
+
+        statistics.clear();
+        Card card = readCard(cardId);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, cardHits());
+        assertEquals(0, BigDecimal.TEN.compareTo(card.getBalance()));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("После перевода из кэша читаются новые балансы обеих карт")
+    void transfer_ShouldNotLeaveStaleBalance() {
+        UUID fromId = createCard(new BigDecimal("100.00"));
+        UUID toId = createCard(BigDecimal.ZERO);
+        warmUp(fromId);
+        warmUp(toId);
+
+        cardService.transfer(user.getId(), new CardTransferDto(fromId, toId, new BigDecimal("30.00")));
+
+        assertEquals(0, new BigDecimal("70.00").compareTo(readCard(fromId).getBalance()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(readCard(toId).getBalance()));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Перевод между двумя картами не сбрасывает из кэша другие карты")
+    void transfer_ShouldNotEvictUnrelatedCards() {
+        UUID fromId = createCard(new BigDecimal("100.00"));
+        UUID toId = createCard(BigDecimal.ZERO);
+        UUID otherId = createCard(BigDecimal.TEN);
+        warmUp(otherId);
+
+        cardService.transfer(user.getId(), new CardTransferDto(fromId, toId, new BigDecimal("30.00")));
+
+        statistics.clear();
+        readCard(otherId);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, cardHits());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("После зачисления на часть баланса из кэша читается новый доступный баланс")
+    void stripeCredit_ShouldNotLeaveStaleAvailableBalance() {
+        UUID cardId = createCard(new BigDecimal("5.00"));
+        cardService.updateCardStripes(cardId, new CardStripesDto(4));
+        warmUp(cardId);
+
+        transactionTemplate.executeWithoutResult(tx ->
+                assertTrue(cardStripeService.credit(cardId, user.getId(), new BigDecimal("30.00"))));
+
+        assertEquals(0, new BigDecimal("35.00").compareTo(readCard(cardId).getAvailableBalance()));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("После изменения статуса из кэша читается новый статус")
+    void updateCardStatus_ShouldNotLeaveStaleStatus() {
+        UUID cardId = createCard(BigDecimal.TEN);
+        warmUp(cardId);
+
+        cardService.updateCardStatus(cardId, new CardNewStatusDto(CardStatus.BLOCKED));
+
+        assertEquals(CardStatus.BLOCKED, readCard(cardId).getStatus());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Очистка нативным запросом не сбрасывает закэшированные карты")
+    void nativeCleanup_ShouldNotEvictCards() {
+        UUID cardId = createCard(BigDecimal.TEN);
+        readCard(cardId);
+
+        idempotencyKeyRepository.deleteExpiredChunk(LocalDateTime.now(), 100);
+
+        statistics.clear();
+        readCard(cardId);
+        assertEquals(1, cardHits());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повторный поиск пользователя по имени обслуживается кэшем натуральных идентификаторов")
+    void findByUsername_ShouldUseNaturalIdCache() {
+        statistics.clear();
+        User found = userRepository.findByUsername("testuser").orElseThrow();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(user.getId(), found.getId());
+        assertTrue(userRepository.findByUsername("missing").isEmpty());
+        assertTrue(meterRegistry.get("bank.cache.second-level.hit-ratio")
+                .tag("region", SecondLevelCacheConfig.USERS_BY_USERNAME_REGION)
+                .gauge().value() > 0);
+    }
+}
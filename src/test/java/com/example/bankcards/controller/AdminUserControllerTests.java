@@ -1,6 +1,5 @@
 package com.example.bankcards.controller;
 
-import com.example.bankcards.dto.jwt.JwtAuthDto;
 import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.dto.user.UserCreateDto;
 import com.example.bankcards.dto.user.UserDto;
@@ -25,6 +24,8 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -54,8 +55,7 @@ class AdminUserControllerTests {
         admin.setRole(UserRole.ROLE_ADMIN);
         userRepository.save(admin);
 
-        JwtAuthDto tokens = jwtService.generateAuthToken(admin);
-        return tokens.getToken();
+        return jwtService.generateAccessToken(admin);
     }
 
     @Test
@@ -97,8 +97,7 @@ class AdminUserControllerTests {
         user.setRole(UserRole.ROLE_USER);
         userRepository.save(user);
 
-        JwtAuthDto tokens = jwtService.generateAuthToken(user);
-        String userToken = tokens.getToken();
+        String userToken = jwtService.generateAccessToken(user);
 
         UserCreateDto createDto = new UserCreateDto("newuser", "pass", UserRole.ROLE_USER);
 
@@ -139,4 +138,40 @@ class AdminUserControllerTests {
         assertNotNull(users);
         assertEquals(2, users.content().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("Просмотр пользователей админом по курсору в порядке username")
+    void getUsers_ShouldReturnPagesInUsernameOrder_WhenCursorUsed() throws Exception {
+        String adminToken = createAdminAndGetToken();
+        for (String username : List.of("user3", "user1", "user2")) {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword("$2a$10$REPLACE_ME_WITH_REAL_BCRYPT_HASH");
+            user.setRole(UserRole.ROLE_USER);
+            userRepository.save(user);
+        }
+
+        PageResponse<UserDto> first = getUsersByCursor(adminToken, "");
+        PageResponse<UserDto> second = getUsersByCursor(adminToken, first.nextCursor());
+
+        assertEquals(List.of("admin", "user1", "user2"), first.content().stream().map(UserDto::username).toList());
+        assertNull(first.totalElements());
+        assertEquals(List.of("user3"), second.content().stream().map(UserDto::username).toList());
+        assertTrue(second.last());
+        assertNull(second.nextCursor());
+    }
+
+    private PageResponse<UserDto> getUsersByCursor(String adminToken, String cursor) throws Exception {
+        String response = mvc.perform(get("/admin/users")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .param("size", "3")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(response, new TypeReference<>() {
+        });
+    }
+}
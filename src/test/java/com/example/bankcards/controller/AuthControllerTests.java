@@ -3,7 +3,12 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.jwt.JwtAuthDto;
 import com.example.bankcards.dto.jwt.RefreshTokenDto;
 import com.example.bankcards.dto.user.UserCredentialsDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtClaims;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.UserRole;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,11 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -34,6 +41,12 @@ class AuthControllerTests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestFixtures testFixtures;
+
     @Test
     @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
     @DisplayName("Удачная авторизация пользователя")
@@ -56,7 +69,7 @@ class AuthControllerTests {
         assertNotNull(jwtDto);
         assertNotNull(jwtDto.getToken());
         assertNotNull(jwtDto.getRefreshToken());
-        assertEquals(credentialsDto.username(), jwtService.getUsernameFromToken(jwtDto.getToken()));
+        assertEquals(credentialsDto.username(), jwtService.verify(jwtDto.getToken()).orElseThrow().username());
     }
 
     @Test
@@ -111,4 +124,107 @@ class AuthControllerTests {
                         .content(objectMapper.writeValueAsString(refreshTokenDto)))
                 .andExpect(status().isUnauthorized());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Неудачная авторизация: превышен лимит попыток входа для пользователя")
+    void negativeLoginTest_TooManyAttempts() throws Exception {
+        String credentialsJson = objectMapper.writeValueAsString(
+                new UserCredentialsDto("throttled-user", "bad_password"));
+
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(post("/auth/login")
+                            .with(request -> {
+                                request.setRemoteAddr("10.0.0.17");
+                                return request;
+                            })
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(credentialsJson))
+                    .andExpect(status().isNotFound());
+        }
+
+        mvc.perform(post("/auth/login")
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.17");
+                            return request;
+                        })
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentialsJson))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Refresh token одноразовый: повторное использование отзывает и выданный взамен токен")
+    void refreshTokenTest_RotationAndReuse() throws Exception {
+        String credentialsJson = objectMapper.writeValueAsString(new UserCredentialsDto("testuser", "pass"));
+        String loginResult = mvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentialsJson))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String firstRefresh = objectMapper.readValue(loginResult, JwtAuthDto.class).getRefreshToken();
+
+        String refreshResult = mvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenDto(firstRefresh))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String secondRefresh = objectMapper.readValue(refreshResult, JwtAuthDto.class).getRefreshToken();
+        assertNotEquals(firstRefresh, secondRefresh);
+
+        mvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenDto(firstRefresh))))
+                .andExpect(status().isUnauthorized());
+
+        mvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenDto(secondRefresh))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Вход после смены роли выдаёт токен с новой ролью, а не роль из кэша пользователей")
+    void loginTest_ShouldUseNewRole_AfterRoleChange() throws Exception {
+        User user = testFixtures.createUser("role-change-user");
+        assertEquals(UserRole.ROLE_USER, logIn("role-change-user", "pass").role());
+
+        user.setRole(UserRole.ROLE_ADMIN);
+        userRepository.save(user);
+
+        assertEquals(UserRole.ROLE_ADMIN, logIn("role-change-user", "pass").role());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Вход после замены пароля проверяет новый хеш, а не хеш из кэша пользователей")
+    void loginTest_ShouldUseNewPassword_AfterPasswordReplaced() throws Exception {
+        User user = testFixtures.createUser("password-change-user");
+        logIn("password-change-user", "pass");
+
+        assertEquals(1, userRepository.replacePassword(user, new BCryptPasswordEncoder().encode("new-pass")));
+
+        logIn("password-change-user", "new-pass");
+        mvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserCredentialsDto("password-change-user", "pass"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private JwtClaims logIn(String username, String password) throws Exception {
+        String result = mvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserCredentialsDto(username, password))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return jwtService.verify(objectMapper.readValue(result, JwtAuthDto.class).getToken()).orElseThrow();
+    }
+}
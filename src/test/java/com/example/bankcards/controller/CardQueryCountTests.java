@@ -0,0 +1,165 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет количество SQL-запросов при чтении карт: списки не должны выполнять запрос на каждую карту
+ * или каждого владельца, а проверка владельца не должна загружать пользователя.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class CardQueryCountTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void createOwnersWithCards(int owners) {
+        for (int i = 0; i < owners; i++) {
+            User owner = fixtures.createUser("owner-" + UUID.randomUUID());
+            fixtures.createActiveCard(owner, BigDecimal.TEN);
+            fixtures.createActiveCard(owner, BigDecimal.TEN);
+        }
+    }
+
+    /**
+     * Выполняет запрос дважды и возвращает число SQL-запросов второго выполнения: первое прогревает
+     * кэш пользователей, который использует фильтр аутентификации.
+     */
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        mvc.perform(request).andExpect(status().isOk());
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        assertEquals(0, statistics.getEntityLoadCount(), "список карт не должен загружать сущности");
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Список карт администратора выполняет одинаковое число запросов при любом числе владельцев")
+    void adminCards_ShouldNotQueryPerOwner() throws Exception {
+        String token = "Bearer " + jwtService.generateAccessToken(fixtures.createUser("admin", UserRole.ROLE_ADMIN));
+
+        createOwnersWithCards(2);
+        long few = statementsFor(get("/admin/cards").header("Authorization", token).param("size", "100"));
+        createOwnersWithCards(8);
+        long many = statementsFor(get("/admin/cards").header("Authorization", token).param("size", "100"));
+
+        assertEquals(few, many);
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Список карт пользователя выполняет одинаковое число запросов при любом числе карт")
+    void userCards_ShouldNotQueryPerCard() throws Exception {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        String token = "Bearer " + jwtService.generateAccessToken(user);
+
+        fixtures.createActiveCard(user, BigDecimal.TEN);
+        long few = statementsFor(get("/users/cards").header("Authorization", token).param("size", "100"));
+        long fewByCursor = statementsFor(get("/users/cards").header("Authorization", token)
+                .param("size", "100").param("cursor", ""));
+        for (int i = 0; i < 10; i++) {
+            fixtures.createActiveCard(user, BigDecimal.TEN);
+        }
+        long many = statementsFor(get("/users/cards").header("Authorization", token).param("size", "100"));
+        long manyByCursor = statementsFor(get("/users/cards").header("Authorization", token)
+                .param("size", "100").param("cursor", ""));
+
+        assertEquals(few, many);
+        assertEquals(fewByCursor, manyByCursor);
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Списки карт в виде CardView читаются одним запросом страницы и, при точном подсчёте, одним COUNT")
+    void cardViewListings_ShouldUseFixedStatementCount() throws Exception {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        String userToken = "Bearer " + jwtService.generateAccessToken(user);
+        String adminToken = "Bearer " + jwtService.generateAccessToken(fixtures.createUser("admin", UserRole.ROLE_ADMIN));
+        fixtures.createActiveCards(user, 3, BigDecimal.TEN);
+
+        assertEquals(2, statementsFor(get("/users/cards").header("Authorization", userToken).param("size", "2")));
+        assertEquals(1, statementsFor(get("/users/cards").header("Authorization", userToken)
+                .param("size", "2").param("count", "NONE")));
+        assertEquals(1, statementsFor(get("/users/cards").header("Authorization", userToken)
+                .param("size", "2").param("cursor", "")));
+        assertEquals(2, statementsFor(get("/admin/cards").header("Authorization", adminToken).param("size", "2")));
+        assertEquals(1, statementsFor(get("/admin/cards").header("Authorization", adminToken)
+                .param("size", "2").param("cursor", "")));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Проверка владельца карты не загружает пользователя")
+    void isOwnedBy_ShouldNotInitializeOwner() {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        UUID cardId = fixtures.createActiveCard(user, BigDecimal.TEN).getId();
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            Card card = cardRepository.findById(cardId).orElseThrow();
+
+            assertTrue(card.isOwnedBy(user.getId()));
+            assertFalse(card.isOwnedBy(UUID.randomUUID()));
+            assertFalse(Hibernate.isInitialized(card.getOwner()));
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferStatusDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.TransferStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "bank.transfer.lanes.enabled=true")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserAsyncTransferControllerTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CardTransferStatusDto submit(String token, CardTransferDto dto) throws Exception {
+        String response = mvc.perform(post("/users/cards/transfers/async")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(response, CardTransferStatusDto.class);
+    }
+
+    private CardTransferStatusDto awaitCompletion(String token, UUID transferId) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        CardTransferStatusDto status;
+        do {
+            String response = mvc.perform(get("/users/cards/transfers/{transferId}", transferId)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            status = objectMapper.readValue(response, CardTransferStatusDto.class);
+            if (status.status() != TransferStatus.QUEUED) {
+                return status;
+            }
+            Thread.sleep(10);
+        } while (System.currentTimeMillis() < deadline);
+        return status;
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Асинхронный перевод выполняется, а его состояние доступно по идентификатору")
+    void submitTransfer_ShouldCompleteAndReportStatus() throws Exception {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = jwtService.generateAccessToken(user);
+
+        CardTransferStatusDto applied = submit(token,
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("300.00")));
+        CardTransferStatusDto rejected = submit(token,
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("5000.00")));
+
+        assertEquals(TransferStatus.COMPLETED, awaitCompletion(token, applied.transferId()).status());
+        CardTransferStatusDto failure = awaitCompletion(token, rejected.transferId());
+        assertEquals(TransferStatus.FAILED, failure.status());
+        assertEquals("Недостаточно средств для перевода.", failure.message());
+        assertEquals(0, new BigDecimal("700.00").compareTo(cardRepository.findById(from.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Состояние неизвестного перевода возвращает 404")
+    void getTransferStatus_ShouldReturnNotFound_WhenTransferUnknown() throws Exception {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        String token = jwtService.generateAccessToken(user);
+
+        mvc.perform(get("/users/cards/transfers/{transferId}", UUID.randomUUID())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.CardStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserCardControllerTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User getTestUser() {
+        return userRepository.findByUsername("testuser").orElseThrow();
+    }
+
+    private String getToken(User user) {
+        return jwtService.generateAccessToken(user);
+    }
+
+    private ResultActions transfer(String token, String idempotencyKey, CardTransferDto dto) throws Exception {
+        return mvc.perform(post("/users/cards/transfer")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)));
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Refresh token не принимается вместо access token")
+    void getCards_ShouldReturnUnauthorized_WhenRefreshTokenUsed() throws Exception {
+        String refreshToken = jwtService.generateRefreshToken(getTestUser(), UUID.randomUUID(),
+                Instant.now().plusSeconds(60));
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повтор перевода с тем же Idempotency-Key не списывает средства повторно")
+    void transfer_ShouldApplyOnce_WhenIdempotencyKeyRepeated() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = getToken(user);
+        String key = UUID.randomUUID().toString();
+        CardTransferDto dto = new CardTransferDto(from.getId(), to.getId(), new BigDecimal("250.00"));
+
+        transfer(token, key, dto).andExpect(status().isOk());
+        transfer(token, key, dto).andExpect(status().isOk());
+
+        assertEquals(0, new BigDecimal("750.00").compareTo(balanceOf(from)));
+        assertEquals(0, new BigDecimal("250.00").compareTo(balanceOf(to)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повтор отклонённого перевода возвращает исходную ошибку, даже если перевод стал возможен")
+    void transfer_ShouldReplayOriginalError_WhenIdempotencyKeyRepeated() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("100.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = getToken(user);
+        String key = UUID.randomUUID().toString();
+        CardTransferDto dto = new CardTransferDto(from.getId(), to.getId(), new BigDecimal("250.00"));
+
+        transfer(token, key, dto)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Недостаточно средств для перевода."));
+
+        from.setBalance(new BigDecimal("1000.00"));
+        cardRepository.save(from);
+
+        transfer(token, key, dto)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Недостаточно средств для перевода."));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balanceOf(from)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повторное использование Idempotency-Key с другими параметрами возвращает 409")
+    void transfer_ShouldReturnConflict_WhenIdempotencyKeyReusedWithDifferentBody() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = getToken(user);
+        String key = UUID.randomUUID().toString();
+
+        transfer(token, key, new CardTransferDto(from.getId(), to.getId(), new BigDecimal("100.00")))
+                .andExpect(status().isOk());
+        transfer(token, key, new CardTransferDto(from.getId(), to.getId(), new BigDecimal("200.00")))
+                .andExpect(status().isConflict());
+
+        assertEquals(0, new BigDecimal("900.00").compareTo(balanceOf(from)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Переводы без Idempotency-Key выполняются при каждом запросе")
+    void transfer_ShouldApplyEachTime_WithoutIdempotencyKey() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = getToken(user);
+        String body = objectMapper.writeValueAsString(
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("100.00")));
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/users/cards/transfer")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(0, new BigDecimal("800.00").compareTo(balanceOf(from)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Пакетный перевод в режиме BEST_EFFORT выполняет корректные переводы и сообщает об отклонённых")
+    void transferBatch_ShouldReportPerItemResults_WhenBestEffort() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        List<CardTransferDto> transfers = List.of(
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("400.00")),
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("700.00")),
+                new CardTransferDto(to.getId(), from.getId(), new BigDecimal("100.00")));
+
+        mvc.perform(post("/users/cards/transfers/batch")
+                        .param("mode", "BEST_EFFORT")
+                        .header("Authorization", "Bearer " + getToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfers)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].message").value("Недостаточно средств для перевода."));
+
+        assertEquals(0, new BigDecimal("700.00").compareTo(balanceOf(from)));
+        assertEquals(0, new BigDecimal("300.00").compareTo(balanceOf(to)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Пакетный перевод по умолчанию не изменяет балансы, если хотя бы один перевод отклонён")
+    void transferBatch_ShouldApplyNothing_WhenAllOrNothingAndItemRejected() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        List<CardTransferDto> transfers = List.of(
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("400.00")),
+                new CardTransferDto(from.getId(), to.getId(), new BigDecimal("700.00")));
+
+        mvc.perform(post("/users/cards/transfers/batch")
+                        .header("Authorization", "Bearer " + getToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfers)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(0))
+                .andExpect(jsonPath("$.items[0].status").value("ROLLED_BACK"))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"));
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balanceOf(from)));
+        assertEquals(0, new BigDecimal("0.00").compareTo(balanceOf(to)));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Пакетный перевод с некорректным элементом возвращает 400")
+    void transferBatch_ShouldReturnBadRequest_WhenItemInvalid() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        List<CardTransferDto> transfers = List.of(new CardTransferDto(from.getId(), null, new BigDecimal("1.00")));
+
+        mvc.perform(post("/users/cards/transfers/batch")
+                        .header("Authorization", "Bearer " + getToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfers)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Журнал карты содержит записи выполненных переводов, начиная с последних")
+    void getUserCardLedger_ShouldReturnEntriesOfAppliedTransfers() throws Exception {
+        User user = getTestUser();
+        Card from = fixtures.createActiveCard(user, "1111", new BigDecimal("1000.00"));
+        Card to = fixtures.createActiveCard(user, "2222", new BigDecimal("0.00"));
+        String token = getToken(user);
+
+        transfer(token, UUID.randomUUID().toString(), new CardTransferDto(from.getId(), to.getId(), new BigDecimal("100.00")))
+                .andExpect(status().isOk());
+        transfer(token, UUID.randomUUID().toString(), new CardTransferDto(to.getId(), from.getId(), new BigDecimal("40.00")))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/users/cards/{cardId}/ledger", from.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].entryType").value("CREDIT"))
+                .andExpect(jsonPath("$.content[0].amount").value(40.00))
+                .andExpect(jsonPath("$.content[1].entryType").value("DEBIT"))
+                .andExpect(jsonPath("$.content[1].amount").value(-100.00));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Навигация по курсору обходит все карты пользователя без повторов и без подсчёта общего количества")
+    void getCards_ShouldWalkAllCards_WhenCursorUsed() throws Exception {
+        User user = getTestUser();
+        List<UUID> created = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            created.add(fixtures.createActiveCard(user, "300" + i, BigDecimal.ZERO).getId());
+        }
+        String token = getToken(user);
+
+        List<UUID> walked = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            String response = mvc.perform(get("/users/cards")
+                            .header("Authorization", "Bearer " + token)
+                            .param("size", "2")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            JsonNode page = objectMapper.readTree(response);
+            page.get("content").forEach(card -> walked.add(UUID.fromString(card.get("id").asText())));
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+            assertEquals(cursor == null, page.get("last").asBoolean());
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(5, walked.size());
+        assertEquals(new HashSet<>(created), new HashSet<>(walked));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Повреждённый курсор отклоняется с 400")
+    void getCards_ShouldReturnBadRequest_WhenCursorMalformed() throws Exception {
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + getToken(getTestUser()))
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("count=none возвращает страницу без общего количества, но с признаком следующей страницы")
+    void getCards_ShouldOmitTotals_WhenCountNone() throws Exception {
+        User user = getTestUser();
+        for (int i = 1; i <= 3; i++) {
+            fixtures.createActiveCard(user, "400" + i, BigDecimal.ZERO);
+        }
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + getToken(user))
+                        .param("size", "2")
+                        .param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("count=approx на последней странице возвращает точное общее количество")
+    void getCards_ShouldReturnExactTotalOnLastPage_WhenCountApprox() throws Exception {
+        User user = getTestUser();
+        for (int i = 1; i <= 3; i++) {
+            fixtures.createActiveCard(user, "500" + i, BigDecimal.ZERO);
+        }
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + getToken(user))
+                        .param("page", "1")
+                        .param("size", "2")
+                        .param("count", "approx"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalPages").value(2));
+    }
+
+    @Test
+    @Sql(scripts = {"/data/cleanUp.sql", "/data/insert.sql"})
+    @DisplayName("Фильтры по статусу, сроку действия и последним цифрам применяются только переданные")
+    void getCards_ShouldApplyOnlySuppliedFilters() throws Exception {
+        User user = getTestUser();
+        Card soon = fixtures.createActiveCard(user, "6001", BigDecimal.ZERO);
+        soon.setExpiryDate(LocalDateTime.of(2030, 1, 1, 0, 0));
+        cardRepository.save(soon);
+        Card blocked = fixtures.createActiveCard(user, "6002", BigDecimal.ZERO);
+        blocked.setStatus(CardStatus.BLOCKED);
+        cardRepository.save(blocked);
+        Card later = fixtures.createActiveCard(user, "6003", BigDecimal.ZERO);
+        String token = getToken(user);
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .param("last4", "6002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(blocked.getId().toString()));
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .param("status", "ACTIVE")
+                        .param("expiryDateTo", "2031-01-01 00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(soon.getId().toString()));
+
+        mvc.perform(get("/users/cards")
+                        .header("Authorization", "Bearer " + token)
+                        .param("status", "ACTIVE")
+                        .param("expiryDateFrom", "2031-01-01 00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(later.getId().toString()));
+    }
+}
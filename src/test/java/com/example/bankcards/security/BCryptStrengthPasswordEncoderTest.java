@@ -0,0 +1,37 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptStrengthPasswordEncoderTest {
+    private final BCryptStrengthPasswordEncoder encoder = new BCryptStrengthPasswordEncoder(5);
+
+    @Test
+    @DisplayName("upgradeEncoding: false, если стоимость хеша совпадает с целевой")
+    void upgradeEncoding_ShouldReturnFalse_WhenStrengthMatches() {
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding: true, если стоимость хеша ниже целевой")
+    void upgradeEncoding_ShouldReturnTrue_WhenStrengthLower() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding: true, если стоимость хеша выше целевой")
+    void upgradeEncoding_ShouldReturnTrue_WhenStrengthHigher() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding: false для пустого значения и строк не в формате BCrypt")
+    void upgradeEncoding_ShouldReturnFalse_WhenNotBCrypt() {
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding(""));
+        assertFalse(encoder.upgradeEncoding("plain-text"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.UserRole;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserServiceImplTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private MeterRegistry meterRegistry;
+    private CustomUserServiceImpl customUserService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customUserService = new CustomUserServiceImpl(userRepository, meterRegistry, true, 100, Duration.ofMinutes(1));
+        user = new User(UUID.randomUUID(), "testuser", "encoded-password", UserRole.ROLE_USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername: повторная загрузка берёт пользователя из кэша")
+    void loadUserByUsername_ShouldUseCache_WhenCalledTwice() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        CustomUserDetails first = customUserService.loadUserByUsername("testuser");
+        CustomUserDetails second = customUserService.loadUserByUsername("testuser");
+
+        assertEquals(user.getId(), first.getId());
+        assertEquals(user.getId(), second.getId());
+        verify(userRepository, times(1)).findByUsername("testuser");
+        assertEquals(1, count("bank.user.cache.misses"));
+        assertEquals(1, count("bank.user.cache.hits"));
+    }
+
+    @Test
+    @DisplayName("findByUsername: изменение возвращённого пользователя не затрагивает кэш")
+    void findByUsername_ShouldReturnDetachedCopy_WhenCached() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        User first = customUserService.findByUsername("testuser").orElseThrow();
+        first.setRole(UserRole.ROLE_ADMIN);
+        first.setPassword("changed-password");
+        User second = customUserService.findByUsername("testuser").orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals(UserRole.ROLE_USER, second.getRole());
+        assertEquals("encoded-password", second.getPassword());
+        assertEquals(1, count("bank.user.cache.hits"));
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername: отсутствие пользователя не кэшируется")
+    void loadUserByUsername_ShouldNotCacheMissingUser() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty(), Optional.of(user));
+
+        assertThrows(UsernameNotFoundException.class, () -> customUserService.loadUserByUsername("testuser"));
+        CustomUserDetails details = customUserService.loadUserByUsername("testuser");
+
+        assertEquals(user.getId(), details.getId());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("findByUsername: запись с истёкшим TTL перечитывается из базы данных")
+    void findByUsername_ShouldReload_WhenEntryExpired() {
+        customUserService = new CustomUserServiceImpl(userRepository, meterRegistry, true, 100, Duration.ZERO);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        customUserService.findByUsername("testuser");
+        customUserService.findByUsername("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+        assertEquals(2, count("bank.user.cache.misses"));
+    }
+
+    @Test
+    @DisplayName("evict: вытесненный пользователь перечитывается из базы данных")
+    void evict_ShouldRemoveEntry() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        customUserService.findByUsername("testuser");
+
+        customUserService.evict("testuser");
+        customUserService.findByUsername("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("evict: внутри транзакции запись повторно вытесняется после фиксации")
+    void evict_ShouldRemoveEntryAgain_AfterCommit() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        TransactionSynchronizationManager.initSynchronization();
+
+        customUserService.evict("testuser");
+        customUserService.findByUsername("testuser");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        customUserService.findByUsername("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    @Test
+    @DisplayName("findByUsername: при выключенном кэше каждый вызов читает базу данных")
+    void findByUsername_ShouldBypassCache_WhenDisabled() {
+        customUserService = new CustomUserServiceImpl(userRepository, meterRegistry, false, 100, Duration.ofMinutes(1));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        customUserService.findByUsername("testuser");
+        customUserService.findByUsername("testuser");
+
+        verify(userRepository, times(2)).findByUsername("testuser");
+        assertEquals(0, count("bank.user.cache.hits"));
+    }
+}
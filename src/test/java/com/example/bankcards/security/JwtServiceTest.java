@@ -0,0 +1,136 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.util.UserRole;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+    private static final String SECRET = "13wsy34ui96yoSmxVAb9+Eg6O+aYmNKuP8oEzzA+kpoF+I3g10lkMJF4BWjfN/Vw";
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET, true, 100);
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("testuser");
+        user.setRole(UserRole.ROLE_USER);
+    }
+
+    @Test
+    @DisplayName("verify: возвращает идентификатор, username, роль и срок действия access token")
+    void verify_ShouldReturnClaims_WhenTokenValid() {
+        String token = jwtService.generateAccessToken(user);
+
+        Optional<JwtClaims> claims = jwtService.verify(token);
+
+        assertTrue(claims.isPresent());
+        assertTrue(claims.get().hasIdentity());
+        assertEquals(user.getId(), claims.get().userId());
+        assertEquals("testuser", claims.get().username());
+        assertEquals(UserRole.ROLE_USER, claims.get().role());
+        assertTrue(claims.get().expiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    @DisplayName("verify: refresh token содержит jti, но не содержит идентификатора и роли пользователя")
+    void verify_ShouldReturnClaimsWithoutIdentity_WhenRefreshToken() {
+        UUID tokenId = UUID.randomUUID();
+        String refreshToken = jwtService.generateRefreshToken(user, tokenId, Instant.now().plusSeconds(60));
+
+        Optional<JwtClaims> claims = jwtService.verify(refreshToken);
+
+        assertTrue(claims.isPresent());
+        assertFalse(claims.get().hasIdentity());
+        assertEquals("testuser", claims.get().username());
+        assertEquals(tokenId, claims.get().tokenId());
+    }
+
+    @Test
+    @DisplayName("verify: отклоняет токен, подписанный другим ключом")
+    void verify_ShouldReturnEmpty_WhenSignedWithAnotherKey() {
+        JwtService other = new JwtService("rOmVtoPS7FaHfgf8vhswtsqbiLtWT5QUJOv9OqwTex87hJ7FEVBGNAfgSWj0Lzi2", true, 100);
+        String token = other.generateAccessToken(user);
+
+        assertTrue(jwtService.verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify: отклоняет просроченный токен")
+    void verify_ShouldReturnEmpty_WhenTokenExpired() {
+        String token = Jwts.builder()
+                .subject("testuser")
+                .expiration(Date.from(Instant.now().minusSeconds(60)))
+                .signWith(jwtService.getSignInKey())
+                .compact();
+
+        assertTrue(jwtService.verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify: отклоняет повреждённый токен")
+    void verify_ShouldReturnEmpty_WhenTokenMalformed() {
+        assertTrue(jwtService.verify("not-a-token").isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify: refresh token не кэшируется, так как используется однократно")
+    void verify_ShouldNotCacheRefreshToken() {
+        String refreshToken = jwtService.generateRefreshToken(user, UUID.randomUUID(), Instant.now().plusSeconds(60));
+
+        JwtClaims first = jwtService.verify(refreshToken).orElseThrow();
+        JwtClaims second = jwtService.verify(refreshToken).orElseThrow();
+
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("verify: повторная проверка того же токена возвращает данные из кэша")
+    void verify_ShouldReturnCachedClaims_WhenTokenRepeated() {
+        String token = jwtService.generateAccessToken(user);
+
+        JwtClaims first = jwtService.verify(token).orElseThrow();
+        JwtClaims second = jwtService.verify(token).orElseThrow();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("verify: кэшированный токен не принимается после истечения exp")
+    void verify_ShouldReturnEmpty_WhenCachedTokenExpired() throws InterruptedException {
+        String token = Jwts.builder()
+                .subject("testuser")
+                .expiration(Date.from(Instant.now().plusSeconds(2)))
+                .signWith(jwtService.getSignInKey())
+                .compact();
+        JwtClaims claims = jwtService.verify(token).orElseThrow();
+
+        Thread.sleep(Math.max(0, claims.expiresAt().toEpochMilli() - System.currentTimeMillis()) + 50);
+
+        assertTrue(jwtService.verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify: недействительный токен не попадает в кэш")
+    void verify_ShouldNotCacheRejectedToken() {
+        String token = jwtService.generateAccessToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtService.verify(tampered).isEmpty());
+        assertTrue(jwtService.verify(tampered).isEmpty());
+        assertTrue(jwtService.verify(token).isPresent());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("checkLogin: отклоняет попытки сверх ёмкости корзины имени пользователя")
+    void checkLogin_ShouldReject_WhenUsernameBucketEmpty() {
+        LoginThrottle throttle = throttle(3, Duration.ofHours(1), 100, Duration.ofHours(1), 100);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.checkLogin("user", "10.0.0." + i);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkLogin("user", "10.0.0.100"));
+        assertDoesNotThrow(() -> throttle.checkLogin("other", "10.0.0.100"));
+        assertEquals(1, meterRegistry.counter("bank.auth.throttled", "key", "username").count());
+    }
+
+    @Test
+    @DisplayName("checkLogin: отклоняет попытки с одного адреса без расхода токенов имени пользователя")
+    void checkLogin_ShouldReject_WhenAddressBucketEmpty() {
+        LoginThrottle throttle = throttle(1, Duration.ofHours(1), 2, Duration.ofHours(1), 100);
+
+        throttle.checkLogin("user1", "10.0.0.1");
+        throttle.checkLogin("user2", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkLogin("user3", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.checkLogin("user3", "10.0.0.2"));
+        assertEquals(1, meterRegistry.counter("bank.auth.throttled", "key", "address").count());
+    }
+
+    @Test
+    @DisplayName("checkLogin: корзина пополняется со временем")
+    void checkLogin_ShouldAllowAgain_AfterRefillInterval() throws InterruptedException {
+        LoginThrottle throttle = throttle(1, Duration.ofMillis(50), 100, Duration.ofMillis(50), 100);
+
+        throttle.checkLogin("user", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkLogin("user", "10.0.0.1"));
+
+        Thread.sleep(100);
+
+        assertDoesNotThrow(() -> throttle.checkLogin("user", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("checkLogin: корзины удаляются, когда становятся полными, а число корзин не превышает max-entries")
+    void checkLogin_ShouldBoundAndExpireBuckets() throws InterruptedException {
+        LoginThrottle throttle = throttle(5, Duration.ofMillis(20), 5, Duration.ofMillis(20), 10);
+
+        for (int i = 0; i < 50; i++) {
+            throttle.checkLogin("user" + i, "10.0.0." + i);
+        }
+        assertTrue(throttle.size() <= 20);
+
+        Thread.sleep(150);
+
+        assertEquals(0, throttle.size());
+    }
+
+    @Test
+    @DisplayName("checkLogin: при переполнении корзин перебор новых имён не сбрасывает лимит атакуемого пользователя, а новые имена ограничиваются")
+    void checkLogin_ShouldKeepVictimBucket_WhenUsernameBucketsOverflow() {
+        LoginThrottle throttle = throttle(2, Duration.ofHours(1), 1000, Duration.ofHours(1), 1000);
+        spray(throttle, "warmup", 1000);
+        for (int i = 0; i < 10; i++) {
+            String address = "10.0.0." + i;
+            try {
+                throttle.checkLogin("victim", address);
+            } catch (TooManyRequestsException ignored) {
+                // атака продолжается и после исчерпания лимита
+            }
+        }
+
+        spray(throttle, "spray", 3000);
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkLogin("victim", "10.0.1.1"));
+        throttle.checkLogin("late", "10.0.2.1");
+        throttle.checkLogin("late", "10.0.2.2");
+        assertThrows(TooManyRequestsException.class, () -> throttle.checkLogin("late", "10.0.2.3"));
+        assertTrue(throttle.size() <= 2000);
+    }
+
+    @Test
+    @DisplayName("checkLogin: при выключенном ограничении пропускает все попытки")
+    void checkLogin_ShouldAllowAll_WhenDisabled() {
+        LoginThrottle throttle = new LoginThrottle(meterRegistry, false, 1, Duration.ofHours(1),
+                1, Duration.ofHours(1), 100);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.checkLogin("user", "10.0.0.1");
+        }
+        assertEquals(0, throttle.size());
+    }
+
+    private LoginThrottle throttle(int usernameCapacity, Duration usernameRefill,
+                                   int addressCapacity, Duration addressRefill, int maxEntries) {
+        return new LoginThrottle(meterRegistry, true, usernameCapacity, usernameRefill,
+                addressCapacity, addressRefill, maxEntries);
+    }
+
+    private void spray(LoginThrottle throttle, String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            throttle.checkLogin(prefix + i, prefix + "-" + i);
+        }
+    }
+}
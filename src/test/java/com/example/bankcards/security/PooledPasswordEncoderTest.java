@@ -0,0 +1,90 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledPasswordEncoderTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PooledPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("encode/matches: выполняются в пуле и учитываются в метриках ожидания и хеширования")
+    void encodeAndMatches_ShouldDelegateAndRecordMetrics() {
+        encoder = new PooledPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 2, 4);
+
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.timer("bank.password.hash", "operation", "encode").count());
+        assertEquals(2, meterRegistry.timer("bank.password.hash", "operation", "matches").count());
+        assertEquals(2, meterRegistry.timer("bank.password.queue.wait", "operation", "matches").count());
+    }
+
+    @Test
+    @DisplayName("matches: бросает ServiceUnavailableException сразу, если пул и очередь заняты")
+    void matches_ShouldRejectImmediately_WhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BlockingPasswordEncoder(started, release);
+        encoder = new PooledPasswordEncoder(blocking, meterRegistry, 1, 1);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "b"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("bank.password.queue.size").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.matches("c", "c"));
+        assertEquals(1, meterRegistry.counter("bank.password.rejected").count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("matches: пробрасывает исключение кодировщика вызывающему")
+    void matches_ShouldPropagateDelegateException() {
+        encoder = new PooledPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(null));
+    }
+
+    private record BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
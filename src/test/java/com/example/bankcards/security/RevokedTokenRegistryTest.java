@@ -0,0 +1,70 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevokedTokenRegistryTest {
+    private final RevokedTokenRegistry registry = new RevokedTokenRegistry(1000, 0.01);
+
+    @Test
+    @DisplayName("isRevoked: отозванный токен распознаётся, прочие — нет")
+    void isRevoked_ShouldReturnTrueOnlyForRevokedTokens() {
+        UUID revoked = UUID.randomUUID();
+        registry.revoke(revoked, Instant.now().plusSeconds(60));
+
+        assertTrue(registry.isRevoked(revoked));
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(registry.isRevoked(UUID.randomUUID()));
+        }
+    }
+
+    @Test
+    @DisplayName("reload: заменяет содержимое списка загруженными токенами")
+    void reload_ShouldReplaceContent() {
+        UUID stale = UUID.randomUUID();
+        UUID loaded = UUID.randomUUID();
+        registry.revoke(stale, Instant.now().plusSeconds(60));
+
+        registry.reload(Map.of(loaded, Instant.now().plusSeconds(60)));
+
+        assertTrue(registry.isRevoked(loaded));
+        assertFalse(registry.isRevoked(stale));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    @DisplayName("evictExpired: удаляет истёкшие токены и сохраняет действующие")
+    void evictExpired_ShouldRemoveOnlyExpiredTokens() {
+        UUID expired = UUID.randomUUID();
+        UUID active = UUID.randomUUID();
+        Instant now = Instant.now();
+        registry.revoke(expired, now.minusSeconds(1));
+        registry.revoke(active, now.plusSeconds(60));
+
+        registry.evictExpired(now);
+
+        assertFalse(registry.isRevoked(expired));
+        assertTrue(registry.isRevoked(active));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    @DisplayName("isRevoked: после переполнения ожидаемого объёма фильтр не теряет отозванные токены")
+    void isRevoked_ShouldHaveNoFalseNegatives_WhenFilterOverfilled() {
+        UUID[] tokens = new UUID[5000];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = UUID.randomUUID();
+            registry.revoke(tokens[i], Instant.now().plusSeconds(60));
+        }
+
+        for (UUID token : tokens) {
+            assertTrue(registry.isRevoked(token));
+        }
+    }
+}
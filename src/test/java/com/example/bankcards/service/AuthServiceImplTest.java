@@ -5,7 +5,8 @@ import com.example.bankcards.dto.user.UserCredentialsDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AuthException;
 import com.example.bankcards.exception.NotFoundException;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserServiceImpl;
+import com.example.bankcards.security.JwtClaims;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.service.impl.AuthServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,7 +18,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,7 +28,7 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class AuthServiceImplTest {
     @Mock
-    private UserRepository userRepository;
+    private CustomUserServiceImpl customUserService;
 
     @Mock
     private JwtService jwtService;
@@ -33,6 +36,12 @@ public class AuthServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PasswordRehashService passwordRehashService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -42,6 +51,7 @@ public class AuthServiceImplTest {
     private String rawPassword;
     private String encodedPassword;
     private String refreshToken;
+    private JwtClaims claims;
 
     @BeforeEach
     void setUp() {
@@ -55,6 +65,7 @@ public class AuthServiceImplTest {
         user.setPassword(encodedPassword);
 
         jwtAuthDto = new JwtAuthDto("token", "token");
+        claims = new JwtClaims(null, username, null, UUID.randomUUID(), Instant.now().plusSeconds(60));
     }
 
     @Test
@@ -62,17 +73,18 @@ public class AuthServiceImplTest {
     void logIn_ShouldReturnTokens_WhenCredentialsValid() {
         UserCredentialsDto dto = new UserCredentialsDto(username, rawPassword);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(customUserService.findByUsername(username)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(rawPassword, encodedPassword)).thenReturn(true);
-        when(jwtService.generateAuthToken(user)).thenReturn(jwtAuthDto);
+        when(refreshTokenService.issue(user)).thenReturn(jwtAuthDto);
 
         JwtAuthDto result = authService.logIn(dto);
 
         assertNotNull(result);
         assertEquals(jwtAuthDto, result);
-        verify(userRepository, times(1)).findByUsername(username);
+        verify(customUserService, times(1)).findByUsername(username);
         verify(passwordEncoder, times(1)).matches(rawPassword, encodedPassword);
-        verify(jwtService, times(1)).generateAuthToken(user);
+        verify(passwordRehashService, times(1)).rehashIfNeeded(user, rawPassword);
+        verify(refreshTokenService, times(1)).issue(user);
     }
 
     @Test
@@ -80,11 +92,11 @@ public class AuthServiceImplTest {
     void logIn_ShouldThrowNotFound_WhenUserNotFound() {
         UserCredentialsDto dto = new UserCredentialsDto(username, rawPassword);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(customUserService.findByUsername(username)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> authService.logIn(dto));
 
-        verify(userRepository, times(1)).findByUsername(username);
+        verify(customUserService, times(1)).findByUsername(username);
         verifyNoInteractions(passwordEncoder);
         verifyNoInteractions(jwtService);
     }
@@ -94,32 +106,43 @@ public class AuthServiceImplTest {
     void logIn_ShouldThrowAuthException_WhenPasswordInvalid() {
         UserCredentialsDto dto = new UserCredentialsDto(username, rawPassword);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(customUserService.findByUsername(username)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(rawPassword, encodedPassword)).thenReturn(false);
 
         assertThrows(AuthException.class, () -> authService.logIn(dto));
 
-        verify(userRepository, times(1)).findByUsername(username);
+        verify(customUserService, times(1)).findByUsername(username);
         verify(passwordEncoder, times(1)).matches(rawPassword, encodedPassword);
-        verifyNoInteractions(jwtService);
+        verifyNoInteractions(refreshTokenService, passwordRehashService);
     }
 
     @Test
     @DisplayName("refreshToken: успешное обновление токена при валидном refreshToken")
     void refreshToken_ShouldReturnNewTokens_WhenRefreshTokenValid() {
-        when(jwtService.validateJwtToken(refreshToken)).thenReturn(true);
-        when(jwtService.getUsernameFromToken(refreshToken)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(jwtService.refreshBaseToken(user, refreshToken)).thenReturn(jwtAuthDto);
+        when(jwtService.verify(refreshToken)).thenReturn(Optional.of(claims));
+        when(customUserService.findByUsername(username)).thenReturn(Optional.of(user));
+        when(refreshTokenService.issue(user)).thenReturn(jwtAuthDto);
 
         JwtAuthDto result = authService.refreshToken(refreshToken);
 
         assertNotNull(result);
         assertEquals(jwtAuthDto, result);
-        verify(jwtService, times(1)).validateJwtToken(refreshToken);
-        verify(jwtService, times(1)).getUsernameFromToken(refreshToken);
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(jwtService, times(1)).refreshBaseToken(user, refreshToken);
+        verify(jwtService, times(1)).verify(refreshToken);
+        verify(refreshTokenService, times(1)).consume(claims);
+        verify(customUserService, times(1)).findByUsername(username);
+        verify(refreshTokenService, times(1)).issue(user);
+    }
+
+    @Test
+    @DisplayName("refreshToken: бросает AuthException, если refreshToken уже использован")
+    void refreshToken_ShouldThrowAuthException_WhenTokenAlreadyUsed() {
+        when(jwtService.verify(refreshToken)).thenReturn(Optional.of(claims));
+        doThrow(new AuthException("Invalid refresh token")).when(refreshTokenService).consume(claims);
+
+        assertThrows(AuthException.class, () -> authService.refreshToken(refreshToken));
+
+        verify(refreshTokenService, never()).issue(any());
+        verifyNoInteractions(customUserService);
     }
 
     @Test
@@ -128,33 +151,30 @@ public class AuthServiceImplTest {
         assertThrows(AuthException.class, () -> authService.refreshToken(null));
 
         verifyNoInteractions(jwtService);
-        verifyNoInteractions(userRepository);
+        verifyNoInteractions(customUserService);
     }
 
     @Test
     @DisplayName("refreshToken: бросает AuthException при невалидном refreshToken")
     void refreshToken_ShouldThrowAuthException_WhenTokenInvalid() {
-        when(jwtService.validateJwtToken(refreshToken)).thenReturn(false);
+        when(jwtService.verify(refreshToken)).thenReturn(Optional.empty());
 
         assertThrows(AuthException.class, () -> authService.refreshToken(refreshToken));
 
-        verify(jwtService, times(1)).validateJwtToken(refreshToken);
-        verify(jwtService, times(0)).getUsernameFromToken(anyString());
-        verifyNoInteractions(userRepository);
+        verify(jwtService, times(1)).verify(refreshToken);
+        verifyNoInteractions(customUserService, refreshTokenService);
     }
 
     @Test
     @DisplayName("refreshToken: бросает NotFoundException, если пользователь по токену не найден")
     void refreshToken_ShouldThrowNotFound_WhenUserNotFound() {
-        when(jwtService.validateJwtToken(refreshToken)).thenReturn(true);
-        when(jwtService.getUsernameFromToken(refreshToken)).thenReturn(username);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(jwtService.verify(refreshToken)).thenReturn(Optional.of(claims));
+        when(customUserService.findByUsername(username)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> authService.refreshToken(refreshToken));
 
-        verify(jwtService, times(1)).validateJwtToken(refreshToken);
-        verify(jwtService, times(1)).getUsernameFromToken(refreshToken);
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(jwtService, times(0)).refreshBaseToken(any(), anyString());
+        verify(jwtService, times(1)).verify(refreshToken);
+        verify(customUserService, times(1)).findByUsername(username);
+        verify(refreshTokenService, never()).issue(any());
     }
 }
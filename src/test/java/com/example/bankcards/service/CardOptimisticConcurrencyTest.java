@@ -0,0 +1,136 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.CardStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест оптимистического режима переводов: потоки переводят средства между картами,
+ * а администратор одновременно перезаписывает статус тех же карт. Проверка версии не даёт
+ * сохранению карты затереть баланс, изменённый параллельным переводом.
+ */
+@SpringBootTest(properties = "bank.transfer.concurrency-mode=OPTIMISTIC")
+@ActiveProfiles("test")
+@Slf4j
+class CardOptimisticConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int CARD_COUNT = 4;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final String USERNAME = "loaduser";
+
+    private UUID ownerId;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("transfer: сумма балансов сохраняется при конкурентных переводах и изменениях статуса карт")
+    void transfer_ShouldConserveMoney_WithOptimisticLocking() throws Exception {
+        List<UUID> cardIds = createActiveCards();
+        ledgerService.snapshotBalances();
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARD_COUNT));
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger exhausted = new AtomicInteger();
+        Queue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARD_COUNT);
+                    int to = (from + 1 + random.nextInt(CARD_COUNT - 1)) % CARD_COUNT;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 10_000), 2);
+                    try {
+                        cardService.transfer(ownerId, new CardTransferDto(cardIds.get(from), cardIds.get(to), amount));
+                        completed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        exhausted.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                try {
+                    cardService.updateCardStatus(cardIds.get(i % CARD_COUNT), new CardNewStatusDto(CardStatus.ACTIVE));
+                } catch (OptimisticLockingFailureException e) {
+                    exhausted.incrementAndGet();
+                } catch (Throwable e) {
+                    unexpectedErrors.add(e);
+                }
+            }
+            return null;
+        });
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        log.info("Оптимистический режим. Потоков: {}, выполнено: {}, отклонено: {}, попытки исчерпаны: {}, " +
+                        "конфликтов: {}, повторов: {}, пропускная способность: {} переводов/с",
+                THREADS, completed.get(), rejected.get(), exhausted.get(),
+                meterRegistry.counter("bank.card.optimistic.conflicts", "operation", "transfer").count(),
+                meterRegistry.counter("bank.card.optimistic.retries", "operation", "transfer").count(),
+                String.format("%.1f", (completed.get() + rejected.get()) / seconds));
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Неожиданные ошибки: " + unexpectedErrors);
+
+        fixtures.assertBalancesConserved(cardIds, expectedTotal);
+    }
+
+    private List<UUID> createActiveCards() {
+        User owner = fixtures.createUser(USERNAME);
+        ownerId = owner.getId();
+        return fixtures.createActiveCards(owner, CARD_COUNT, INITIAL_BALANCE);
+    }
+}
@@ -1,37 +1,66 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.card.CardBatchTransferResultDto;
 import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.dto.card.CardLedgerEntryDto;
 import com.example.bankcards.dto.card.CardNewStatusDto;
+import com.example.bankcards.dto.card.CardStripesDto;
 import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardView;
+import com.example.bankcards.dto.card.GroupTransfer;
+import com.example.bankcards.dto.card.GroupTransferResult;
+import com.example.bankcards.dto.card.TransferCardView;
+import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.CardLedgerRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.util.CardLockOrder;
 import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.CountMode;
+import com.example.bankcards.util.LedgerEntryType;
+import com.example.bankcards.util.TransferBatchMode;
+import com.example.bankcards.util.TransferConcurrencyMode;
+import com.example.bankcards.util.TransferItemStatus;
+import com.example.bankcards.util.mapper.CardLedgerMapper;
 import com.example.bankcards.util.mapper.CardMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -47,6 +76,27 @@ class CardServiceImplTest {
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Mock
+    private CardLedgerMapper cardLedgerMapper;
+
+    @Mock
+    private CardStripeService cardStripeService;
+
+    @Mock
+    private RowCountService rowCountService;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -57,6 +107,7 @@ class CardServiceImplTest {
     private Card card;
     private Card anotherCard;
     private CardDto cardDto;
+    private CardView cardView;
 
     @BeforeEach
     void setUp() {
@@ -77,6 +128,9 @@ class CardServiceImplTest {
         card.setStatus(CardStatus.ACTIVE);
         card.setBalance(new BigDecimal("1000.00"));
 
+        cardView = new CardView(cardId, userId, "testuser", "4444", card.getExpiryDate(), CardStatus.ACTIVE,
+                card.getBalance(), null);
+
         anotherCard = new Card();
         anotherCard.setId(anotherCardId);
         anotherCard.setOwner(user);
@@ -128,7 +182,7 @@ class CardServiceImplTest {
     @DisplayName("updateCardStatus: успешно меняет статус карты")
     void updateCardStatus_ShouldUpdateStatus() {
         CardNewStatusDto dto = new CardNewStatusDto(CardStatus.BLOCKED);
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
         when(cardRepository.save(card)).thenReturn(card);
         when(cardMapper.toDto(card)).thenReturn(cardDto);
 
@@ -137,7 +191,7 @@ class CardServiceImplTest {
         assertNotNull(result);
         assertEquals(cardDto, result);
         assertEquals(CardStatus.BLOCKED, card.getStatus());
-        verify(cardRepository, times(1)).findById(cardId);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verify(cardRepository, times(1)).save(card);
         verify(cardMapper, times(1)).toDto(card);
     }
@@ -146,11 +200,11 @@ class CardServiceImplTest {
     @DisplayName("updateCardStatus: бросает NotFoundException, если карта не найдена")
     void updateCardStatus_ShouldThrowNotFound_WhenCardNotFound() {
         CardNewStatusDto dto = new CardNewStatusDto(CardStatus.BLOCKED);
-        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> cardService.updateCardStatus(cardId, dto));
 
-        verify(cardRepository, times(1)).findById(cardId);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verify(cardRepository, never()).save(any());
         verifyNoInteractions(cardMapper);
     }
@@ -164,28 +218,39 @@ class CardServiceImplTest {
         verify(cardRepository, times(1)).deleteById(cardId);
     }
 
+    @Test
+    @DisplayName("deleteCard: отказывает в удалении карты с историей операций")
+    void deleteCard_ShouldThrowConflict_WhenCardHasLedgerEntries() {
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardLedgerRepository.existsByCardId(cardId)).thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> cardService.deleteCard(cardId));
+
+        verify(cardRepository, never()).deleteById(any());
+    }
+
     @Test
     @DisplayName("getById: возвращает карту по ID")
     void getById_ShouldReturnCard() {
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
         when(cardMapper.toDto(card)).thenReturn(cardDto);
 
         CardDto result = cardService.getById(cardId);
 
         assertNotNull(result);
         assertEquals(cardDto, result);
-        verify(cardRepository, times(1)).findById(cardId);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verify(cardMapper, times(1)).toDto(card);
     }
 
     @Test
     @DisplayName("getById: бросает NotFoundException, если карта не найдена")
     void getById_ShouldThrowNotFound_WhenCardNotFound() {
-        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> cardService.getById(cardId));
 
-        verify(cardRepository, times(1)).findById(cardId);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verifyNoInteractions(cardMapper);
     }
 
@@ -197,12 +262,11 @@ class CardServiceImplTest {
         CardStatus status = CardStatus.ACTIVE;
         Pageable expectedPageable = PageRequest.of(page, size, Sort.by("status"));
 
-        Card another = new Card();
-        another.setId(UUID.randomUUID());
-        another.setStatus(CardStatus.ACTIVE);
+        CardView another = new CardView(UUID.randomUUID(), userId, "testuser", "0000",
+                LocalDateTime.now().plusYears(1), CardStatus.ACTIVE, BigDecimal.ZERO, null);
 
         CardDto anotherDto = new CardDto(
-                another.getId(),
+                another.id(),
                 null,
                 "**** **** **** 0000",
                 LocalDateTime.now().plusYears(1),
@@ -210,20 +274,20 @@ class CardServiceImplTest {
                 BigDecimal.ZERO
         );
 
-        when(cardRepository.findAllByFilter(eq(expectedPageable), eq(status)))
-                .thenReturn(new PageImpl<>(List.of(card, another)));
-        when(cardMapper.toDto(card)).thenReturn(cardDto);
+        when(cardRepository.findViews(any(), eq(expectedPageable)))
+                .thenReturn(new PageImpl<>(List.of(cardView, another)));
+        when(cardMapper.toDto(cardView)).thenReturn(cardDto);
         when(cardMapper.toDto(another)).thenReturn(anotherDto);
 
-        List<CardDto> result = cardService.getAll(page, size, status).content();
+        List<CardDto> result = cardService.getAll(page, size, CountMode.EXACT, status).content();
 
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals(cardDto, result.get(0));
         assertEquals(anotherDto, result.get(1));
 
-        verify(cardRepository, times(1)).findAllByFilter(expectedPageable, status);
-        verify(cardMapper, times(1)).toDto(card);
+        verify(cardRepository, times(1)).findViews(any(), eq(expectedPageable));
+        verify(cardMapper, times(1)).toDto(cardView);
         verify(cardMapper, times(1)).toDto(another);
     }
 
@@ -235,22 +299,82 @@ class CardServiceImplTest {
         CardStatus status = CardStatus.ACTIVE;
         Pageable expectedPageable = PageRequest.of(page, size, Sort.by("status"));
 
-        when(cardRepository.findAllByFilter(eq(expectedPageable), eq(status)))
+        when(cardRepository.findViews(any(), eq(expectedPageable)))
                 .thenReturn(new PageImpl<>(List.of()));
 
-        List<CardDto> result = cardService.getAll(page, size, status).content();
+        List<CardDto> result = cardService.getAll(page, size, CountMode.EXACT, status).content();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(cardRepository, times(1)).findAllByFilter(expectedPageable, status);
+        verify(cardRepository, times(1)).findViews(any(), eq(expectedPageable));
         verifyNoInteractions(cardMapper);
     }
 
+    @Test
+    @DisplayName("getAll: при count=NONE читает срез без подсчёта общего количества")
+    void getAll_ShouldSkipCount_WhenCountModeNone() {
+        Pageable expectedPageable = PageRequest.of(0, 1, Sort.by("status"));
+
+        when(cardRepository.findViewSlice(any(), eq(expectedPageable)))
+                .thenReturn(new SliceImpl<>(List.of(cardView), expectedPageable, true));
+        when(cardMapper.toDto(cardView)).thenReturn(cardDto);
+
+        PageResponse<CardDto> result = cardService.getAll(0, 1, CountMode.NONE, CardStatus.ACTIVE);
+
+        assertEquals(List.of(cardDto), result.content());
+        assertTrue(result.hasNext());
+        assertFalse(result.last());
+        assertNull(result.totalElements());
+        assertNull(result.totalPages());
+        verify(cardRepository, never()).findViews(any(), any(Pageable.class));
+        verify(cardRepository, never()).count(any(Specification.class));
+        verifyNoInteractions(rowCountService);
+    }
+
+    @Test
+    @DisplayName("getAll: при count=APPROX берёт общее количество из оценки")
+    void getAll_ShouldUseApproximateCount_WhenCountModeApprox() {
+        Pageable expectedPageable = PageRequest.of(0, 1, Sort.by("status"));
+
+        when(cardRepository.findViewSlice(any(), eq(expectedPageable)))
+                .thenReturn(new SliceImpl<>(List.of(cardView), expectedPageable, true));
+        when(cardMapper.toDto(cardView)).thenReturn(cardDto);
+        when(rowCountService.approximateCount(eq("cards"), eq(Arrays.asList((Object) null)), any()))
+                .thenReturn(42L);
+
+        PageResponse<CardDto> result = cardService.getAll(0, 1, CountMode.APPROX, null);
+
+        assertEquals(42L, result.totalElements());
+        assertEquals(42, result.totalPages());
+        assertTrue(result.hasNext());
+        verify(cardRepository, never()).findViews(any(), any(Pageable.class));
+        verify(cardRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("getAllUserCards: при count=APPROX на последней странице возвращает точное количество")
+    void getAllUserCards_ShouldReturnExactTotal_WhenApproxOnLastPage() {
+        Pageable expectedPageable = PageRequest.of(1, 1, Sort.by("expiryDate").ascending());
+
+        when(cardRepository.findViewSlice(any(), eq(expectedPageable)))
+                .thenReturn(new SliceImpl<>(List.of(cardView), expectedPageable, false));
+        when(cardMapper.toDto(cardView)).thenReturn(cardDto);
+        when(rowCountService.approximateCount(eq("cards"), any(), any())).thenReturn(100L);
+
+        PageResponse<CardDto> result = cardService.getAllUserCards(userId, 1, 1, CountMode.APPROX,
+                null, null, null, null);
+
+        assertEquals(2L, result.totalElements());
+        assertEquals(2, result.totalPages());
+        assertTrue(result.last());
+        assertFalse(result.hasNext());
+        verify(cardRepository, never()).findViews(any(), any(Pageable.class));
+    }
+
     @Test
     @DisplayName("getAllUserCards: возвращает карты пользователя с фильтрами и пагинацией")
     void getAllUserCards_ShouldReturnUserCards() {
-        String username = "testuser";
         LocalDateTime from = LocalDateTime.now().minusDays(1);
         LocalDateTime to = LocalDateTime.now().plusDays(1);
         String last4 = "4444";
@@ -259,21 +383,15 @@ class CardServiceImplTest {
         Pageable expectedPageable =
                 PageRequest.of(0, 10, Sort.by("expiryDate").ascending());
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findAllUserCards(
-                eq(expectedPageable),
-                eq(userId),
-                eq(status),
-                eq(from),
-                eq(to),
-                eq(last4))
-        ).thenReturn(new PageImpl<>(List.of(card)));
-        when(cardMapper.toDto(card)).thenReturn(cardDto);
+        when(cardRepository.findViews(any(), eq(expectedPageable)))
+                .thenReturn(new PageImpl<>(List.of(cardView)));
+        when(cardMapper.toDto(cardView)).thenReturn(cardDto);
 
         List<CardDto> result = cardService.getAllUserCards(
-                username,
+                userId,
                 0,
                 10,
+                CountMode.EXACT,
                 status,
                 from,
                 to,
@@ -284,48 +402,28 @@ class CardServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(cardDto, result.getFirst());
 
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(cardRepository, times(1)).findAllUserCards(
-                expectedPageable, userId, status, from, to, last4
-        );
-        verify(cardMapper, times(1)).toDto(card);
-    }
-
-    @Test
-    @DisplayName("getAllUserCards: бросает NotFoundException, если пользователь не найден")
-    void getAllUserCards_ShouldThrowNotFound_WhenUserNotFound() {
-        String username = "testuser";
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
-
-        assertThrows(NotFoundException.class, () ->
-                cardService.getAllUserCards(username, 0, 10, null, null, null, null)
-        );
-
-        verify(userRepository, times(1)).findByUsername(username);
-        verifyNoInteractions(cardRepository);
-        verifyNoInteractions(cardMapper);
+        verifyNoInteractions(userRepository);
+        verify(cardRepository, times(1)).findViews(any(), eq(expectedPageable));
+        verify(cardMapper, times(1)).toDto(cardView);
     }
 
     @Test
     @DisplayName("blockCardRequest: успешный запрос на блокировку активной карты владельца")
     void blockCardRequest_ShouldBlock_WhenOwnerAndActive() {
-        String username = "testuser";
-
         card.setStatus(CardStatus.ACTIVE);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
         when(cardRepository.save(card)).thenReturn(card);
         when(cardMapper.toDto(card)).thenReturn(cardDto);
 
-        CardDto result = cardService.blockCardRequest(cardId, username);
+        CardDto result = cardService.blockCardRequest(cardId, userId);
 
         assertNotNull(result);
         assertEquals(cardDto, result);
         assertEquals(CardStatus.BLOCK_PENDING, card.getStatus());
 
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(cardRepository, times(1)).findById(cardId);
+        verifyNoInteractions(userRepository);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verify(cardRepository, times(1)).save(card);
         verify(cardMapper, times(1)).toDto(card);
     }
@@ -333,17 +431,15 @@ class CardServiceImplTest {
     @Test
     @DisplayName("blockCardRequest: бросает ConflictException, если карту блокирует не владелец")
     void blockCardRequest_ShouldThrowConflict_WhenNotOwner() {
-        String username = "testuser";
         User anotherUser = new User();
         anotherUser.setId(UUID.randomUUID());
 
         card.setOwner(anotherUser);
         card.setStatus(CardStatus.ACTIVE);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
 
-        assertThrows(ConflictException.class, () -> cardService.blockCardRequest(cardId, username));
+        assertThrows(ConflictException.class, () -> cardService.blockCardRequest(cardId, userId));
 
         verify(cardRepository, never()).save(any());
         verifyNoInteractions(cardMapper);
@@ -352,195 +448,511 @@ class CardServiceImplTest {
     @Test
     @DisplayName("blockCardRequest: бросает ConflictException, если статус карты не ACTIVE")
     void blockCardRequest_ShouldThrowConflict_WhenCardNotActive() {
-        String username = "testuser";
         card.setStatus(CardStatus.BLOCKED);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
 
-        assertThrows(ConflictException.class, () -> cardService.blockCardRequest(cardId, username));
+        assertThrows(ConflictException.class, () -> cardService.blockCardRequest(cardId, userId));
 
         verify(cardRepository, never()).save(any());
         verifyNoInteractions(cardMapper);
     }
 
+    private TransferCardView transferCardView(Card source) {
+        return new TransferCardView(source.getId(), source.getOwner().getId(), source.getStatus());
+    }
+
+    private void stubTransferCards(Card... cards) {
+        when(cardRepository.findTransferCards(anyCollection()))
+                .thenReturn(Arrays.stream(cards).map(this::transferCardView).toList());
+    }
+
+    private double rejections(String stage, String reason) {
+        return meterRegistry.counter("bank.transfer.rejected", "stage", stage, "reason", reason).count();
+    }
+
     @Test
     @DisplayName("transfer: успешный перевод между своими активными картами при достаточном балансе")
     void transfer_ShouldTransfer_WhenAllValid() {
-        String username = "testuser";
         BigDecimal amount = new BigDecimal("200.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
-        card.setBalance(new BigDecimal("1000.00"));
-        anotherCard.setBalance(new BigDecimal("500.00"));
-        card.setStatus(CardStatus.ACTIVE);
-        anotherCard.setStatus(CardStatus.ACTIVE);
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.debit(cardId, userId, amount)).thenReturn(1);
+        when(cardRepository.credit(anotherCardId, userId, amount)).thenReturn(1);
 
-        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
+        cardService.transfer(userId, dto);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(cardRepository.findById(anotherCardId)).thenReturn(Optional.of(anotherCard));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        verify(cardRepository, times(1)).findTransferCards(List.of(cardId, anotherCardId));
+        verify(cardRepository, times(1)).debit(cardId, userId, amount);
+        verify(cardRepository, times(1)).credit(anotherCardId, userId, amount);
+        verify(cardRepository, never()).findById(any());
+        verify(cardRepository, never()).save(any());
+        verifyNoInteractions(userRepository);
+        verify(ledgerService, times(1)).recordTransfer(dto);
+    }
 
-        cardService.transfer(username, dto);
+    @Test
+    @DisplayName("transfer: изменяет балансы в порядке блокировки карт независимо от направления перевода")
+    void transfer_ShouldUpdateCardsInLockOrder() {
+        BigDecimal amount = new BigDecimal("100.00");
+        UUID lowerId = CardLockOrder.isBefore(cardId, anotherCardId) ? cardId : anotherCardId;
+        UUID higherId = lowerId.equals(cardId) ? anotherCardId : cardId;
+        CardTransferDto dto = new CardTransferDto(higherId, lowerId, amount);
 
-        assertEquals(new BigDecimal("800.00"), card.getBalance());
-        assertEquals(new BigDecimal("700.00"), anotherCard.getBalance());
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.credit(lowerId, userId, amount)).thenReturn(1);
+        when(cardRepository.debit(higherId, userId, amount)).thenReturn(1);
 
-        verify(cardRepository, times(1)).save(card);
-        verify(cardRepository, times(1)).save(anotherCard);
+        cardService.transfer(userId, dto);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(lowerId, userId, amount);
+        inOrder.verify(cardRepository).debit(higherId, userId, amount);
+    }
+
+    @Test
+    @DisplayName("transfer и transferBatch: блокируют карты в одном порядке, когда старшие биты UUID различаются")
+    void transferAndBatch_ShouldLockCardsInSameOrder_WhenHighBitsDiffer() {
+        // UUID#compareTo считает вторую карту меньшей: её старший long отрицателен.
+        UUID lowId = UUID.fromString("7fffffff-0000-4000-8000-000000000001");
+        UUID highId = UUID.fromString("80000000-0000-4000-8000-000000000001");
+        assertTrue(highId.compareTo(lowId) < 0);
+        card.setId(lowId);
+        anotherCard.setId(highId);
+        BigDecimal amount = new BigDecimal("10.00");
+        CardTransferDto dto = new CardTransferDto(highId, lowId, amount);
+
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.credit(lowId, userId, amount)).thenReturn(1);
+        when(cardRepository.debit(highId, userId, amount)).thenReturn(1);
+        when(cardRepository.findAllByIdForUpdate(Set.of(lowId, highId))).thenReturn(List.of(card, anotherCard));
+
+        cardService.transfer(userId, dto);
+        cardService.transferBatch(userId, List.of(dto), TransferBatchMode.BEST_EFFORT);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit(lowId, userId, amount);
+        inOrder.verify(cardRepository).debit(highId, userId, amount);
+        inOrder.verify(cardRepository).findAllByIdForUpdate(Set.of(lowId, highId));
     }
 
     @Test
-    @DisplayName("transfer: бросает ConflictException, если карты не принадлежат пользователю")
+    @DisplayName("transfer: бросает ConflictException до изменения балансов, если карты не принадлежат пользователю")
     void transfer_ShouldThrowConflict_WhenCardsNotOwnedByUser() {
-        String username = "testuser";
         BigDecimal amount = new BigDecimal("100.00");
         CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
         User anotherUser = new User();
         anotherUser.setId(UUID.randomUUID());
+        anotherUser.setUsername("anotheruser");
         card.setOwner(anotherUser);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(cardRepository.findById(anotherCardId)).thenReturn(Optional.of(anotherCard));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        stubTransferCards(card, anotherCard);
 
-        assertThrows(ConflictException.class, () -> cardService.transfer(username, dto));
+        ConflictException e = assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
 
-        verify(cardRepository, never()).save(any());
+        assertEquals("Перевод возможен только между своими картами.", e.getMessage());
+        assertEquals(1, rejections("cards", "not_owner"));
+        verify(cardRepository, never()).debit(any(), any(), any());
+        verify(cardRepository, never()).credit(any(), any(), any());
     }
 
     @Test
-    @DisplayName("transfer: бросает ConflictException при переводе на ту же карту")
+    @DisplayName("transfer: бросает ConflictException при переводе на ту же карту, не обращаясь к базе данных")
     void transfer_ShouldThrowConflict_WhenSameCard() {
-        String username = "testuser";
         BigDecimal amount = new BigDecimal("100.00");
         CardTransferDto dto = new CardTransferDto(cardId, cardId, amount);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-
-        assertThrows(ConflictException.class, () -> cardService.transfer(username, dto));
+        assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
 
-        verify(cardRepository, never()).save(any());
+        assertEquals(1, rejections("request", "same_card"));
+        verifyNoInteractions(cardRepository, userRepository, transactionOperations);
     }
 
     @Test
-    @DisplayName("transfer: бросает ConflictException, если хотя бы одна карта не ACTIVE")
+    @DisplayName("transfer: бросает ConflictException до изменения балансов, если хотя бы одна карта не ACTIVE")
     void transfer_ShouldThrowConflict_WhenCardNotActive() {
-        String username = "testuser";
         BigDecimal amount = new BigDecimal("100.00");
         CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
         card.setStatus(CardStatus.BLOCKED);
         anotherCard.setStatus(CardStatus.ACTIVE);
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(cardRepository.findById(anotherCardId)).thenReturn(Optional.of(anotherCard));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        stubTransferCards(card, anotherCard);
 
-        assertThrows(ConflictException.class, () -> cardService.transfer(username, dto));
+        ConflictException e = assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
 
-        verify(cardRepository, never()).save(any());
+        assertEquals("Перевод возможен только между активными картами.", e.getMessage());
+        assertEquals(1, rejections("cards", "inactive_card"));
+        verify(cardRepository, never()).debit(any(), any(), any());
+        verify(cardRepository, never()).credit(any(), any(), any());
     }
 
     @Test
-    @DisplayName("transfer: бросает ConflictException при сумме перевода ≤ 0")
+    @DisplayName("transfer: бросает ConflictException при сумме перевода ≤ 0, не обращаясь к базе данных")
     void transfer_ShouldThrowConflict_WhenAmountInvalid() {
-        String username = "testuser";
         BigDecimal amount = BigDecimal.ZERO;
         CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
-        card.setStatus(CardStatus.ACTIVE);
-        anotherCard.setStatus(CardStatus.ACTIVE);
-
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
-        when(cardRepository.findById(anotherCardId)).thenReturn(Optional.of(anotherCard));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-
-        assertThrows(ConflictException.class, () -> cardService.transfer(username, dto));
+        assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
 
-        verify(cardRepository, never()).save(any());
+        assertEquals(1, rejections("request", "non_positive_amount"));
+        verifyNoInteractions(cardRepository, userRepository, transactionOperations);
     }
 
     @Test
     @DisplayName("transfer: бросает ConflictException при недостаточном балансе")
     void transfer_ShouldThrowConflict_WhenInsufficientFunds() {
-        String username = "testuser";
         BigDecimal amount = new BigDecimal("2000.00");
         CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
-        card.setStatus(CardStatus.ACTIVE);
-        anotherCard.setStatus(CardStatus.ACTIVE);
         card.setBalance(new BigDecimal("1000.00"));
 
+        stubTransferCards(card, anotherCard);
+        lenient().when(cardRepository.debit(cardId, userId, amount)).thenReturn(0);
+        lenient().when(cardRepository.credit(anotherCardId, userId, amount)).thenReturn(1);
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
         when(cardRepository.findById(anotherCardId)).thenReturn(Optional.of(anotherCard));
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
 
-        assertThrows(ConflictException.class, () -> cardService.transfer(username, dto));
+        ConflictException e = assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
 
+        assertEquals("Недостаточно средств для перевода.", e.getMessage());
+        assertEquals(1, rejections("balance", "insufficient_funds"));
         verify(cardRepository, never()).save(any());
+        verify(ledgerService, never()).recordTransfer(any());
     }
 
     @Test
-    @DisplayName("getUserCardById: возвращает карту пользователя, если он владелец")
-    void getUserCardById_ShouldReturnCard_WhenOwner() {
-        String username = "testuser";
+    @DisplayName("transfer: бросает NotFoundException до изменения балансов, если карта-получатель не найдена")
+    void transfer_ShouldThrowNotFound_WhenCardNotFound() {
+        BigDecimal amount = new BigDecimal("100.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        stubTransferCards(card);
+
+        assertThrows(NotFoundException.class, () -> cardService.transfer(userId, dto));
+
+        assertEquals(1, rejections("cards", "card_not_found"));
+        verify(cardRepository, never()).debit(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("transfer: зачисляет на часть баланса, если баланс карты-получателя разбит")
+    void transfer_ShouldCreditStripe_WhenTargetCardStriped() {
+        BigDecimal amount = new BigDecimal("200.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
+
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.debit(cardId, userId, amount)).thenReturn(1);
+        when(cardRepository.credit(anotherCardId, userId, amount)).thenReturn(0);
+        when(cardStripeService.credit(anotherCardId, userId, amount)).thenReturn(true);
+
+        cardService.transfer(userId, dto);
+
+        verify(cardStripeService, times(1)).credit(anotherCardId, userId, amount);
+        verify(ledgerService, times(1)).recordTransfer(dto);
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("transfer: переносит части баланса в основной и повторяет списание, если основного баланса не хватает")
+    void transfer_ShouldConsolidateStripes_WhenMainBalanceInsufficient() {
+        BigDecimal amount = new BigDecimal("200.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
+
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.debit(cardId, userId, amount)).thenReturn(0, 1);
+        when(cardStripeService.consolidate(cardId, userId)).thenReturn(true);
+        when(cardRepository.credit(anotherCardId, userId, amount)).thenReturn(1);
+
+        cardService.transfer(userId, dto);
+
+        verify(cardRepository, times(2)).debit(cardId, userId, amount);
+        verify(ledgerService, times(1)).recordTransfer(dto);
+    }
+
+    @Test
+    @DisplayName("transfer: в оптимистическом режиме изменяет балансы загруженных карт без условных UPDATE")
+    void transfer_ShouldUpdateLoadedCards_WhenOptimisticMode() {
+        ReflectionTestUtils.setField(cardService, "concurrencyMode", TransferConcurrencyMode.OPTIMISTIC);
+        BigDecimal amount = new BigDecimal("200.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
+
+        when(cardRepository.findAllById(List.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+
+        cardService.transfer(userId, dto);
+
+        assertEquals(0, new BigDecimal("800.00").compareTo(card.getBalance()));
+        assertEquals(0, new BigDecimal("700.00").compareTo(anotherCard.getBalance()));
+        verify(cardRepository, never()).debit(any(), any(), any());
+        verify(cardRepository, never()).credit(any(), any(), any());
+        verify(ledgerService, times(1)).recordTransfer(dto);
+    }
+
+    @Test
+    @DisplayName("transfer: в оптимистическом режиме бросает ConflictException и не изменяет балансы при нехватке средств")
+    void transfer_ShouldThrowConflict_WhenOptimisticModeAndInsufficientFunds() {
+        ReflectionTestUtils.setField(cardService, "concurrencyMode", TransferConcurrencyMode.OPTIMISTIC);
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, new BigDecimal("5000.00"));
+
+        when(cardRepository.findAllById(List.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+
+        ConflictException e = assertThrows(ConflictException.class, () -> cardService.transfer(userId, dto));
+
+        assertEquals("Недостаточно средств для перевода.", e.getMessage());
+        assertEquals(1, rejections("balance", "insufficient_funds"));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(card.getBalance()));
+        verify(ledgerService, never()).recordTransfer(any());
+    }
+
+    @Test
+    @DisplayName("transfer: в оптимистическом режиме выполняет перевод условными UPDATE, если баланс карты разбит")
+    void transfer_ShouldUseConditionalUpdates_WhenOptimisticModeAndCardStriped() {
+        ReflectionTestUtils.setField(cardService, "concurrencyMode", TransferConcurrencyMode.OPTIMISTIC);
+        BigDecimal amount = new BigDecimal("200.00");
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, amount);
+        anotherCard.setStripeCount(4);
+
+        when(cardRepository.findAllById(List.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+        stubTransferCards(card, anotherCard);
+        when(cardRepository.debit(cardId, userId, amount)).thenReturn(1);
+        when(cardRepository.credit(anotherCardId, userId, amount)).thenReturn(0);
+        when(cardStripeService.credit(anotherCardId, userId, amount)).thenReturn(true);
+
+        cardService.transfer(userId, dto);
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(card.getBalance()));
+        verify(cardStripeService, times(1)).credit(anotherCardId, userId, amount);
+        verify(ledgerService, times(1)).recordTransfer(dto);
+    }
+
+    @Test
+    @DisplayName("updateCardStripes: изменяет количество частей баланса заблокированной карты")
+    void updateCardStripes_ShouldConfigureStripes() {
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.of(card));
         when(cardMapper.toDto(card)).thenReturn(cardDto);
 
-        CardDto result = cardService.getUserCardById(cardId, username);
+        CardDto result = cardService.updateCardStripes(cardId, new CardStripesDto(8));
 
-        assertNotNull(result);
         assertEquals(cardDto, result);
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(cardRepository, times(1)).findById(cardId);
-        verify(cardMapper, times(1)).toDto(card);
+        verify(cardStripeService).configure(card, 8);
+        verify(cardRepository).save(card);
     }
 
     @Test
-    @DisplayName("getUserCardById: бросает NotFoundException, если пользователь не найден")
-    void getUserCardById_ShouldThrowNotFound_WhenUserNotFound() {
-        String username = "unknown";
-        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
+    @DisplayName("updateCardStripes: бросает NotFoundException, если карта не найдена")
+    void updateCardStripes_ShouldThrowNotFound_WhenCardNotFound() {
+        when(cardRepository.findByIdForUpdate(cardId)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> cardService.getUserCardById(cardId, username));
+        assertThrows(NotFoundException.class, () -> cardService.updateCardStripes(cardId, new CardStripesDto(8)));
+        verifyNoInteractions(cardStripeService);
+    }
 
-        verify(userRepository, times(1)).findByUsername(username);
-        verifyNoInteractions(cardRepository);
-        verifyNoInteractions(cardMapper);
+    @Test
+    @DisplayName("transferBatch: в режиме BEST_EFFORT выполняет корректные переводы и отклоняет остальные")
+    void transferBatch_ShouldApplyValidTransfers_WhenBestEffort() {
+        List<CardTransferDto> transfers = List.of(
+                new CardTransferDto(cardId, anotherCardId, new BigDecimal("300.00")),
+                new CardTransferDto(cardId, anotherCardId, new BigDecimal("800.00")),
+                new CardTransferDto(anotherCardId, cardId, new BigDecimal("100.00")));
+
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+
+        CardBatchTransferResultDto result = cardService.transferBatch(userId, transfers, TransferBatchMode.BEST_EFFORT);
+
+        assertEquals(2, result.applied());
+        assertEquals(1, result.rejected());
+        assertEquals(TransferItemStatus.APPLIED, result.items().get(0).status());
+        assertEquals(TransferItemStatus.REJECTED, result.items().get(1).status());
+        assertEquals("Недостаточно средств для перевода.", result.items().get(1).message());
+        assertEquals(TransferItemStatus.APPLIED, result.items().get(2).status());
+        assertEquals(new BigDecimal("800.00"), card.getBalance());
+        assertEquals(new BigDecimal("700.00"), anotherCard.getBalance());
+        verify(cardRepository).saveAll(anyList());
+        verify(cardRepository, never()).debit(any(), any(), any());
+        verify(ledgerService).recordTransfers(List.of(transfers.get(0), transfers.get(2)));
+    }
+
+    @Test
+    @DisplayName("transferBatch: в режиме ALL_OR_NOTHING не изменяет балансы, если хотя бы один перевод отклонён")
+    void transferBatch_ShouldRollBackAll_WhenAllOrNothingAndItemRejected() {
+        UUID missingCardId = UUID.randomUUID();
+        List<CardTransferDto> transfers = List.of(
+                new CardTransferDto(cardId, anotherCardId, new BigDecimal("300.00")),
+                new CardTransferDto(cardId, missingCardId, new BigDecimal("100.00")));
+
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, anotherCardId, missingCardId)))
+                .thenReturn(List.of(card, anotherCard));
+
+        CardBatchTransferResultDto result = cardService.transferBatch(userId, transfers,
+                TransferBatchMode.ALL_OR_NOTHING);
+
+        assertEquals(0, result.applied());
+        assertEquals(1, result.rejected());
+        assertEquals(TransferItemStatus.ROLLED_BACK, result.items().get(0).status());
+        assertEquals(TransferItemStatus.REJECTED, result.items().get(1).status());
+        assertEquals("Карта не найдена.", result.items().get(1).message());
+        assertEquals(new BigDecimal("1000.00"), card.getBalance());
+        assertEquals(new BigDecimal("500.00"), anotherCard.getBalance());
+        verify(cardRepository, never()).saveAll(any());
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    @DisplayName("transferBatch: отклоняет переводы с чужой или неактивной картой")
+    void transferBatch_ShouldRejectForeignAndInactiveCards() {
+        User stranger = new User();
+        stranger.setId(UUID.randomUUID());
+        Card foreignCard = new Card();
+        foreignCard.setId(UUID.randomUUID());
+        foreignCard.setOwner(stranger);
+        foreignCard.setStatus(CardStatus.ACTIVE);
+        foreignCard.setBalance(BigDecimal.ZERO);
+        anotherCard.setStatus(CardStatus.BLOCKED);
+        List<CardTransferDto> transfers = List.of(
+                new CardTransferDto(cardId, foreignCard.getId(), new BigDecimal("10.00")),
+                new CardTransferDto(cardId, anotherCardId, new BigDecimal("10.00")));
+
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, anotherCardId, foreignCard.getId())))
+                .thenReturn(List.of(card, anotherCard, foreignCard));
+
+        CardBatchTransferResultDto result = cardService.transferBatch(userId, transfers, TransferBatchMode.BEST_EFFORT);
+
+        assertEquals(0, result.applied());
+        assertEquals("Перевод возможен только между своими картами.", result.items().get(0).message());
+        assertEquals("Перевод возможен только между активными картами.", result.items().get(1).message());
+        assertEquals(new BigDecimal("1000.00"), card.getBalance());
+    }
+
+    @Test
+    @DisplayName("transferGroup: блокирует карты группы одним запросом и отклоняет только некорректные переводы")
+    void transferGroup_ShouldApplyValidTransfersAndRejectOthers() {
+        UUID strangerId = UUID.randomUUID();
+        CardTransferDto first = new CardTransferDto(cardId, anotherCardId, new BigDecimal("600.00"));
+        CardTransferDto overdraft = new CardTransferDto(cardId, anotherCardId, new BigDecimal("600.00"));
+        CardTransferDto foreign = new CardTransferDto(anotherCardId, cardId, new BigDecimal("10.00"));
+        CardTransferDto back = new CardTransferDto(anotherCardId, cardId, new BigDecimal("100.00"));
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+
+        List<GroupTransferResult> results = cardService.transferGroup(List.of(
+                new GroupTransfer(userId, first),
+                new GroupTransfer(userId, overdraft),
+                new GroupTransfer(strangerId, foreign),
+                new GroupTransfer(userId, back)));
+
+        assertEquals(GroupTransferResult.Status.APPLIED, results.get(0).status());
+        assertEquals(GroupTransferResult.Status.REJECTED, results.get(1).status());
+        assertEquals("Недостаточно средств для перевода.", results.get(1).rejection().getMessage());
+        assertInstanceOf(ConflictException.class, results.get(2).rejection());
+        assertEquals("Перевод возможен только между своими картами.", results.get(2).rejection().getMessage());
+        assertEquals(GroupTransferResult.Status.APPLIED, results.get(3).status());
+        assertEquals(new BigDecimal("500.00"), card.getBalance());
+        assertEquals(new BigDecimal("1000.00"), anotherCard.getBalance());
+        verify(cardRepository, times(1)).findAllByIdForUpdate(anyCollection());
+        verify(cardRepository).saveAll(anyList());
+        verify(cardRepository, never()).debit(any(), any(), any());
+        verify(ledgerService).recordTransfers(List.of(first, back));
+    }
+
+    @Test
+    @DisplayName("transferGroup: отклоняет перевод с отсутствующей картой ошибкой NotFoundException")
+    void transferGroup_ShouldRejectWithNotFound_WhenCardMissing() {
+        UUID missingCardId = UUID.randomUUID();
+        CardTransferDto dto = new CardTransferDto(cardId, missingCardId, new BigDecimal("10.00"));
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, missingCardId))).thenReturn(List.of(card));
+
+        List<GroupTransferResult> results = cardService.transferGroup(List.of(new GroupTransfer(userId, dto)));
+
+        assertInstanceOf(NotFoundException.class, results.get(0).rejection());
+        assertEquals(new BigDecimal("1000.00"), card.getBalance());
+        verify(cardRepository, never()).saveAll(any());
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    @DisplayName("transferGroup: откладывает перевод, если карте с разбитым балансом не хватает основного баланса")
+    void transferGroup_ShouldDeferTransfer_WhenStripedCardNeedsStripes() {
+        card.setStripeCount(4);
+        CardTransferDto dto = new CardTransferDto(cardId, anotherCardId, new BigDecimal("1500.00"));
+        when(cardRepository.findAllByIdForUpdate(Set.of(cardId, anotherCardId))).thenReturn(List.of(card, anotherCard));
+
+        List<GroupTransferResult> results = cardService.transferGroup(List.of(new GroupTransfer(userId, dto)));
+
+        assertEquals(GroupTransferResult.Status.DEFERRED, results.get(0).status());
+        assertEquals(new BigDecimal("1000.00"), card.getBalance());
+        verifyNoInteractions(cardStripeService, ledgerService);
+    }
+
+    @Test
+    @DisplayName("getUserCardById: возвращает карту пользователя, если он владелец")
+    void getUserCardById_ShouldReturnCard_WhenOwner() {
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
+        when(cardMapper.toDto(card)).thenReturn(cardDto);
+
+        CardDto result = cardService.getUserCardById(cardId, userId);
+
+        assertNotNull(result);
+        assertEquals(cardDto, result);
+        verifyNoInteractions(userRepository);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
+        verify(cardMapper, times(1)).toDto(card);
     }
 
     @Test
     @DisplayName("getUserCardById: бросает NotFoundException, если карта не найдена")
     void getUserCardById_ShouldThrowNotFound_WhenCardNotFound() {
-        String username = "testuser";
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(cardRepository.findById(cardId)).thenReturn(Optional.empty());
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.empty());
 
-        assertThrows(NotFoundException.class, () -> cardService.getUserCardById(cardId, username));
+        assertThrows(NotFoundException.class, () -> cardService.getUserCardById(cardId, userId));
 
-        verify(userRepository, times(1)).findByUsername(username);
-        verify(cardRepository, times(1)).findById(cardId);
+        verifyNoInteractions(userRepository);
+        verify(cardRepository, times(1)).findWithOwnerById(cardId);
         verifyNoInteractions(cardMapper);
     }
 
     @Test
     @DisplayName("getUserCardById: бросает ConflictException, если карта чужая")
     void getUserCardById_ShouldThrowConflict_WhenNotOwner() {
-        String username = "testuser";
         User anotherUser = new User();
         anotherUser.setId(UUID.randomUUID());
         card.setOwner(anotherUser);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(cardRepository.findWithOwnerById(cardId)).thenReturn(Optional.of(card));
+
+        assertThrows(ConflictException.class, () -> cardService.getUserCardById(cardId, userId));
+
+        verify(cardMapper, never()).toDto(any(Card.class));
+    }
+
+    @Test
+    @DisplayName("getUserCardLedger: возвращает журнал операций своей карты, начиная с последних")
+    void getUserCardLedger_ShouldReturnLedger_WhenOwner() {
+        CardLedgerEntry entry = new CardLedgerEntry(1L, cardId, UUID.randomUUID(), LedgerEntryType.DEBIT,
+                new BigDecimal("-100.00"), LocalDateTime.now());
+        CardLedgerEntryDto entryDto = new CardLedgerEntryDto(entry.getId(), entry.getTransferId(),
+                entry.getEntryType(), entry.getAmount(), entry.getCreatedAt());
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("id").descending());
+
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+        when(cardLedgerRepository.findAllByCardId(cardId, pageable)).thenReturn(new PageImpl<>(List.of(entry)));
+        when(cardLedgerMapper.toDto(entry)).thenReturn(entryDto);
+
+        PageResponse<CardLedgerEntryDto> result = cardService.getUserCardLedger(cardId, userId, 0, 10);
 
-        assertThrows(ConflictException.class, () -> cardService.getUserCardById(cardId, username));
+        assertEquals(List.of(entryDto), result.content());
+    }
+
+    @Test
+    @DisplayName("getUserCardLedger: бросает ConflictException при запросе журнала чужой карты")
+    void getUserCardLedger_ShouldThrowConflict_WhenNotOwner() {
+        User stranger = new User();
+        stranger.setId(UUID.randomUUID());
+        card.setOwner(stranger);
+
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
 
-        verify(cardMapper, never()).toDto(any());
+        assertThrows(ConflictException.class, () -> cardService.getUserCardLedger(cardId, userId, 0, 10));
+        verifyNoInteractions(cardLedgerRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardStripesDto;
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.support.TestFixtures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест зачислений на одну горячую карту: несколько потоков одновременно переводят средства
+ * с разных карт на одну карту-получатель. Сравнивает пропускную способность без разбиения баланса
+ * и с разным количеством частей баланса.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class CardStripeContentionTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int SOURCE_CARDS = 16;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    private static final String USERNAME = "merchant";
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @ParameterizedTest(name = "частей баланса: {0}")
+    @ValueSource(ints = {0, 4, 16})
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("transfer: зачисления на горячую карту не теряются при любом количестве частей баланса")
+    void transfer_ShouldCreditHotCard_UnderConcurrentLoad(int stripeCount) throws Exception {
+        User owner = fixtures.createUser(USERNAME);
+        UUID hotCardId = fixtures.createActiveCard(owner, BigDecimal.ZERO).getId();
+        List<UUID> sourceIds = fixtures.createActiveCards(owner, SOURCE_CARDS, INITIAL_BALANCE);
+        cardService.updateCardStripes(hotCardId, new CardStripesDto(stripeCount));
+        ledgerService.snapshotBalances();
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    UUID from = sourceIds.get(random.nextInt(SOURCE_CARDS));
+                    try {
+                        cardService.transfer(owner.getId(), new CardTransferDto(from, hotCardId, AMOUNT));
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+
+        log.info("Частей баланса: {}, потоков: {}, зачислений: {}, пропускная способность: {} переводов/с",
+                stripeCount, THREADS, transfers, String.format("%.1f", transfers / seconds));
+
+        assertTrue(errors.isEmpty(), () -> "Неожиданные ошибки: " + errors);
+        BigDecimal credited = AMOUNT.multiply(BigDecimal.valueOf(transfers));
+        assertEquals(0, credited.compareTo(availableBalance(hotCardId)));
+
+        cardService.transfer(owner.getId(), new CardTransferDto(hotCardId, sourceIds.get(0), credited));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(availableBalance(hotCardId)));
+        BigDecimal sourcesTotal = cardRepository.findAllById(sourceIds).stream()
+                .map(Card::getAvailableBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(SOURCE_CARDS)).compareTo(sourcesTotal));
+        fixtures.assertLedgerReconciled();
+    }
+
+    private BigDecimal availableBalance(UUID cardId) {
+        return cardService.getById(cardId).getBalance();
+    }
+}
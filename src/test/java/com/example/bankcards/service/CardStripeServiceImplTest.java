@@ -0,0 +1,157 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceStripe;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardBalanceStripeRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.CardStripeServiceImpl;
+import com.example.bankcards.util.CardStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardStripeServiceImplTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardBalanceStripeRepository stripeRepository;
+
+    @InjectMocks
+    private CardStripeServiceImpl cardStripeService;
+
+    private UUID userId;
+    private UUID cardId;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        cardId = UUID.randomUUID();
+
+        User user = new User();
+        user.setId(userId);
+
+        card = new Card();
+        card.setId(cardId);
+        card.setOwner(user);
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalance(new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("credit: возвращает false, если баланс карты не разбит")
+    void credit_ShouldReturnFalse_WhenCardNotStriped() {
+        when(cardRepository.findStripeCount(cardId)).thenReturn(Optional.of(0));
+
+        assertFalse(cardStripeService.credit(cardId, userId, BigDecimal.TEN));
+        verifyNoInteractions(stripeRepository);
+    }
+
+    @Test
+    @DisplayName("credit: зачисляет на одну из частей баланса карты")
+    void credit_ShouldCreditOneOfStripes_WhenCardStriped() {
+        when(cardRepository.findStripeCount(cardId)).thenReturn(Optional.of(4));
+        when(stripeRepository.credit(eq(cardId), anyInt(), eq(userId), eq(BigDecimal.TEN))).thenReturn(1);
+
+        assertTrue(cardStripeService.credit(cardId, userId, BigDecimal.TEN));
+
+        ArgumentCaptor<Integer> stripe = ArgumentCaptor.forClass(Integer.class);
+        verify(stripeRepository).credit(eq(cardId), stripe.capture(), eq(userId), eq(BigDecimal.TEN));
+        assertTrue(stripe.getValue() >= 0 && stripe.getValue() < 4);
+        verify(cardRepository).lockCacheEntry(cardId);
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("credit: возвращает false, если карта не найдена")
+    void credit_ShouldReturnFalse_WhenCardNotFound() {
+        when(cardRepository.findStripeCount(cardId)).thenReturn(Optional.empty());
+
+        assertFalse(cardStripeService.credit(cardId, userId, BigDecimal.TEN));
+        verifyNoInteractions(stripeRepository);
+        verify(cardRepository, never()).lockCacheEntry(any());
+    }
+
+    @Test
+    @DisplayName("consolidate: переносит сумму частей в основной баланс и обнуляет части")
+    void consolidate_ShouldMoveStripesToBalance() {
+        CardBalanceStripe first = new CardBalanceStripe(cardId, 0, new BigDecimal("30.00"));
+        CardBalanceStripe second = new CardBalanceStripe(cardId, 1, new BigDecimal("20.00"));
+        when(cardRepository.lockStripedCard(cardId, userId)).thenReturn(Optional.of(cardId));
+        when(stripeRepository.findAllByCardIdForUpdate(cardId)).thenReturn(List.of(first, second));
+
+        assertTrue(cardStripeService.consolidate(cardId, userId));
+
+        verify(cardRepository).addToBalance(cardId, new BigDecimal("50.00"));
+        assertEquals(BigDecimal.ZERO, first.getBalance());
+        assertEquals(BigDecimal.ZERO, second.getBalance());
+    }
+
+    @Test
+    @DisplayName("consolidate: возвращает false для карты без разбиения или чужой карты")
+    void consolidate_ShouldReturnFalse_WhenCardNotStriped() {
+        when(cardRepository.lockStripedCard(cardId, userId)).thenReturn(Optional.empty());
+
+        assertFalse(cardStripeService.consolidate(cardId, userId));
+        verifyNoInteractions(stripeRepository);
+        verify(cardRepository, never()).addToBalance(any(), any());
+    }
+
+    @Test
+    @DisplayName("configure: переносит части в основной баланс и создаёт новые пустые части")
+    @SuppressWarnings("unchecked")
+    void configure_ShouldFoldStripesAndCreateNewOnes() {
+        List<CardBalanceStripe> existing = new ArrayList<>(List.of(
+                new CardBalanceStripe(cardId, 0, new BigDecimal("5.00")),
+                new CardBalanceStripe(cardId, 1, new BigDecimal("7.00"))));
+        card.setStripeCount(2);
+        when(stripeRepository.findAllByCardIdForUpdate(cardId)).thenReturn(existing);
+        ArgumentCaptor<List<CardBalanceStripe>> added = ArgumentCaptor.forClass(List.class);
+
+        cardStripeService.configure(card, 4);
+
+        assertEquals(new BigDecimal("112.00"), card.getBalance());
+        assertEquals(new BigDecimal("112.00"), card.getAvailableBalance());
+        assertEquals(4, card.getStripeCount());
+        verify(stripeRepository).saveAll(added.capture());
+        assertEquals(List.of(2, 3), added.getValue().stream().map(CardBalanceStripe::getStripe).toList());
+        verify(stripeRepository, times(1)).findAllByCardIdForUpdate(cardId);
+    }
+
+    @Test
+    @DisplayName("configure: удаляет лишние части при уменьшении их количества")
+    void configure_ShouldDeleteExtraStripes_WhenShrinking() {
+        List<CardBalanceStripe> existing = List.of(
+                new CardBalanceStripe(cardId, 0, BigDecimal.ZERO),
+                new CardBalanceStripe(cardId, 1, BigDecimal.ZERO),
+                new CardBalanceStripe(cardId, 2, BigDecimal.ZERO));
+        card.setStripeCount(3);
+        when(stripeRepository.findAllByCardIdForUpdate(cardId)).thenReturn(existing);
+
+        cardStripeService.configure(card, 0);
+
+        verify(stripeRepository).deleteAll(existing);
+        assertEquals(0, card.getStripeCount());
+        assertEquals(new BigDecimal("100.00"), card.getBalance());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.support.TestFixtures;
+import com.example.bankcards.util.CardLockOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест переводов: несколько потоков одновременно переводят средства
+ * между картами одного пользователя. Чем меньше карт в пуле, тем выше конкуренция за строки.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class CardTransferConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+    private static final String USERNAME = "loaduser";
+
+    private UUID ownerId;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest(name = "карт в пуле: {0}")
+    @ValueSource(ints = {16, 4, 2})
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("transfer: сумма балансов сохраняется, а журнал согласован с балансами при конкурентных переводах")
+    void transfer_ShouldConserveMoney_UnderConcurrentLoad(int cardCount) throws Exception {
+        List<UUID> cardIds = createActiveCards(cardCount);
+        ledgerService.snapshotBalances();
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(cardCount));
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(cardCount);
+                    int to = (from + 1 + random.nextInt(cardCount - 1)) % cardCount;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 10_000), 2);
+                    try {
+                        cardService.transfer(ownerId, new CardTransferDto(cardIds.get(from), cardIds.get(to), amount));
+                        completed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        log.info("Карт: {}, потоков: {}, выполнено: {}, отклонено: {}, пропускная способность: {} переводов/с",
+                cardCount, THREADS, completed.get(), rejected.get(),
+                String.format("%.1f", (completed.get() + rejected.get()) / seconds));
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Неожиданные ошибки: " + unexpectedErrors);
+
+        fixtures.assertBalancesConserved(cardIds, expectedTotal);
+    }
+
+    @Test
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("findAllByIdForUpdate: база возвращает и блокирует карты в порядке CardLockOrder")
+    void findAllByIdForUpdate_ShouldLockCardsInCardLockOrder() {
+        List<UUID> cardIds = createActiveCards(32);
+        List<UUID> expected = cardIds.stream().sorted(CardLockOrder.COMPARATOR).toList();
+
+        List<UUID> locked = new TransactionTemplate(transactionManager).execute(status ->
+                cardRepository.findAllByIdForUpdate(cardIds).stream().map(Card::getId).toList());
+
+        assertEquals(expected, locked);
+    }
+
+    private List<UUID> createActiveCards(int count) {
+        User owner = fixtures.createUser(USERNAME);
+        ownerId = owner.getId();
+        return fixtures.createActiveCards(owner, count, INITIAL_BALANCE);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardStripesDto;
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.support.TestFixtures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест групповой фиксации: переводы нескольких потоков фиксируются общими транзакциями,
+ * отклонённые переводы ничего не изменяют и не затрагивают остальные.
+ */
+@SpringBootTest(properties = "bank.transfer.group-commit.enabled=true")
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+@Slf4j
+class GroupCommitConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final int CARD_COUNT = 4;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100.00");
+    private static final String USERNAME = "loaduser";
+
+    private UUID ownerId;
+
+    @Autowired
+    private GroupCommitService groupCommitService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private CardService cardService;
+
+    @Test
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("transfer: сумма балансов сохраняется, а журнал согласован с балансами при групповой фиксации")
+    void transfer_ShouldConserveMoney_WithGroupCommit() throws Exception {
+        List<UUID> cardIds = createActiveCards();
+        ledgerService.snapshotBalances();
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARD_COUNT));
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Queue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARD_COUNT);
+                    int to = (from + 1 + random.nextInt(CARD_COUNT - 1)) % CARD_COUNT;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 10_000), 2);
+                    try {
+                        groupCommitService.transfer(ownerId,
+                                new CardTransferDto(cardIds.get(from), cardIds.get(to), amount));
+                        completed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        log.info("Групповая фиксация. Потоков: {}, выполнено: {}, отклонено: {}, пропускная способность: {} переводов/с",
+                THREADS, completed.get(), rejected.get(),
+                String.format("%.1f", (completed.get() + rejected.get()) / seconds));
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Неожиданные ошибки: " + unexpectedErrors);
+        assertTrue(rejected.get() > 0, "Ожидались отклонённые переводы");
+
+        fixtures.assertBalancesConserved(cardIds, expectedTotal);
+    }
+
+    @Test
+    @Sql(scripts = "/data/cleanUp.sql")
+    @DisplayName("transfer: групповая фиксация и одиночные переводы по общим картам не блокируют друг друга взаимно")
+    void transfer_ShouldNotDeadlock_WhenGroupCommitRunsAlongsideDirectTransfers(CapturedOutput output) throws Exception {
+        List<UUID> cardIds = createActiveCards();
+        cardService.updateCardStripes(cardIds.get(0), new CardStripesDto(2));
+        BigDecimal expectedTotal = INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARD_COUNT));
+
+        Queue<Throwable> unexpectedErrors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            boolean grouped = t % 2 == 0;
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(CARD_COUNT);
+                    int to = (from + 1 + random.nextInt(CARD_COUNT - 1)) % CARD_COUNT;
+                    CardTransferDto dto = new CardTransferDto(cardIds.get(from), cardIds.get(to),
+                            BigDecimal.valueOf(random.nextInt(1, 10_000), 2));
+                    try {
+                        if (grouped) {
+                            groupCommitService.transfer(ownerId, dto);
+                        } else {
+                            cardService.transfer(ownerId, dto);
+                        }
+                    } catch (ConflictException e) {
+                        // Нехватка средств ожидаема и не относится к проверке.
+                    } catch (Throwable e) {
+                        unexpectedErrors.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertTrue(unexpectedErrors.isEmpty(), () -> "Неожиданные ошибки: " + unexpectedErrors);
+        assertFalse(output.getAll().contains("Групповая фиксация не удалась"),
+                "Транзакция группы не должна прерываться взаимной блокировкой");
+
+        BigDecimal actualTotal = cardRepository.findAllById(cardIds).stream()
+                .map(Card::getAvailableBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, expectedTotal.compareTo(actualTotal));
+    }
+
+    private List<UUID> createActiveCards() {
+        User owner = fixtures.createUser(USERNAME);
+        ownerId = owner.getId();
+        return fixtures.createActiveCards(owner, CARD_COUNT, INITIAL_BALANCE);
+    }
+}
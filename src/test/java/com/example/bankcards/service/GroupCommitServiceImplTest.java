@@ -0,0 +1,149 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.GroupTransfer;
+import com.example.bankcards.dto.card.GroupTransferResult;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.service.impl.GroupCommitServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitServiceImplTest {
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GroupCommitServiceImpl groupCommitService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        if (groupCommitService != null) {
+            groupCommitService.shutdown();
+        }
+    }
+
+    private GroupCommitServiceImpl enabledService(Duration window, int maxBatch) {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        return new GroupCommitServiceImpl(cardService, transactionManager, true, window, maxBatch, 100);
+    }
+
+    private CardTransferDto transferDto(String amount) {
+        return new CardTransferDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal(amount));
+    }
+
+    @Test
+    @DisplayName("transfer: в выключенном режиме выполняет перевод сразу, без групповой транзакции")
+    void transfer_ShouldDelegateDirectly_WhenDisabled() {
+        groupCommitService = new GroupCommitServiceImpl(cardService, transactionManager, false,
+                Duration.ofMillis(2), 256, 100);
+        CardTransferDto dto = transferDto("10.00");
+
+        groupCommitService.transfer(userId, dto);
+
+        verify(cardService).transfer(userId, dto);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("transfer: отклонённый перевод группы получает свою ошибку, остальные выполняются")
+    void transfer_ShouldCompleteEachCallerSeparately() throws Exception {
+        groupCommitService = enabledService(Duration.ofMillis(200), 4);
+        CardTransferDto rejectedDto = transferDto("5000.00");
+        when(cardService.transferGroup(anyList())).thenAnswer(invocation -> {
+            List<GroupTransfer> transfers = invocation.getArgument(0);
+            return transfers.stream()
+                    .map(transfer -> transfer.dto() == rejectedDto
+                            ? GroupTransferResult.rejected(new ConflictException("Недостаточно средств для перевода."))
+                            : GroupTransferResult.applied())
+                    .toList();
+        });
+
+        List<CardTransferDto> dtos = List.of(transferDto("10.00"), rejectedDto, transferDto("20.00"), transferDto("30.00"));
+        ExecutorService executor = Executors.newFixedThreadPool(dtos.size());
+        List<Future<?>> results = new ArrayList<>();
+        for (CardTransferDto dto : dtos) {
+            results.add(executor.submit(() -> groupCommitService.transfer(userId, dto)));
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            if (dtos.get(i) == rejectedDto) {
+                Exception e = assertThrows(Exception.class, results.get(i)::get);
+                assertInstanceOf(ConflictException.class, e.getCause());
+            } else {
+                assertNull(results.get(i).get());
+            }
+        }
+        verify(cardService, atLeastOnce()).transferGroup(anyList());
+        verify(cardService, never()).transfer(any(), any());
+    }
+
+    @Test
+    @DisplayName("transfer: при сбое групповой транзакции выполняет переводы по одному")
+    void transfer_ShouldFallBackToSingleTransfers_WhenBatchFails() {
+        groupCommitService = enabledService(Duration.ofMillis(1), 256);
+        CardTransferDto dto = transferDto("10.00");
+        when(cardService.transferGroup(anyList())).thenThrow(new IllegalStateException("Соединение потеряно"));
+
+        groupCommitService.transfer(userId, dto);
+
+        verify(cardService).transfer(userId, dto);
+    }
+
+    @Test
+    @DisplayName("transfer: ошибка повторного выполнения после сбоя группы передаётся вызывающему")
+    void transfer_ShouldRethrow_WhenSingleTransferFailsAfterBatchFailure() {
+        groupCommitService = enabledService(Duration.ofMillis(1), 256);
+        CardTransferDto dto = transferDto("10.00");
+        when(cardService.transferGroup(anyList())).thenThrow(new IllegalStateException("Соединение потеряно"));
+        doThrow(new IllegalStateException("Соединение потеряно"))
+                .when(cardService).transfer(userId, dto);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> groupCommitService.transfer(userId, dto));
+
+        assertEquals("Соединение потеряно", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("transfer: перевод, отложенный группой, выполняется отдельно после её фиксации")
+    void transfer_ShouldApplySeparately_WhenGroupDefersTransfer() {
+        groupCommitService = enabledService(Duration.ofMillis(1), 256);
+        CardTransferDto dto = transferDto("10.00");
+        when(cardService.transferGroup(List.of(new GroupTransfer(userId, dto))))
+                .thenReturn(List.of(GroupTransferResult.deferred()));
+
+        groupCommitService.transfer(userId, dto);
+
+        InOrder inOrder = inOrder(cardService, transactionManager);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(cardService).transfer(userId, dto);
+    }
+}
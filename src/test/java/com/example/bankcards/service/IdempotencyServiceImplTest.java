@@ -0,0 +1,170 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private UUID userId;
+    private String key;
+    private CardTransferDto dto;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository, cardService, transactionManager,
+                100, Duration.ofHours(24), 2);
+        userId = UUID.randomUUID();
+        key = UUID.randomUUID().toString();
+        dto = new CardTransferDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("transfer: повтор обслуживается из LRU-кэша без обращения к базе и без повторного перевода")
+    void transfer_ShouldServeDuplicateFromCache() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)).thenReturn(Optional.empty());
+
+        idempotencyService.transfer(userId, key, dto);
+        idempotencyService.transfer(userId, key, dto);
+
+        verify(cardService, times(1)).transfer(userId, dto);
+        verify(idempotencyKeyRepository, times(1)).findByUserIdAndIdempotencyKey(userId, key);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    @DisplayName("transfer: ключ, сохранённый в базе, воспроизводится без повторного перевода")
+    void transfer_ShouldReplayStoredKey() {
+        idempotencyService.transfer(UUID.randomUUID(), key, dto);
+        IdempotencyKey stored = captureSavedKey();
+        stored.setUserId(userId);
+        clearInvocations(cardService, idempotencyKeyRepository);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)).thenReturn(Optional.of(stored));
+
+        idempotencyService.transfer(userId, key, dto);
+
+        verify(cardService, never()).transfer(any(), any());
+        verify(idempotencyKeyRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("transfer: некорректные параметры перевода отклоняются до обращения к таблице ключей")
+    void transfer_ShouldRejectInvalidRequest_BeforeKeyLookup() {
+        doThrow(new ConflictException("Перевод на ту же карту невозможен."))
+                .when(cardService).checkTransferRequest(dto);
+
+        assertThrows(ConflictException.class, () -> idempotencyService.transfer(userId, key, dto));
+
+        verifyNoInteractions(idempotencyKeyRepository);
+        verify(cardService, never()).transfer(any(), any());
+    }
+
+    @Test
+    @DisplayName("transfer: бросает ConflictException, если ключ использован с другими параметрами")
+    void transfer_ShouldThrowConflict_WhenRequestDiffers() {
+        idempotencyService.transfer(userId, key, dto);
+        CardTransferDto other = new CardTransferDto(dto.fromCardId(), dto.toCardId(), new BigDecimal("200.00"));
+
+        assertThrows(ConflictException.class, () -> idempotencyService.transfer(userId, key, other));
+
+        verify(cardService, times(1)).transfer(any(), any());
+    }
+
+    @Test
+    @DisplayName("transfer: сохраняет ошибку перевода и воспроизводит её при повторе")
+    void transfer_ShouldReplayStoredFailure() {
+        doThrow(new ConflictException("Недостаточно средств для перевода.")).when(cardService).transfer(userId, dto);
+
+        ConflictException first = assertThrows(ConflictException.class,
+                () -> idempotencyService.transfer(userId, key, dto));
+        ConflictException second = assertThrows(ConflictException.class,
+                () -> idempotencyService.transfer(userId, key, dto));
+
+        assertEquals(first.getMessage(), second.getMessage());
+        verify(cardService, times(1)).transfer(userId, dto);
+    }
+
+    @Test
+    @DisplayName("transfer: при гонке одинаковых запросов воспроизводит результат победителя")
+    void transfer_ShouldReplayWinner_WhenConcurrentDuplicateCommittedFirst() {
+        idempotencyService.transfer(UUID.randomUUID(), key, dto);
+        IdempotencyKey winner = captureSavedKey();
+        winner.setUserId(userId);
+        clearInvocations(cardService, idempotencyKeyRepository);
+
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_idempotency_keys_user_key"));
+
+        assertDoesNotThrow(() -> idempotencyService.transfer(userId, key, dto));
+        verify(idempotencyKeyRepository, times(2)).findByUserIdAndIdempotencyKey(userId, key);
+    }
+
+    @Test
+    @DisplayName("transfer: просроченный ключ удаляется, и перевод выполняется заново")
+    void transfer_ShouldExecuteAgain_WhenStoredKeyExpired() {
+        idempotencyService.transfer(UUID.randomUUID(), key, dto);
+        IdempotencyKey expired = captureSavedKey();
+        expired.setUserId(userId);
+        expired.setCreatedAt(LocalDateTime.now().minusDays(2));
+        clearInvocations(cardService, idempotencyKeyRepository);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)).thenReturn(Optional.of(expired));
+
+        idempotencyService.transfer(userId, key, dto);
+
+        verify(idempotencyKeyRepository, times(1)).delete(expired);
+        verify(cardService, times(1)).transfer(userId, dto);
+    }
+
+    @Test
+    @DisplayName("deleteExpiredKeys: удаляет просроченные ключи порциями, пока порция заполнена")
+    void deleteExpiredKeys_ShouldDeleteInChunks() {
+        when(idempotencyKeyRepository.deleteExpiredChunk(any(LocalDateTime.class), eq(2)))
+                .thenReturn(2, 2, 1);
+
+        idempotencyService.deleteExpiredKeys();
+
+        verify(idempotencyKeyRepository, times(3)).deleteExpiredChunk(any(LocalDateTime.class), eq(2));
+    }
+
+    private IdempotencyKey captureSavedKey() {
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        return captor.getValue();
+    }
+}
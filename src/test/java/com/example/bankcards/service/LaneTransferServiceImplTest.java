@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.CardTransferStatusDto;
+import com.example.bankcards.exception.ConflictException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.service.impl.LaneTransferServiceImpl;
+import com.example.bankcards.util.TransferStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LaneTransferServiceImplTest {
+
+    @Mock
+    private CardService cardService;
+
+    private LaneTransferServiceImpl laneTransferService;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        laneTransferService = new LaneTransferServiceImpl(cardService, 4, 100, 1000);
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        laneTransferService.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit: выполняет перевод в очереди и отмечает его выполненным")
+    void submit_ShouldCompleteTransfer() throws InterruptedException {
+        CardTransferDto dto = new CardTransferDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("10.00"));
+
+        CardTransferStatusDto queued = laneTransferService.submit(userId, dto);
+
+        assertEquals(TransferStatus.QUEUED, queued.status());
+        CardTransferStatusDto result = awaitCompletion(queued.transferId());
+        assertEquals(TransferStatus.COMPLETED, result.status());
+        assertNull(result.message());
+        verify(cardService).transfer(userId, dto);
+    }
+
+    @Test
+    @DisplayName("submit: сохраняет причину отказа перевода")
+    void submit_ShouldRecordFailure() throws InterruptedException {
+        CardTransferDto dto = new CardTransferDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("10.00"));
+        doThrow(new ConflictException("Недостаточно средств для перевода.")).when(cardService).transfer(userId, dto);
+
+        CardTransferStatusDto result = awaitCompletion(laneTransferService.submit(userId, dto).transferId());
+
+        assertEquals(TransferStatus.FAILED, result.status());
+        assertEquals("Недостаточно средств для перевода.", result.message());
+    }
+
+    @Test
+    @DisplayName("submit: переводы с одной картой выполняются в порядке поступления, в том числе между полосами")
+    void submit_ShouldApplyTransfersOfOneCardInOrder() throws InterruptedException {
+        UUID hotCardId = UUID.randomUUID();
+        List<BigDecimal> applied = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            applied.add(invocation.<CardTransferDto>getArgument(1).amount());
+            return null;
+        }).when(cardService).transfer(eq(userId), any());
+
+        List<BigDecimal> submitted = new ArrayList<>();
+        List<UUID> transferIds = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            BigDecimal amount = BigDecimal.valueOf(i);
+            submitted.add(amount);
+            transferIds.add(laneTransferService.submit(userId,
+                    new CardTransferDto(UUID.randomUUID(), hotCardId, amount)).transferId());
+        }
+        for (UUID transferId : transferIds) {
+            assertEquals(TransferStatus.COMPLETED, awaitCompletion(transferId).status());
+        }
+
+        assertEquals(submitted, applied);
+    }
+
+    @Test
+    @DisplayName("getStatus: бросает NotFoundException для перевода другого пользователя")
+    void getStatus_ShouldThrowNotFound_WhenTransferOfAnotherUser() {
+        CardTransferDto dto = new CardTransferDto(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("10.00"));
+        UUID transferId = laneTransferService.submit(userId, dto).transferId();
+
+        assertThrows(NotFoundException.class, () -> laneTransferService.getStatus(transferId, UUID.randomUUID()));
+        assertThrows(NotFoundException.class, () -> laneTransferService.getStatus(UUID.randomUUID(), userId));
+    }
+
+    private CardTransferStatusDto awaitCompletion(UUID transferId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CardTransferStatusDto status = laneTransferService.getStatus(transferId, userId);
+        while (status.status() == TransferStatus.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            status = laneTransferService.getStatus(transferId, userId);
+        }
+        return status;
+    }
+}
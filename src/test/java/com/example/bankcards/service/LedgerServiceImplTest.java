@@ -0,0 +1,171 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardTransferDto;
+import com.example.bankcards.dto.card.LedgerBalanceView;
+import com.example.bankcards.entity.CardBalanceSnapshot;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.repository.CardBalanceSnapshotRepository;
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.service.impl.LedgerServiceImpl;
+import com.example.bankcards.util.LedgerEntryType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceImplTest {
+
+    @Mock
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Mock
+    private CardBalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LedgerServiceImpl ledgerService;
+
+    private UUID cardId;
+    private UUID anotherCardId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ledgerService = new LedgerServiceImpl(cardLedgerRepository, snapshotRepository, transactionManager,
+                meterRegistry, 2, Duration.ofMinutes(5));
+        cardId = UUID.randomUUID();
+        anotherCardId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("recordTransfer: добавляет записи списания и зачисления с общим идентификатором перевода")
+    @SuppressWarnings("unchecked")
+    void recordTransfer_ShouldAppendDebitAndCredit() {
+        ArgumentCaptor<List<CardLedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        ledgerService.recordTransfer(new CardTransferDto(cardId, anotherCardId, new BigDecimal("250.00")));
+
+        verify(cardLedgerRepository).saveAll(captor.capture());
+        List<CardLedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(cardId, entries.get(0).getCardId());
+        assertEquals(LedgerEntryType.DEBIT, entries.get(0).getEntryType());
+        assertEquals(new BigDecimal("-250.00"), entries.get(0).getAmount());
+        assertEquals(anotherCardId, entries.get(1).getCardId());
+        assertEquals(LedgerEntryType.CREDIT, entries.get(1).getEntryType());
+        assertEquals(new BigDecimal("250.00"), entries.get(1).getAmount());
+        assertEquals(entries.get(0).getTransferId(), entries.get(1).getTransferId());
+    }
+
+    @Test
+    @DisplayName("recordTransfers: добавляет записи всех переводов пакета одним вызовом")
+    @SuppressWarnings("unchecked")
+    void recordTransfers_ShouldAppendEntriesForEachTransfer() {
+        ArgumentCaptor<List<CardLedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+
+        ledgerService.recordTransfers(List.of(
+                new CardTransferDto(cardId, anotherCardId, new BigDecimal("10.00")),
+                new CardTransferDto(anotherCardId, cardId, new BigDecimal("5.00"))));
+
+        verify(cardLedgerRepository, times(1)).saveAll(captor.capture());
+        assertEquals(4, captor.getValue().size());
+    }
+
+    @Test
+    @DisplayName("snapshotBalances: сохраняет баланс на границе только для карт с новыми записями журнала")
+    @SuppressWarnings("unchecked")
+    void snapshotBalances_ShouldSaveOnlyChangedSnapshots() {
+        LedgerBalanceView unchanged = new LedgerBalanceView(cardId, new BigDecimal("100.00"),
+                BigDecimal.ZERO, new BigDecimal("100.00"), BigDecimal.ZERO);
+        LedgerBalanceView changed = new LedgerBalanceView(anotherCardId, new BigDecimal("90.00"),
+                new BigDecimal("10.00"), new BigDecimal("50.00"), new BigDecimal("30.00"));
+        when(cardLedgerRepository.readBalances(eq(new UUID(0, 0)), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(unchanged, changed));
+        when(cardLedgerRepository.readBalances(eq(anotherCardId), any(), eq(Limit.of(2)))).thenReturn(List.of());
+        ArgumentCaptor<List<CardBalanceSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        LocalDateTime before = LocalDateTime.now().minusMinutes(5).minusSeconds(1);
+
+        ledgerService.snapshotBalances();
+
+        verify(snapshotRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        CardBalanceSnapshot saved = captor.getValue().get(0);
+        assertEquals(anotherCardId, saved.getCardId());
+        assertEquals(new BigDecimal("80.00"), saved.getBalance());
+        assertTrue(saved.getCoveredUntil().isAfter(before));
+        assertTrue(saved.getCoveredUntil().isBefore(LocalDateTime.now().minusMinutes(4)));
+        assertEquals(0.0, meterRegistry.counter("bank.ledger.discrepancies").count());
+    }
+
+    @Test
+    @DisplayName("snapshotBalances: читает все порции с одной границей")
+    void snapshotBalances_ShouldUseSameHorizonForAllChunks() {
+        LedgerBalanceView first = new LedgerBalanceView(cardId, BigDecimal.ONE, BigDecimal.ZERO, null, BigDecimal.ZERO);
+        LedgerBalanceView second = new LedgerBalanceView(anotherCardId, BigDecimal.TEN, BigDecimal.ZERO,
+                null, BigDecimal.ZERO);
+        ArgumentCaptor<LocalDateTime> horizons = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(cardLedgerRepository.readBalances(any(), horizons.capture(), eq(Limit.of(2))))
+                .thenReturn(List.of(first, second), List.of());
+
+        ledgerService.snapshotBalances();
+
+        assertEquals(2, horizons.getAllValues().size());
+        assertEquals(horizons.getAllValues().get(0), horizons.getAllValues().get(1));
+        verify(cardLedgerRepository).readBalances(eq(second.cardId()), any(), eq(Limit.of(2)));
+    }
+
+    @Test
+    @DisplayName("snapshotBalances: создаёт первый снимок карты без проверки по журналу")
+    void snapshotBalances_ShouldCreateFirstSnapshot() {
+        LedgerBalanceView first = new LedgerBalanceView(cardId, new BigDecimal("40.00"),
+                new BigDecimal("15.00"), null, BigDecimal.ZERO);
+        when(cardLedgerRepository.readBalances(any(), any(), any())).thenReturn(List.of(first));
+        ArgumentCaptor<List<CardBalanceSnapshot>> captor = captor();
+
+        ledgerService.snapshotBalances();
+
+        verify(snapshotRepository).saveAll(captor.capture());
+        assertEquals(new BigDecimal("25.00"), captor.getValue().get(0).getBalance());
+        verify(cardLedgerRepository, times(1)).readBalances(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("snapshotBalances: сохраняет снимок и при расхождении баланса с журналом")
+    void snapshotBalances_ShouldSaveSnapshot_WhenBalanceDriftsFromLedger() {
+        LedgerBalanceView drifted = new LedgerBalanceView(cardId, new BigDecimal("70.00"),
+                BigDecimal.ZERO, new BigDecimal("50.00"), new BigDecimal("10.00"));
+        when(cardLedgerRepository.readBalances(any(), any(), any())).thenReturn(List.of(drifted));
+        ArgumentCaptor<List<CardBalanceSnapshot>> captor = captor();
+
+        ledgerService.snapshotBalances();
+
+        verify(snapshotRepository).saveAll(captor.capture());
+        assertEquals(new BigDecimal("70.00"), captor.getValue().get(0).getBalance());
+        assertEquals(1.0, meterRegistry.counter("bank.ledger.discrepancies").count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<CardBalanceSnapshot>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ServiceUnavailableException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.PooledPasswordEncoder;
+import com.example.bankcards.service.impl.PasswordRehashServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordRehashServiceImplTest {
+    @Mock
+    private PooledPasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> ioTasks = new ArrayList<>();
+    private PasswordRehashServiceImpl passwordRehashService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        passwordRehashService = new PasswordRehashServiceImpl(passwordEncoder, userRepository, meterRegistry,
+                ioTasks::add);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("testuser");
+        user.setPassword("old-hash");
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded: ничего не делает, если стоимость хеша совпадает с целевой")
+    void rehashIfNeeded_ShouldSkip_WhenEncodingUpToDate() {
+        when(passwordEncoder.upgradeEncoding("old-hash")).thenReturn(false);
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+
+        verify(passwordEncoder, never()).encodeAsync(any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded: сохраняет новый хеш")
+    void rehashIfNeeded_ShouldReplacePassword_WhenEncodingOutdated() {
+        when(passwordEncoder.upgradeEncoding("old-hash")).thenReturn(true);
+        when(passwordEncoder.encodeAsync("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.replacePassword(user, "new-hash")).thenReturn(1);
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+        runIoTasks();
+
+        verify(userRepository, times(1)).replacePassword(user, "new-hash");
+        assertEquals(1, meterRegistry.counter("bank.password.rehashed").count());
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded: не учитывает перехеширование, если пароль успели изменить параллельно")
+    void rehashIfNeeded_ShouldNotCount_WhenPasswordChangedConcurrently() {
+        when(passwordEncoder.upgradeEncoding("old-hash")).thenReturn(true);
+        when(passwordEncoder.encodeAsync("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.replacePassword(user, "new-hash")).thenReturn(0);
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+        runIoTasks();
+
+        assertEquals(0, meterRegistry.counter("bank.password.rehashed").count());
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded: пропускает перехеширование, если пул хеширования перегружен")
+    void rehashIfNeeded_ShouldSkip_WhenPoolSaturated() {
+        when(passwordEncoder.upgradeEncoding("old-hash")).thenReturn(true);
+        when(passwordEncoder.encodeAsync("password")).thenReturn(
+                CompletableFuture.failedFuture(new ServiceUnavailableException("Сервис перегружен")));
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+        runIoTasks();
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded: сохраняет хеш в пуле задач приложения, а не в потоке пула хеширования")
+    void rehashIfNeeded_ShouldSaveOnIoExecutor() {
+        when(passwordEncoder.upgradeEncoding("old-hash")).thenReturn(true);
+        when(passwordEncoder.encodeAsync("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.replacePassword(user, "new-hash")).thenReturn(1);
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+
+        verifyNoInteractions(userRepository);
+        assertEquals(1, ioTasks.size());
+
+        runIoTasks();
+
+        verify(userRepository).replacePassword(user, "new-hash");
+    }
+
+    private void runIoTasks() {
+        ioTasks.forEach(Runnable::run);
+        ioTasks.clear();
+    }
+}
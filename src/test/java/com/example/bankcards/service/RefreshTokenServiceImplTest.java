@@ -0,0 +1,138 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.jwt.JwtAuthDto;
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.AuthException;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.security.JwtClaims;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.RevokedTokenRegistry;
+import com.example.bankcards.service.impl.RefreshTokenServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceImplTest {
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    private final RevokedTokenRegistry revokedTokenRegistry = new RevokedTokenRegistry(1000, 0.01);
+    private RefreshTokenServiceImpl refreshTokenService;
+    private User user;
+    private UUID tokenId;
+    private JwtClaims claims;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, revokedTokenRegistry, jwtService,
+                Duration.ofDays(15), 1000);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("testuser");
+
+        tokenId = UUID.randomUUID();
+        claims = new JwtClaims(null, "testuser", null, tokenId, Instant.now().plusSeconds(60));
+    }
+
+    @Test
+    @DisplayName("issue: сохраняет refresh token и подписывает его с jti сохранённой записи")
+    void issue_ShouldPersistTokenAndSignWithItsId() {
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId(tokenId);
+            return token;
+        });
+        when(jwtService.generateAccessToken(user)).thenReturn("access");
+        when(jwtService.generateRefreshToken(eq(user), eq(tokenId), any(Instant.class))).thenReturn("refresh");
+
+        JwtAuthDto result = refreshTokenService.issue(user);
+
+        assertEquals("access", result.getToken());
+        assertEquals("refresh", result.getRefreshToken());
+        verify(refreshTokenRepository).save(argThat(token -> user.getId().equals(token.getUserId())
+                && token.getRevokedAt() == null));
+    }
+
+    @Test
+    @DisplayName("consume: отзывает действующий токен и добавляет его в список отзыва")
+    void consume_ShouldRevokeToken_WhenTokenActive() {
+        when(refreshTokenRepository.revoke(eq(tokenId), any(LocalDateTime.class))).thenReturn(1);
+
+        refreshTokenService.consume(claims);
+
+        assertTrue(revokedTokenRegistry.isRevoked(tokenId));
+        verify(refreshTokenRepository, never()).revokeAllByUserId(any(), any());
+    }
+
+    @Test
+    @DisplayName("consume: повтор отозванного токена отклоняется без условного UPDATE и отзывает все токены пользователя")
+    void consume_ShouldRevokeAllUserTokens_WhenRevokedTokenReused() {
+        UUID otherTokenId = UUID.randomUUID();
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        revokedTokenRegistry.revoke(tokenId, claims.expiresAt());
+        when(refreshTokenRepository.findById(tokenId)).thenReturn(Optional.of(
+                new RefreshToken(tokenId, user.getId(), LocalDateTime.now(), expiresAt, LocalDateTime.now())));
+        when(refreshTokenRepository.findByUserIdAndRevokedAtIsNull(user.getId())).thenReturn(List.of(
+                new RefreshToken(otherTokenId, user.getId(), LocalDateTime.now(), expiresAt, null)));
+
+        assertThrows(AuthException.class, () -> refreshTokenService.consume(claims));
+
+        verify(refreshTokenRepository, never()).revoke(any(), any());
+        verify(refreshTokenRepository).revokeAllByUserId(eq(user.getId()), any(LocalDateTime.class));
+        assertTrue(revokedTokenRegistry.isRevoked(otherTokenId));
+    }
+
+    @Test
+    @DisplayName("consume: токен, отозванный на другом узле, отклоняется по результату условного UPDATE")
+    void consume_ShouldReject_WhenRevokedConcurrently() {
+        when(refreshTokenRepository.revoke(eq(tokenId), any(LocalDateTime.class))).thenReturn(0);
+        when(refreshTokenRepository.findById(tokenId)).thenReturn(Optional.empty());
+
+        assertThrows(AuthException.class, () -> refreshTokenService.consume(claims));
+
+        verify(refreshTokenRepository, never()).revokeAllByUserId(any(), any());
+    }
+
+    @Test
+    @DisplayName("consume: отклоняет токен без jti")
+    void consume_ShouldReject_WhenTokenIdMissing() {
+        JwtClaims withoutId = new JwtClaims(null, "testuser", null, null, Instant.now().plusSeconds(60));
+
+        assertThrows(AuthException.class, () -> refreshTokenService.consume(withoutId));
+
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    @DisplayName("loadRevokedTokens: восстанавливает список отзыва из базы данных")
+    void loadRevokedTokens_ShouldReloadRegistry() {
+        when(refreshTokenRepository.findByRevokedAtIsNotNullAndExpiresAtAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(new RefreshToken(tokenId, user.getId(), LocalDateTime.now(),
+                        LocalDateTime.now().plusDays(1), LocalDateTime.now())));
+
+        refreshTokenService.loadRevokedTokens();
+
+        assertTrue(revokedTokenRegistry.isRevoked(tokenId));
+    }
+}
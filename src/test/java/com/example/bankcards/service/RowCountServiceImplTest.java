@@ -0,0 +1,96 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.TableStatisticsRepository;
+import com.example.bankcards.service.impl.RowCountServiceImpl;
+import com.example.bankcards.util.CardStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RowCountServiceImplTest {
+    @Mock
+    private TableStatisticsRepository tableStatisticsRepository;
+
+    private RowCountServiceImpl rowCountService;
+    private AtomicInteger exactCounts;
+
+    @BeforeEach
+    void setUp() {
+        rowCountService = new RowCountServiceImpl(tableStatisticsRepository, 100, Duration.ofMinutes(1));
+        exactCounts = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("approximateCount: для выборки без фильтров берёт оценку из статистики таблицы")
+    void approximateCount_ShouldUseTableStatistics_WhenNoFilter() {
+        when(tableStatisticsRepository.estimateRowCount("cards")).thenReturn(OptionalLong.of(12345L));
+
+        long count = rowCountService.approximateCount("cards", Arrays.asList(null, null), this::exactCount);
+
+        assertEquals(12345L, count);
+        assertEquals(0, exactCounts.get());
+    }
+
+    @Test
+    @DisplayName("approximateCount: без статистики выполняет точный подсчёт")
+    void approximateCount_ShouldFallBackToExactCount_WhenNoStatistics() {
+        when(tableStatisticsRepository.estimateRowCount("users")).thenReturn(OptionalLong.empty());
+
+        long count = rowCountService.approximateCount("users", List.of(), this::exactCount);
+
+        assertEquals(7L, count);
+        assertEquals(1, exactCounts.get());
+    }
+
+    @Test
+    @DisplayName("approximateCount: кэширует точный подсчёт фильтрованной выборки")
+    void approximateCount_ShouldCacheExactCount_WhenFiltered() {
+        List<?> filter = List.of(CardStatus.ACTIVE);
+
+        rowCountService.approximateCount("cards", filter, this::exactCount);
+        long count = rowCountService.approximateCount("cards", filter, this::exactCount);
+
+        assertEquals(7L, count);
+        assertEquals(1, exactCounts.get());
+        verifyNoInteractions(tableStatisticsRepository);
+    }
+
+    @Test
+    @DisplayName("approximateCount: разные фильтры подсчитываются отдельно")
+    void approximateCount_ShouldCountSeparately_WhenFiltersDiffer() {
+        rowCountService.approximateCount("cards", List.of(CardStatus.ACTIVE), this::exactCount);
+        rowCountService.approximateCount("cards", List.of(CardStatus.BLOCKED), this::exactCount);
+
+        assertEquals(2, exactCounts.get());
+    }
+
+    @Test
+    @DisplayName("approximateCount: повторяет точный подсчёт после истечения срока жизни записи")
+    void approximateCount_ShouldRecount_WhenCachedCountExpired() {
+        rowCountService = new RowCountServiceImpl(tableStatisticsRepository, 100, Duration.ZERO);
+        List<?> filter = List.of(CardStatus.ACTIVE);
+
+        rowCountService.approximateCount("cards", filter, this::exactCount);
+        rowCountService.approximateCount("cards", filter, this::exactCount);
+
+        assertEquals(2, exactCounts.get());
+    }
+
+    private long exactCount() {
+        exactCounts.incrementAndGet();
+        return 7L;
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.page.PageCursor;
+import com.example.bankcards.dto.page.PageResponse;
 import com.example.bankcards.dto.user.UserCreateDto;
 import com.example.bankcards.dto.user.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ConflictException;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.impl.UserServiceImpl;
+import com.example.bankcards.util.CountMode;
 import com.example.bankcards.util.UserRole;
 import com.example.bankcards.util.mapper.UserMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +18,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
@@ -39,6 +44,9 @@ public class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private RowCountService rowCountService;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -130,7 +138,7 @@ public class UserServiceImplTest {
         when(userMapper.toDto(user)).thenReturn(userDto);
         when(userMapper.toDto(user2)).thenReturn(userDto2);
 
-        List<UserDto> result = userService.getUsers(page, size).content();
+        List<UserDto> result = userService.getUsers(page, size, CountMode.EXACT).content();
 
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -151,7 +159,7 @@ public class UserServiceImplTest {
         when(userRepository.findAll(any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of()));
 
-        List<UserDto> result = userService.getUsers(page, size).content();
+        List<UserDto> result = userService.getUsers(page, size, CountMode.EXACT).content();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
@@ -159,4 +167,51 @@ public class UserServiceImplTest {
         verify(userRepository, times(1)).findAll(PageRequest.of(page, size));
         verifyNoInteractions(userMapper);
     }
+
+    @Test
+    @DisplayName("getUsers: при count=APPROX не выполняет точный подсчёт, если есть оценка")
+    void getUsers_ShouldUseApproximateCount_WhenCountModeApprox() {
+        Pageable expectedPageable = PageRequest.of(0, 1);
+
+        when(userRepository.findSliceBy(expectedPageable))
+                .thenReturn(new SliceImpl<>(List.of(user), expectedPageable, true));
+        when(userMapper.toDto(user)).thenReturn(userDto);
+        when(rowCountService.approximateCount(eq("users"), eq(List.of()), any())).thenReturn(1000L);
+
+        PageResponse<UserDto> result = userService.getUsers(0, 1, CountMode.APPROX);
+
+        assertEquals(List.of(userDto), result.content());
+        assertEquals(1000L, result.totalElements());
+        assertTrue(result.hasNext());
+        verify(userRepository, never()).findAll(any(Pageable.class));
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("getUsersByCursor: первую страницу читает без условия по курсору")
+    void getUsersByCursor_ShouldReadFirstPage_WhenCursorEmpty() {
+        when(userRepository.findAllByOrderByUsernameAscIdAsc(Limit.of(2))).thenReturn(List.of(user));
+        when(userMapper.toDto(user)).thenReturn(userDto);
+
+        PageResponse<UserDto> result = userService.getUsersByCursor("", 1);
+
+        assertEquals(List.of(userDto), result.content());
+        assertFalse(result.hasNext());
+        verify(userRepository, never()).findAllAfter(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("getUsersByCursor: следующую страницу читает после позиции курсора")
+    void getUsersByCursor_ShouldSeekAfterCursor() {
+        PageCursor cursor = new PageCursor("alice", UUID.randomUUID());
+        when(userRepository.findAllAfter("alice", cursor.id(), Limit.of(2))).thenReturn(List.of(user, savedUser));
+        when(userMapper.toDto(user)).thenReturn(userDto);
+
+        PageResponse<UserDto> result = userService.getUsersByCursor(cursor.encode(), 1);
+
+        assertEquals(List.of(userDto), result.content());
+        assertTrue(result.hasNext());
+        assertEquals(new PageCursor(username, user.getId()).encode(), result.nextCursor());
+        verify(userRepository, never()).findAllByOrderByUsernameAscIdAsc(any());
+    }
 }
@@ -0,0 +1,108 @@
+package com.example.bankcards.support;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.util.CardNumberGenerator;
+import com.example.bankcards.util.CardStatus;
+import com.example.bankcards.util.UserRole;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Общие тестовые данные для интеграционных тестов: пользователи, активные карты и проверки балансов.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestFixtures {
+
+    /**
+     * BCrypt-хеш пароля тестовых пользователей, тот же, что у {@code testuser} в {@code data/insert.sql}.
+     */
+    public static final String PASSWORD_HASH = "$2a$10$ONXw65Z8qLDXeW3SgwzBiO/dMQ0KvwqN3HNqjqgA/ybHIiHZ2qNDW";
+
+    private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final MeterRegistry meterRegistry;
+
+    public User createUser(String username) {
+        return createUser(username, UserRole.ROLE_USER);
+    }
+
+    public User createUser(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(PASSWORD_HASH);
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    /**
+     * Создаёт активную карту со случайным номером.
+     */
+    public Card createActiveCard(User owner, BigDecimal balance) {
+        return saveActiveCard(owner, CardNumberGenerator.generateCardNumber(), balance);
+    }
+
+    /**
+     * Создаёт активную карту с заданными последними четырьмя цифрами номера.
+     */
+    public Card createActiveCard(User owner, String last4, BigDecimal balance) {
+        String cardNumber = CardNumberGenerator.generateCardNumber();
+        return saveActiveCard(owner, cardNumber.substring(0, cardNumber.length() - 4) + last4, balance);
+    }
+
+    public List<UUID> createActiveCards(User owner, int count, BigDecimal balance) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(createActiveCard(owner, balance).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Проверяет, что переводы не создали и не потеряли средства: сумма балансов карт равна ожидаемой,
+     * ни один баланс не отрицателен, а балансы сходятся с журналом операций ({@link #assertLedgerReconciled}).
+     */
+    public void assertBalancesConserved(List<UUID> cardIds, BigDecimal expectedTotal) {
+        List<Card> cards = cardRepository.findAllById(cardIds);
+        BigDecimal actualTotal = cards.stream().map(Card::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, expectedTotal.compareTo(actualTotal));
+        assertTrue(cards.stream().allMatch(card -> card.getBalance().signum() >= 0));
+        assertLedgerReconciled();
+    }
+
+    /**
+     * Сохраняет снимки балансов и проверяет, что сверка с журналом не нашла расхождений.
+     * Предыдущие снимки карт должны быть сохранены до переводов.
+     */
+    public void assertLedgerReconciled() {
+        double discrepancies = meterRegistry.counter("bank.ledger.discrepancies").count();
+        ledgerService.snapshotBalances();
+        assertEquals(discrepancies, meterRegistry.counter("bank.ledger.discrepancies").count());
+    }
+
+    private Card saveActiveCard(User owner, String cardNumber, BigDecimal balance) {
+        Card card = new Card();
+        card.setOwner(owner);
+        card.setCardNumber(cardNumber);
+        card.setLast4(cardNumber.substring(cardNumber.length() - 4));
+        card.setExpiryDate(LocalDateTime.now().plusYears(10));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalance(balance);
+        return cardRepository.save(card);
+    }
+}
@@ -1,2 +1,7 @@
-DELETE FROM users;
-DELETE FROM cards;
\ No newline at end of file
+DELETE FROM refresh_tokens;
+DELETE FROM idempotency_keys;
+DELETE FROM card_balance_snapshots;
+DELETE FROM card_ledger;
+DELETE FROM card_balance_stripes;
+DELETE FROM cards;
+DELETE FROM users;
\ No newline at end of file